@@ -4,6 +4,12 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import quic.app.transport.ReceiveWindow;
+import quic.app.transport.RttEstimator;
+import quic.app.util.TimerWheel;
+import quic.serialization.parameter.TransportParameters;
 
 /**
  * @author Rofiqul Islam
@@ -22,13 +28,30 @@ public class Client {
     private static long version = 0xff000019L;
     private static IncomingPacketHandler incomingPacketHandler;
     private static InputTaker inputTaker;
-    private static int timeout = 500;
+    private static int timeout = 500;       // round trip time in ms assumed for the handshake until it is measured
+    private static int maxProbes = 2;
+    private static int packetSize = 500;
     private static IncomingStreamHandler incomingStreamHandler;
+    private static long nextPacketNumber = 0;
+    private static boolean debug = false;
+    private static TimerWheel timerWheel;
+    private static long initialMaxData = ReceiveWindow.DEFAULT_MAX_DATA;
+    private static long initialMaxStreamData = ReceiveWindow.DEFAULT_MAX_STREAM_DATA;
+    private static long maxReceiveWindow = 24 << 20;        // receive windows auto-tune up to these limits
+    private static long maxStreamReceiveWindow = 16 << 20;
+    private static int maxUdpPayloadSize = 2048;        // size of the receive buffer
+    private static int idleTimeout = 30000;             // ms without packets from the server before a new handshake is needed
+    private static int maxAckDelay = 25;                // ms an acknowledgement may wait for more packets to cover
+    private static long minAckDelay = 1000;             // microseconds, the shortest delay the server may ask for with ACK_FREQUENCY
+    private static TransportParameters peerParameters;
+    private static RttEstimator rttEstimator = new RttEstimator(TimeUnit.MILLISECONDS.toNanos(timeout));
 
 
     public static void main(String args[]) throws SocketException, UnknownHostException {
         ip = InetAddress.getByName(connectionId);
         ds = new DatagramSocket();
+        timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(1));
+        new Thread(timerWheel).start();
         fileDownloader = new FileDownloader();
         sender = new Sender();
         reciever = new Reciever();
@@ -145,6 +168,22 @@ public class Client {
         Client.timeout = timeout;
     }
 
+    public static int getMaxProbes() {
+        return maxProbes;
+    }
+
+    public static void setMaxProbes(int maxProbes) {
+        Client.maxProbes = maxProbes;
+    }
+
+    public static int getPacketSize() {
+        return packetSize;
+    }
+
+    public static void setPacketSize(int packetSize) {
+        Client.packetSize = packetSize;
+    }
+
     public static IncomingStreamHandler getIncomingStreamHandler() {
         return incomingStreamHandler;
     }
@@ -152,4 +191,124 @@ public class Client {
     public static void setIncomingStreamHandler(IncomingStreamHandler incomingStreamHandler) {
         Client.incomingStreamHandler = incomingStreamHandler;
     }
+
+    public static synchronized long nextPacketNumber() {
+        return nextPacketNumber++;
+    }
+
+    public static boolean isDebug() {
+        return debug;
+    }
+
+    public static void setDebug(boolean debug) {
+        Client.debug = debug;
+    }
+
+    public static TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public static void setTimerWheel(TimerWheel timerWheel) {
+        Client.timerWheel = timerWheel;
+    }
+
+    public static long getInitialMaxData() {
+        return initialMaxData;
+    }
+
+    public static void setInitialMaxData(long initialMaxData) {
+        Client.initialMaxData = initialMaxData;
+    }
+
+    public static long getInitialMaxStreamData() {
+        return initialMaxStreamData;
+    }
+
+    public static void setInitialMaxStreamData(long initialMaxStreamData) {
+        Client.initialMaxStreamData = initialMaxStreamData;
+    }
+
+    public static long getMaxReceiveWindow() {
+        return maxReceiveWindow;
+    }
+
+    public static void setMaxReceiveWindow(long maxReceiveWindow) {
+        Client.maxReceiveWindow = maxReceiveWindow;
+    }
+
+    public static long getMaxStreamReceiveWindow() {
+        return maxStreamReceiveWindow;
+    }
+
+    public static void setMaxStreamReceiveWindow(long maxStreamReceiveWindow) {
+        Client.maxStreamReceiveWindow = maxStreamReceiveWindow;
+    }
+
+    /**
+     * @return the transport parameters the client announces in its Initial packet
+     */
+    public static TransportParameters getTransportParameters() {
+        TransportParameters parameters = new TransportParameters();
+        parameters.setMaxIdleTimeout(idleTimeout);
+        parameters.setMaxUdpPayloadSize(maxUdpPayloadSize);
+        parameters.setInitialMaxData(initialMaxData);
+        parameters.setInitialMaxStreamDataBidiLocal(initialMaxStreamData);     // files come back on streams the client opened
+        parameters.setMaxAckDelay(maxAckDelay);
+        parameters.setMinAckDelay(minAckDelay);
+        return parameters;
+    }
+
+    /**
+     * @return the transport parameters of the server, null before the handshake
+     */
+    public static TransportParameters getPeerParameters() {
+        return peerParameters;
+    }
+
+    public static void setPeerParameters(TransportParameters peerParameters) {
+        Client.peerParameters = peerParameters;
+    }
+
+    public static int getMaxUdpPayloadSize() {
+        return maxUdpPayloadSize;
+    }
+
+    public static void setMaxUdpPayloadSize(int maxUdpPayloadSize) {
+        Client.maxUdpPayloadSize = maxUdpPayloadSize;
+    }
+
+    public static int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public static void setIdleTimeout(int idleTimeout) {
+        Client.idleTimeout = idleTimeout;
+    }
+
+    public static int getMaxAckDelay() {
+        return maxAckDelay;
+    }
+
+    public static void setMaxAckDelay(int maxAckDelay) {
+        Client.maxAckDelay = maxAckDelay;
+    }
+
+    public static long getMinAckDelay() {
+        return minAckDelay;
+    }
+
+    public static void setMinAckDelay(long minAckDelay) {
+        Client.minAckDelay = minAckDelay;
+    }
+
+    /**
+     * @return round trip time estimate of the connection to the server, measured in the handshake
+     */
+    public static RttEstimator getRttEstimator() {
+        return rttEstimator;
+    }
+
+    public static void setRttEstimator(RttEstimator rttEstimator) {
+        Client.rttEstimator = rttEstimator;
+    }
 }
@@ -2,18 +2,87 @@ package quic.app.client;
 
 import quic.serialization.frame.QuicStreamFrame;
 import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicCryptoFrame;
+import quic.serialization.frame.QuicDataBlockedFrame;
 import quic.serialization.frame.QuicFrame;
 import quic.serialization.packet.QuicInitialPacket;
 import quic.serialization.packet.QuicPacket;
 import quic.serialization.packet.QuicShortHeaderPacket;
+import quic.serialization.parameter.TransportParameters;
+import quic.app.transport.CongestionControl;
+import quic.app.transport.LossRecovery;
+import quic.app.transport.ReceiveWindow;
+import quic.app.transport.SendCredit;
+import quic.app.transport.SentPacket;
+import quic.app.transport.StreamPriority;
 import quic.app.util.*;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 public class FileDownloader implements Runnable {
+    /**
+     * Space between a file name and the priority after it, the priority starts with u= or i
+     */
+    public static final String PRIORITY_SEPARATOR = "\\s+(?=u=\\d|i\\s*(,|$))";
+
     BlockingQueue fileToDownloadQueue = new BlockingQueue(1200);
     static int flag = 0;
+    private LossRecovery handshakeRecovery;
+    private boolean handshakeFailed = false;
+    private SendCredit sendCredit = new SendCredit(ReceiveWindow.DEFAULT_MAX_DATA);
+    private long peerMaxStreamData = ReceiveWindow.DEFAULT_MAX_STREAM_DATA;
+    private long peerMaxStreams = Long.MAX_VALUE;
+    private long openedStreams = 0;
+    private Map<Long, PendingRequest> pendingRequests = new HashMap<>();
+    private long idleTimeout = TimeUnit.MILLISECONDS.toNanos(Client.getIdleTimeout());
+    private TimerWheel.Timer idleTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            if (Client.isDebug()) {
+                System.out.println("Connection idle, the next request starts a new handshake");
+            }
+            Client.setDestinationAdress("0".getBytes());
+        }
+    });
+    private TimerWheel.Timer handshakeTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            onHandshakeTimeout();
+        }
+    });
+
+    /**
+     * A request the server has not answered yet. The server does not acknowledge the client's
+     * packets, the first STREAM frame of the request's stream is the only sign the request got
+     * through, so it is sent again whenever a probe timeout passes without one. The timeout
+     * doubles with every retransmission; the request is given up with its connection.
+     */
+    private class PendingRequest implements Runnable {
+        private long streamId;
+        private byte[] request;
+        private byte[] destination;
+        private int retransmissions = 0;
+        private TimerWheel.Timer timer = new TimerWheel.Timer(this);
+
+        PendingRequest(long streamId, byte[] request, byte[] destination) {
+            this.streamId = streamId;
+            this.request = request;
+            this.destination = destination;
+        }
+
+        void schedule() {
+            long pto = Client.getRttEstimator().getPtoDuration(0) << Math.min(retransmissions, 16);
+            Client.getTimerWheel().schedule(timer, System.nanoTime() + pto);
+        }
+
+        @Override
+        public void run() {
+            onRequestTimeout(this);
+        }
+    }
 
 
     public FileDownloader() {
@@ -26,14 +95,215 @@ public class FileDownloader implements Runnable {
         return flag;
     }
 
-    public static void setFlag(int flag) {
+    /**
+     * Records the outcome of the handshake and wakes up the downloader waiting for it
+     *
+     * @param flag 0 while waiting, 1 if the server refused the connection, 2 if it accepted it
+     */
+    public synchronized void setFlag(int flag) {
         FileDownloader.flag = flag;
+        notifyAll();
+    }
+
+    /**
+     * Sends an Initial packet and records it so that it is probed again if no reply comes back
+     *
+     * @param recovery loss recovery of the handshake
+     */
+    private void sendInitial(LossRecovery recovery) {
+        Set<QuicFrame> temp = new HashSet<>();
+        try {
+            temp.add(new QuicCryptoFrame(0, Client.getTransportParameters().encode()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        QuicPacket.setDcIdSize(Client.getSourceAdrees().length);
+        QuicPacket initialPacket = new QuicInitialPacket(Client.getDestinationAdress(), Client.nextPacketNumber(), 0xff000019L, Client.getSourceAdrees(), temp);
+        synchronized (this) {
+            recovery.onPacketSent(new SentPacket(initialPacket.getPacketNumber(), System.nanoTime(), 0, new HashSet<>(temp)));
+            Client.getTimerWheel().schedule(handshakeTimer, recovery.getLossDetectionDeadline());
+        }
+        try {
+            Client.getSender().addPacketToSend(initialPacket);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Feeds the ACK carried by the server's Initial reply to the handshake loss recovery
+     *
+     * @param ack the ACK frame from the reply
+     */
+    public synchronized void onHandshakeAck(QuicAckFrame ack) {
+        if (handshakeRecovery != null) {
+            handshakeRecovery.onAckReceived(ack, System.nanoTime());
+        }
+    }
+
+    /**
+     * Probes the server again when the Initial went unanswered, gives up after
+     * {@link Client#getMaxProbes()} probes
+     */
+    private void onHandshakeTimeout() {
+        LossRecovery recovery;
+        synchronized (this) {
+            recovery = handshakeRecovery;
+            if (recovery == null || flag != 0) {
+                return;
+            }
+            long deadline = recovery.getLossDetectionDeadline();
+            if (deadline == 0) {
+                return;
+            }
+            if (System.nanoTime() < deadline) {
+                Client.getTimerWheel().schedule(handshakeTimer, deadline);
+                return;
+            }
+            if (recovery.getPtoCount() >= Client.getMaxProbes()) {
+                handshakeFailed = true;
+                notifyAll();
+                return;
+            }
+            recovery.onLossDetectionTimeout(System.nanoTime());      // backs off the next probe timeout
+        }
+        sendInitial(recovery);
+    }
+
+    /**
+     * Applies the transport parameters from the server's Initial reply
+     *
+     * @param parameters the server's transport parameters
+     */
+    public synchronized void onTransportParameters(TransportParameters parameters) {
+        Client.setPeerParameters(parameters);
+        Client.getIncomingStreamHandler().onNewConnection();
+        sendCredit = new SendCredit(parameters.getInitialMaxData());
+        peerMaxStreamData = parameters.getInitialMaxStreamDataBidiRemote();     // requests are streams the client opens
+        peerMaxStreams = parameters.getInitialMaxStreamsBidi();
+        openedStreams = 0;
+        idleTimeout = TimeUnit.MILLISECONDS.toNanos(Client.getIdleTimeout());
+        if (parameters.getMaxIdleTimeout() > 0 && (idleTimeout == 0 || TimeUnit.MILLISECONDS.toNanos(parameters.getMaxIdleTimeout()) < idleTimeout)) {
+            idleTimeout = TimeUnit.MILLISECONDS.toNanos(parameters.getMaxIdleTimeout());
+        }
+        notifyAll();
+    }
+
+    /**
+     * Restarts the idle timer, called for every packet from the server
+     */
+    public synchronized void onPacketReceived() {
+        if (idleTimeout > 0) {
+            Client.getTimerWheel().schedule(idleTimer, System.nanoTime() + idleTimeout);
+        }
+    }
+
+    /**
+     * Raises the limit the server granted for requests
+     *
+     * @param maximumData the new connection limit
+     */
+    public synchronized void onMaxData(long maximumData) {
+        if (sendCredit.onLimit(maximumData)) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the server's connection limit leaves room for a request, telling the server
+     * with DATA_BLOCKED when it does not
+     *
+     * @param bytes size of the request
+     */
+    private synchronized void acquireSendCredit(int bytes) throws InterruptedException {
+        while (sendCredit.available() < bytes) {
+            if (sendCredit.shouldSendBlocked(bytes)) {
+                Set<QuicFrame> temp = new HashSet<>();
+                temp.add(new QuicDataBlockedFrame(sendCredit.getLimit()));
+                QuicAckFrame ack = Client.getIncomingStreamHandler().takeAck();
+                if (ack != null) {
+                    temp.add(ack);
+                }
+                Client.getSender().addPacketToSend(new QuicShortHeaderPacket(Client.getDestinationAdress(), Client.nextPacketNumber(), temp));
+            }
+            wait();
+        }
+        sendCredit.onDataSent(bytes);
+    }
+
+    /**
+     * Sends a request on its stream, together with the pending acknowledgement
+     *
+     * @param streamId the request stream
+     * @param request  the request, the whole stream
+     */
+    private void sendRequest(long streamId, byte[] request) throws InterruptedException {
+        Set<QuicFrame> temp = new HashSet<>();
+        temp.add(new QuicStreamFrame(streamId, 0, true, request));
+        QuicAckFrame ack = Client.getIncomingStreamHandler().takeAck();
+        if (ack != null) {
+            temp.add(ack);      // the request carries the pending acknowledgement
+        }
+        Client.getSender().addPacketToSend(new QuicShortHeaderPacket(Client.getDestinationAdress(), Client.nextPacketNumber(), temp));
+    }
+
+    /**
+     * Sends a request again when the server did not answer it within the probe timeout, unless
+     * the connection it was sent on is gone
+     *
+     * @param pending the unanswered request
+     */
+    private void onRequestTimeout(PendingRequest pending) {
+        synchronized (this) {
+            if (pendingRequests.get(pending.streamId) != pending) {
+                return;
+            }
+            if (!Arrays.equals(Client.getDestinationAdress(), pending.destination)) {
+                pendingRequests.remove(pending.streamId);
+                return;
+            }
+            pending.retransmissions++;
+            pending.schedule();
+        }
+        try {
+            sendRequest(pending.streamId, pending.request);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops retransmitting a request once the server answered it, called for every STREAM frame
+     * from the server
+     *
+     * @param streamId the stream of the frame
+     */
+    public synchronized void onStreamData(long streamId) {
+        PendingRequest pending = pendingRequests.remove(streamId);
+        if (pending != null) {
+            Client.getTimerWheel().cancel(pending.timer);
+        }
     }
 
     public Object getNextFileToDownload() throws InterruptedException {
         return fileToDownloadQueue.dequeue();
     }
 
+    /**
+     * Builds a request from an input line, a file name optionally followed by the stream's
+     * priority, e.g. {@code index.html u=0} or {@code movie.mp4 u=5, i}
+     *
+     * @param line the input line
+     * @return the request: the file name, and the priority on a line of its own
+     */
+    public static byte[] toRequest(String line) {
+        String[] parts = line.split(PRIORITY_SEPARATOR, 2);
+        if (parts.length < 2) {
+            return line.getBytes();
+        }
+        return (parts[0] + "\n" + StreamPriority.parse(parts[1])).getBytes();
+    }
+
     public void addFileToDownloadList(String fileName) throws InterruptedException {
         fileToDownloadQueue.enqueue(fileName);
     }
@@ -43,38 +313,36 @@ public class FileDownloader implements Runnable {
     public void run() {
         while (true) {
             String fileName=null;
-            Set<QuicFrame> temp = new HashSet<>();
             try {
                 fileName = getNextFileToDownload()+"";
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
+            byte[] request = toRequest(fileName);
+            fileName = fileName.split(PRIORITY_SEPARATOR, 2)[0];
             if(Arrays.equals(Client.getDestinationAdress(),"0".getBytes())) {
-                QuicFrame ackFrame = new QuicAckFrame(0, 0, 0, 1);
-                temp.clear();
-                temp.add(ackFrame);
-                QuicPacket.setDcIdSize(Client.getSourceAdrees().length);
-                QuicPacket initialPacket = new QuicInitialPacket(Client.getDestinationAdress(), 0, 0xff000019L, Client.getSourceAdrees(), temp);
-                setFlag(0);
-                try {
-                    Client.getSender().addPacketToSend(initialPacket);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                LossRecovery recovery = new LossRecovery(TimeUnit.MILLISECONDS.toNanos(Client.getTimeout()),
+                        CongestionControl.NEW_RENO.create(Client.getPacketSize()));
+                recovery.setMaxAckDelay(0);         // Initial packets are acknowledged immediately
+                synchronized (this) {
+                    handshakeRecovery = recovery;
+                    handshakeFailed = false;
+                    flag = 0;
                 }
-                int timer = 0;
-                while (true) {
-                    if (flag != 0) {
-                        break;
-                    }
-                    try {
-                        Thread.sleep(100);
-                        timer += 100;
-                        if (timer >= Client.getTimeout()) {
-                            break;
+                sendInitial(recovery);
+                synchronized (this) {
+                    while (flag == 0 && !handshakeFailed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            e.printStackTrace();
                         }
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
                     }
+                    Client.getTimerWheel().cancel(handshakeTimer);
+                    if (flag == 2) {
+                        Client.setRttEstimator(recovery.getRttEstimator());
+                    }
+                    handshakeRecovery = null;
                 }
             }
             if(flag == 0){
@@ -85,13 +353,30 @@ public class FileDownloader implements Runnable {
                 continue;           // file not found or invalid destinatin
             }else if(flag ==2){
                 long x = Client.getIncomingStreamHandler().getValidStreamId()<<2;
-                QuicFrame quicStreamFrame = new QuicStreamFrame(x,0,true,(fileName).getBytes());
-                temp.clear();
-                temp.add(quicStreamFrame);
-                QuicPacket shortHeaderPacket = new QuicShortHeaderPacket(Client.getDestinationAdress(),1,temp);
+                synchronized (this) {
+                    if (openedStreams >= peerMaxStreams) {
+                        System.out.println("Stream limit of the server reached");
+                        continue;
+                    }
+                    if (request.length > peerMaxStreamData) {
+                        System.out.println("File name too long");
+                        continue;
+                    }
+                    openedStreams++;
+                }
+                try {
+                    acquireSendCredit(request.length);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
                 Client.getIncomingStreamHandler().getFileStreamIdMap().put(x,fileName);
+                synchronized (this) {
+                    PendingRequest pending = new PendingRequest(x, request, Client.getDestinationAdress());
+                    pendingRequests.put(x, pending);
+                    pending.schedule();
+                }
                 try {
-                    Client.getSender().addPacketToSend(shortHeaderPacket);
+                    sendRequest(x, request);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
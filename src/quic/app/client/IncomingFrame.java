@@ -0,0 +1,34 @@
+package quic.app.client;
+
+import quic.serialization.frame.QuicFrame;
+
+public class IncomingFrame {
+    private long packetNumber;
+    private QuicFrame frame;
+    private long receiveTime;
+
+    public IncomingFrame(long packetNumber, QuicFrame frame) {
+        this(packetNumber, frame, System.nanoTime());
+    }
+
+    /**
+     * @param receiveTime when the packet carrying the frame arrived, for the ack delay
+     */
+    public IncomingFrame(long packetNumber, QuicFrame frame, long receiveTime) {
+        this.packetNumber = packetNumber;
+        this.frame = frame;
+        this.receiveTime = receiveTime;
+    }
+
+    public long getPacketNumber() {
+        return packetNumber;
+    }
+
+    public QuicFrame getFrame() {
+        return frame;
+    }
+
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+}
@@ -1,11 +1,21 @@
 package quic.app.client;
 
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicAckFrequencyFrame;
 import quic.serialization.frame.QuicConnectionCloseFrame;
+import quic.serialization.frame.QuicCryptoFrame;
+import quic.serialization.frame.QuicDataBlockedFrame;
 import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+import quic.serialization.frame.QuicPaddingFrame;
+import quic.serialization.frame.QuicPingFrame;
+import quic.serialization.frame.QuicStreamDataBlockedFrame;
 import quic.serialization.frame.QuicStreamFrame;
 import quic.serialization.packet.QuicInitialPacket;
 import quic.serialization.packet.QuicPacket;
 import quic.serialization.packet.QuicShortHeaderPacket;
+import quic.serialization.parameter.TransportParameters;
 import quic.app.util.*;
 
 import java.util.Arrays;
@@ -36,14 +46,29 @@ public class IncomingPacketHandler implements Runnable {
                 QuicPacket quicPacket = (QuicPacket) packetBuffer.dequeue();
                 if (quicPacket instanceof QuicInitialPacket) {
                     if (Arrays.equals(quicPacket.getDcID(), Client.getSourceAdrees())) {
-                        Set<QuicFrame> frames = quicPacket.getFrames();
-                        Iterator<QuicFrame> frameIterator = frames.iterator();
-                        QuicFrame quicFrame = frameIterator.next();
-                        if(!(quicFrame instanceof QuicConnectionCloseFrame)) {
+                        QuicConnectionCloseFrame closeFrame = null;
+                        TransportParameters parameters = null;
+                        for (QuicFrame quicFrame : quicPacket.getFrames()) {
+                            if (quicFrame instanceof QuicConnectionCloseFrame) {
+                                closeFrame = (QuicConnectionCloseFrame) quicFrame;
+                            } else if (quicFrame instanceof QuicAckFrame) {
+                                Client.getFileDownloader().onHandshakeAck((QuicAckFrame) quicFrame);
+                            } else if (quicFrame instanceof QuicCryptoFrame) {
+                                try {
+                                    parameters = TransportParameters.decode(((QuicCryptoFrame) quicFrame).getData());
+                                } catch (QuicException e) {
+                                    closeFrame = new QuicConnectionCloseFrame(e.getErrorCode(), e.getFrameType(), e.getMessage());
+                                }
+                            }
+                        }
+                        if (closeFrame == null) {
+                            if (parameters != null) {
+                                Client.getFileDownloader().onTransportParameters(parameters);
+                            }
                             Client.setDestinationAdress(((QuicInitialPacket) quicPacket).getScID());
                             Client.getFileDownloader().setFlag(2);
-                        }else{
-                            System.out.println(((QuicConnectionCloseFrame)quicFrame).getReasonPhrase());
+                        } else {
+                            System.out.println(closeFrame.getReasonPhrase());
                             Client.getFileDownloader().setFlag(1);
                         }
                     } else {
@@ -55,14 +80,35 @@ public class IncomingPacketHandler implements Runnable {
                     }
                 }
                 else if(quicPacket instanceof QuicShortHeaderPacket){
+                    long receiveTime = System.nanoTime();
                     Set<QuicFrame> frames = quicPacket.getFrames();
+                    boolean ackEliciting = false;
+                    for (QuicFrame quicFrame : frames) {
+                        if (!(quicFrame instanceof QuicAckFrame || quicFrame instanceof QuicPaddingFrame || quicFrame instanceof QuicConnectionCloseFrame)) {
+                            ackEliciting = true;
+                        }
+                    }
+                    if (!Client.getIncomingStreamHandler().onPacketReceived(quicPacket.getPacketNumber(), ackEliciting, receiveTime)) {
+                        continue;       // a duplicate, its frames were handled already
+                    }
                     Iterator<QuicFrame> frameIterator = frames.iterator();
-                    QuicFrame quicFrame = frameIterator.next();
-                    if(quicFrame instanceof QuicStreamFrame){
-                        if(((QuicStreamFrame) quicFrame).getData().length==0 &&((QuicStreamFrame) quicFrame).isEndOfStream()){
-                            System.out.println("File : "+Client.getIncomingStreamHandler().getFileStreamIdMap().get(((QuicStreamFrame) quicFrame).getStreamId())+" Not found");
-                        }else{
-                            Client.getIncomingStreamHandler().addNewStreamFrame(quicFrame);
+                    while(frameIterator.hasNext()) {
+                        QuicFrame quicFrame = frameIterator.next();
+                        if (quicFrame instanceof QuicStreamFrame) {
+                            Client.getFileDownloader().onStreamData(((QuicStreamFrame) quicFrame).getStreamId());
+                            if (((QuicStreamFrame) quicFrame).getData().length == 0 && ((QuicStreamFrame) quicFrame).isEndOfStream()) {
+                                System.out.println("File : " + Client.getIncomingStreamHandler().getFileStreamIdMap().get(((QuicStreamFrame) quicFrame).getStreamId()) + " Not found");
+                            }
+                            Client.getIncomingStreamHandler().addNewStreamFrame(new IncomingFrame(quicPacket.getPacketNumber(), quicFrame, receiveTime));
+                        } else if (quicFrame instanceof QuicMaxDataFrame) {
+                            Client.getFileDownloader().onMaxData(((QuicMaxDataFrame) quicFrame).getMaximumData());
+                            Client.getIncomingStreamHandler().addNewStreamFrame(new IncomingFrame(quicPacket.getPacketNumber(), quicFrame, receiveTime));
+                        } else if (quicFrame instanceof QuicDataBlockedFrame || quicFrame instanceof QuicStreamDataBlockedFrame
+                                || quicFrame instanceof QuicPingFrame || quicFrame instanceof QuicAckFrequencyFrame) {      // a PING only asks for an acknowledgement
+                            Client.getIncomingStreamHandler().addNewStreamFrame(new IncomingFrame(quicPacket.getPacketNumber(), quicFrame, receiveTime));
+                        } else if (quicFrame instanceof QuicConnectionCloseFrame) {
+                            System.out.println(((QuicConnectionCloseFrame) quicFrame).getReasonPhrase());
+                            Client.setDestinationAdress("0".getBytes());        // the next request starts a new handshake
                         }
                     }
                 }
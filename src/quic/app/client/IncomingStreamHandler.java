@@ -1,18 +1,43 @@
 package quic.app.client;
 
+import quic.app.transport.AckManager;
+import quic.app.transport.LossRecovery;
+import quic.app.transport.ReceiveWindow;
 import quic.app.util.BlockingQueue;
+import quic.app.util.TimerWheel;
+import quic.serialization.exception.QuicException;
 import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicAckFrequencyFrame;
+import quic.serialization.frame.QuicConnectionCloseFrame;
+import quic.serialization.frame.QuicDataBlockedFrame;
 import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+import quic.serialization.frame.QuicMaxStreamDataFrame;
+import quic.serialization.frame.QuicStreamDataBlockedFrame;
 import quic.serialization.frame.QuicStreamFrame;
-import quic.serialization.packet.QuicPacket;
 import quic.serialization.packet.QuicShortHeaderPacket;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class IncomingStreamHandler implements Runnable {
     BlockingQueue incomingStreamQueue = new BlockingQueue(1200);
     Map<Long,String> fileStreamIdMap = new HashMap<>();
     Random rand = new Random();
+    private ReceiveWindow receiveWindow = new ReceiveWindow(Client.getInitialMaxData(), Client.getMaxReceiveWindow());
+    private Map<Long, ReceiveWindow> streamReceiveWindows = new HashMap<>();
+    private AckManager ackManager = newAckManager();
+    private boolean closed = false;
+    private TimerWheel.Timer ackTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            try {
+                sendAck(new HashSet<>());
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    });
 
     public IncomingStreamHandler() {
         Thread t = new Thread(this);
@@ -29,7 +54,7 @@ public class IncomingStreamHandler implements Runnable {
         }
         return x;
     }
-    public void addNewStreamFrame(QuicFrame frame) throws InterruptedException {
+    public void addNewStreamFrame(IncomingFrame frame) throws InterruptedException {
         incomingStreamQueue.enqueue(frame);
     }
 
@@ -45,15 +70,194 @@ public class IncomingStreamHandler implements Runnable {
         this.fileStreamIdMap = fileStreamIdMap;
     }
 
+    /**
+     * Applies flow control to a frame from the server. Stream data counts as consumed as soon as
+     * it arrives because it is handed on right away. Called holding the handler's lock, which
+     * guards the receive windows.
+     *
+     * @param frame   the received frame
+     * @param replies collects the MAX_DATA and MAX_STREAM_DATA frames to send back
+     * @throws QuicException if the server sent more than the client allowed
+     */
+    private void onFrame(QuicFrame frame, Set<QuicFrame> replies) throws QuicException {
+        long streamId = -1;
+        if (frame instanceof QuicStreamFrame) {
+            QuicStreamFrame streamFrame = (QuicStreamFrame) frame;
+            streamId = streamFrame.getStreamId();
+            long grown = getStreamReceiveWindow(streamId).onDataReceived(streamFrame.getOffset() + streamFrame.getData().length);
+            if (grown < 0 || receiveWindow.onDataReceived(receiveWindow.getReceived() + grown) < 0) {
+                throw new QuicException(3, 8, "Flow control limit exceeded on stream " + streamId);
+            }
+            getStreamReceiveWindow(streamId).onDataConsumed(grown);
+            receiveWindow.onDataConsumed(grown);
+        } else if (frame instanceof QuicDataBlockedFrame) {
+            receiveWindow.onBlocked();
+        } else if (frame instanceof QuicStreamDataBlockedFrame) {
+            streamId = ((QuicStreamDataBlockedFrame) frame).getStreamId();
+            getStreamReceiveWindow(streamId).onBlocked();
+        } else if (frame instanceof QuicAckFrequencyFrame) {
+            ackManager.onAckFrequency((QuicAckFrequencyFrame) frame);
+        }
+        long now = System.nanoTime();
+        long rtt = Client.getRttEstimator().getSmoothedRtt();
+        if (streamId >= 0) {
+            long maxStreamData = getStreamReceiveWindow(streamId).update(now, rtt);
+            if (maxStreamData >= 0) {
+                replies.add(new QuicMaxStreamDataFrame(streamId, maxStreamData));
+            }
+        }
+        long maxData = receiveWindow.update(now, rtt);
+        if (maxData >= 0) {
+            replies.add(new QuicMaxDataFrame(maxData));
+        }
+    }
+
+    private static AckManager newAckManager() {
+        return new AckManager(TimeUnit.MILLISECONDS.toNanos(Client.getMaxAckDelay()),
+                LossRecovery.DEFAULT_ACK_DELAY_EXPONENT, TimeUnit.MICROSECONDS.toNanos(Client.getMinAckDelay()));
+    }
+
+    /**
+     * Forgets the packets and the flow control state of the previous connection, the server
+     * numbers its packets from 0 again after a new handshake and starts its credit from the
+     * initial limits
+     */
+    public synchronized void onNewConnection() {
+        Client.getTimerWheel().cancel(ackTimer);
+        ackManager = newAckManager();
+        receiveWindow = new ReceiveWindow(Client.getInitialMaxData(), Client.getMaxReceiveWindow());
+        streamReceiveWindows.clear();
+        closed = false;
+    }
+
+    /**
+     * Closes the connection after the server broke the protocol: tells it with a CONNECTION_CLOSE
+     * frame, which stops the transfers, and ignores its packets from now on. The receive windows
+     * start over and the next request starts a new handshake.
+     *
+     * @param e the error
+     */
+    private void closeConnection(QuicException e) throws InterruptedException {
+        byte[] destination = Client.getDestinationAdress();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Client.getTimerWheel().cancel(ackTimer);
+            receiveWindow = new ReceiveWindow(Client.getInitialMaxData(), Client.getMaxReceiveWindow());
+            streamReceiveWindows.clear();
+        }
+        Client.setDestinationAdress("0".getBytes());
+        System.out.println("Connection closed: " + e.getMessage());
+        Set<QuicFrame> temp = new HashSet<>();
+        temp.add(new QuicConnectionCloseFrame(e.getErrorCode(), e.getFrameType(), e.getMessage()));
+        Client.getSender().addPacketToSend(new QuicShortHeaderPacket(destination, Client.nextPacketNumber(), temp));
+    }
+
+    /**
+     * Hands out the pending acknowledgement so that it rides on a packet the client sends anyway
+     *
+     * @return an ACK frame, or null when no ack-eliciting packet waits for one
+     */
+    public synchronized QuicAckFrame takeAck() {
+        if (closed || !ackManager.hasPendingAck()) {
+            return null;
+        }
+        Client.getTimerWheel().cancel(ackTimer);
+        return ackManager.buildAck(System.nanoTime());
+    }
+
+    /**
+     * Sends the given frames together with the pending acknowledgement
+     *
+     * @param frames the frames to send, the ACK frame is added to them
+     */
+    private void sendAck(Set<QuicFrame> frames) throws InterruptedException {
+        QuicAckFrame ack = takeAck();
+        if (ack != null) {
+            frames.add(ack);
+        }
+        if (!frames.isEmpty()) {
+            Client.getSender().addPacketToSend(new QuicShortHeaderPacket(Client.getDestinationAdress(), Client.nextPacketNumber(), frames));
+        }
+    }
+
+    /**
+     * Records a packet from the server for acknowledgement. A duplicate is acknowledged again
+     * right away, the server apparently missed the ACK.
+     *
+     * @param packetNumber the packet number
+     * @param ackEliciting true if the packet needs an acknowledgement
+     * @param receiveTime  when the packet arrived
+     * @return false if the packet is a duplicate or arrived after the client closed the
+     * connection, its frames must be dropped
+     */
+    public boolean onPacketReceived(long packetNumber, boolean ackEliciting, long receiveTime) throws InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (ackManager.onPacketReceived(packetNumber, ackEliciting, receiveTime)) {
+                return true;
+            }
+        }
+        if (ackEliciting) {
+            sendAck(new HashSet<>());
+        }
+        return false;
+    }
+
+    /**
+     * Sends the pending ACK now, together with any replies, or arms the ack timer to send it
+     * within max_ack_delay
+     *
+     * @param replies frames to send back, they are sent right away with the pending ACK
+     */
+    private void acknowledge(Set<QuicFrame> replies) throws InterruptedException {
+        synchronized (this) {
+            if (!ackManager.shouldAckNow() && replies.isEmpty()) {
+                long deadline = ackManager.getAckDeadline();
+                if (deadline != 0 && !ackTimer.isScheduled()) {
+                    Client.getTimerWheel().schedule(ackTimer, deadline);
+                }
+                return;
+            }
+        }
+        sendAck(replies);
+    }
+
+    private ReceiveWindow getStreamReceiveWindow(long streamId) {
+        ReceiveWindow window = streamReceiveWindows.get(streamId);
+        if (window == null) {
+            window = new ReceiveWindow(Client.getInitialMaxStreamData(), Client.getMaxStreamReceiveWindow());
+            streamReceiveWindows.put(streamId, window);
+        }
+        return window;
+    }
+
     @Override
     public void run() {
-        Set<QuicFrame> temp = new HashSet<>();
         while(true){
             try {
-                QuicStreamFrame quicStreamFrame = (QuicStreamFrame) getStreamFrameQueue();
-                temp.clear();
-                temp.add(new QuicAckFrame(0,0,0,quicStreamFrame.getOffset()+1));
-                Client.getSender().addPacketToSend(new QuicShortHeaderPacket(Client.getDestinationAdress(),quicStreamFrame.getStreamId(),temp));
+                IncomingFrame incomingFrame = (IncomingFrame) getStreamFrameQueue();
+                Set<QuicFrame> temp = new HashSet<>();
+                QuicException error = null;
+                synchronized (this) {
+                    if (closed) {
+                        continue;       // queued before the connection was closed
+                    }
+                    try {
+                        onFrame(incomingFrame.getFrame(), temp);
+                    } catch (QuicException e) {
+                        error = e;
+                    }
+                }
+                if (error != null) {
+                    closeConnection(error);
+                    continue;
+                }
+                acknowledge(temp);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
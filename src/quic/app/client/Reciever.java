@@ -6,6 +6,7 @@ import quic.serialization.util.Util;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 
@@ -22,12 +23,15 @@ public class Reciever implements Runnable {
     @Override
     public void run() {
         while (true) {
-            byte[] b1 = new byte[2048];
+            byte[] b1 = new byte[Client.getMaxUdpPayloadSize()];
             DatagramPacket DpRecv = new DatagramPacket(b1, b1.length);
             try {
                 Client.getDs().receive(DpRecv);
-                QuicPacket quicPacket = QuicPacket.decode(b1);
-                System.out.println("Recieveing : "+quicPacket.toString());
+                Client.getFileDownloader().onPacketReceived();
+                QuicPacket quicPacket = QuicPacket.decode(Arrays.copyOf(b1, DpRecv.getLength()));     // the rest of the buffer is not part of the datagram
+                if (Client.isDebug()) {
+                    System.out.println("Recieveing : " + quicPacket.toString());
+                }
                 Client.getIncomingPacketHandler().addNewPacketToBuffer(quicPacket);
 
             } catch (IOException | QuicException | InterruptedException e) {
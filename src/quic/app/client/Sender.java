@@ -39,8 +39,10 @@ public class Sender implements Runnable {
         while (true) {
             try {
                 QuicPacket quicPacket = (QuicPacket) packetToSend.dequeue();
+                if (Client.isDebug()) {
+                    System.out.println("Sending : " + quicPacket.toString());
+                }
                 sendData(quicPacket.encode());
-                System.out.println("Sending : "+quicPacket.toString());
             } catch (IOException | InterruptedException e) {
                 e.printStackTrace();
             }
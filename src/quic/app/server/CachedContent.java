@@ -0,0 +1,145 @@
+package quic.app.server;
+
+import quic.app.util.BufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A file held off the Java heap in direct buffers of {@link #CHUNK_SIZE} bytes, served by the
+ * {@link ContentCache}. Slices are views of the chunks, so any number of streams on any number
+ * of connections read the same immutable content at once. The content is reference counted:
+ * the cache holds one reference while it is cached and every stream serving it holds one,
+ * which closing the stream's source gives up. When the last reference is gone the chunks go
+ * back to the pool they came from.
+ */
+public class CachedContent implements StreamDataSource {
+    /**
+     * Bytes per chunk, a slice crossing a chunk boundary is copied into a buffer of its own
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private ByteBuffer[] chunks;
+    private long size;
+    private BufferPool pool;
+    private AtomicInteger references = new AtomicInteger(1);
+
+    private CachedContent(ByteBuffer[] chunks, long size, BufferPool pool) {
+        this.chunks = chunks;
+        this.size = size;
+        this.pool = pool;
+    }
+
+    /**
+     * Reads a whole file into direct chunks
+     *
+     * @param file the open file
+     * @param pool where the chunks come from and go back to
+     * @return the content, holding one reference for the caller
+     */
+    public static CachedContent load(FileHandle file, BufferPool pool) throws IOException {
+        FileChannel channel = file.getChannel();
+        long size = file.size();
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        CachedContent content = new CachedContent(chunks, size, pool);
+        try {
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i * CHUNK_SIZE;
+                ByteBuffer chunk = pool.acquire(CHUNK_SIZE);
+                chunks[i] = chunk;
+                chunk.limit((int) Math.min(CHUNK_SIZE, size - start));
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, start + chunk.position()) < 0) {
+                        throw new EOFException("File shrank while it was read");
+                    }
+                }
+                chunk.flip();
+            }
+        } catch (IOException e) {
+            content.release();
+            throw e;
+        }
+        return content;
+    }
+
+    /**
+     * Takes another reference, unless the content was already given back
+     *
+     * @return false if the last reference is gone and the chunks must not be read anymore
+     */
+    public boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives up a reference, the last one returns the chunks to the pool
+     */
+    public void release() {
+        int count = references.decrementAndGet();
+        if (count == 0) {
+            for (ByteBuffer chunk : chunks) {
+                if (chunk != null) {
+                    pool.release(chunk);
+                }
+            }
+        } else if (count < 0) {
+            throw new IllegalStateException("Content released more often than retained");
+        }
+    }
+
+    public int getReferenceCount() {
+        return references.get();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public ByteBuffer slice(long offset, int length) throws IOException {
+        if (offset < 0 || offset + length > size) {
+            throw new EOFException("Stream data beyond the end of the content");
+        }
+        int index = (int) (offset / CHUNK_SIZE);
+        int position = (int) (offset % CHUNK_SIZE);
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        if (position + length <= CHUNK_SIZE) {
+            ByteBuffer slice = chunks[index].duplicate();
+            slice.position(position);
+            slice.limit(position + length);
+            return slice.slice().asReadOnlyBuffer();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        while (copy.hasRemaining()) {
+            ByteBuffer chunk = chunks[index++].duplicate();
+            chunk.position(position);
+            chunk.limit(Math.min(chunk.limit(), position + copy.remaining()));
+            copy.put(chunk);
+            position = 0;
+        }
+        copy.flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gives up the stream's reference, see {@link #release()}
+     */
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -0,0 +1,414 @@
+package quic.app.server;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-framed copies of served files. On its first request a file is ingested into a store file
+ * of fixed-size chunks, each stored as the tail of a STREAM frame: offset as an 8-byte varint,
+ * length as a 2-byte varint, then the data. An index at the front holds the position of every
+ * chunk. Serving a chunk then only writes the frame type and stream ID and copies the record
+ * from the mapped store. A store file records the size and modification time of its source
+ * and is ingested again when they change.
+ * <p>
+ * Ingesting runs on an I/O pool, concurrent requests for a file wait for the same ingest and
+ * requests for other files are not held up by it. The mappings of the most recently requested
+ * stores are kept. A store's source is reference counted like {@link CachedContent}: the store
+ * holds one reference while the mapping is kept and every stream serving it holds one. The last
+ * release drops the mapping, which is unmapped when the collector reclaims it; Java has no safe
+ * way to unmap a buffer a frame being encoded may still read. The store file itself is closed
+ * as soon as it is mapped.
+ * <p>
+ * Layout: magic, version, source size, source modification time, chunk size, chunk count,
+ * one long position per chunk, then the records. Thread safe.
+ */
+public class ChunkStore {
+    /**
+     * Bytes of a record before the data: the offset and length varints
+     */
+    public static final int RECORD_HEADER = 8 + 2;
+    /**
+     * Largest chunk, the length has to fit a 2-byte varint
+     */
+    public static final int MAX_CHUNK_SIZE = (1 << 14) - 1;
+    /**
+     * Most stores kept mapped
+     */
+    public static final int MAX_MAPPED = 256;
+    private static final int MAGIC = 0x5143484b;        // "QCHK"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private File directory;
+    private int chunkSize;
+    private Executor ingester;
+    private Map<String, PreframedSource> mapped = new LinkedHashMap<String, PreframedSource>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreframedSource> eldest) {
+            if (size() > MAX_MAPPED) {
+                eldest.getValue().release();
+                return true;
+            }
+            return false;
+        }
+    };      // stores already checked, by resource name, least recently used first
+    private Map<String, FutureTask<PreframedSource>> ingests = new HashMap<>();     // stores being checked or ingested
+    private AtomicLong ingested = new AtomicLong();
+    private AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param directory where the store files are kept
+     * @param chunkSize the data bytes per chunk, small enough for a chunk frame to fill one datagram
+     * @param ingester  runs the ingests of files
+     */
+    public ChunkStore(File directory, int chunkSize, Executor ingester) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.ingester = ingester;
+    }
+
+    /**
+     * Opens the pre-framed copy of a file, ingesting the file first if it has none or it is outdated
+     *
+     * @param name the resource name
+     * @param file the open file holding the resource
+     * @return the store's source holding one reference for the caller, or null if the file is too
+     * large to be stored in one mapping
+     */
+    public PreframedSource open(final String name, final FileHandle file) throws IOException {
+        long size = file.size();
+        long chunks = (size + chunkSize - 1) / chunkSize;
+        if (HEADER + chunks * (8 + RECORD_HEADER) + size > Integer.MAX_VALUE) {
+            return null;
+        }
+        while (true) {
+            FutureTask<PreframedSource> ingest;
+            boolean started = false;
+            synchronized (this) {
+                PreframedSource preframed = mapped.get(name);
+                if (matches(preframed, file) && preframed.retain()) {
+                    return preframed;
+                }
+                ingest = ingests.get(name);
+                if (ingest == null) {
+                    ingest = new FutureTask<>(new Callable<PreframedSource>() {
+                        @Override
+                        public PreframedSource call() throws IOException {
+                            return load(name, file);
+                        }
+                    });
+                    ingests.put(name, ingest);
+                    started = true;
+                } else {
+                    coalesced.incrementAndGet();
+                }
+            }
+            if (started) {
+                ingester.execute(ingest);     // the caller's reference keeps the file open until it is done
+            }
+            PreframedSource preframed = await(ingest);
+            if (matches(preframed, file) && preframed.retain()) {
+                return preframed;
+            }
+            // the ingest was of another version of the file or is already evicted, check the store again
+        }
+    }
+
+    /**
+     * @return how often a file was ingested
+     */
+    public long getIngested() {
+        return ingested.get();
+    }
+
+    /**
+     * @return how often a request waited for an ingest started by another one
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Maps the store of a file, ingesting the file first if the store is missing or outdated.
+     * Runs on the I/O pool.
+     */
+    private PreframedSource load(String name, FileHandle file) throws IOException {
+        try {
+            File store = new File(directory, storeName(name));
+            PreframedSource preframed = map(store, file.size(), file.getLastModified());
+            if (preframed == null) {
+                ingested.incrementAndGet();
+                ingest(file, store);
+                preframed = map(store, file.size(), file.getLastModified());
+                if (preframed == null) {
+                    throw new IOException("Store of " + name + " does not match the file after ingesting it");
+                }
+            }
+            synchronized (this) {
+                PreframedSource previous = mapped.put(name, preframed);
+                if (previous != null) {
+                    previous.release();     // an outdated version, the streams still serving it keep it mapped
+                }
+            }
+            return preframed;
+        } finally {
+            synchronized (this) {
+                ingests.remove(name);
+            }
+        }
+    }
+
+    private static boolean matches(PreframedSource preframed, FileHandle file) {
+        return preframed != null && preframed.size == file.size() && preframed.lastModified == file.getLastModified();
+    }
+
+    private static PreframedSource await(FutureTask<PreframedSource> ingest) throws IOException {
+        try {
+            return ingest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a file to be ingested");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the mapped store, or null if it is missing or does not match the source
+     */
+    private PreframedSource map(File store, long size, long modified) throws IOException {
+        if (!store.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(store, "r")) {
+            MappedByteBuffer mapping = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (mapping.capacity() < HEADER || mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION
+                    || mapping.getLong(8) != size || mapping.getLong(16) != modified || mapping.getInt(24) != chunkSize) {
+                return null;
+            }
+            return new PreframedSource(mapping, size, modified, chunkSize);     // the mapping outlives the file
+        }
+    }
+
+    /**
+     * Writes the store of a file to a temporary file and moves it in place
+     */
+    private void ingest(FileHandle source, File store) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File temporary = new File(directory, store.getName() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(temporary, "rw")) {
+            FileChannel input = source.getChannel();
+            FileChannel output = out.getChannel();
+            output.truncate(0);
+            long size = source.size();
+            int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            ByteBuffer header = ByteBuffer.allocate(HEADER + 8 * chunks);
+            header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(source.getLastModified()).putInt(chunkSize).putInt(chunks);
+            long position = header.capacity();
+            ByteBuffer record = ByteBuffer.allocateDirect(RECORD_HEADER + chunkSize);
+            for (int i = 0; i < chunks; i++) {
+                long offset = (long) i * chunkSize;
+                int length = (int) Math.min(chunkSize, size - offset);
+                header.putLong(position);
+                record.clear();
+                record.putLong(offset | 0xc000000000000000L);          // 8-byte varint
+                record.putShort((short) (length | 0x4000));             // 2-byte varint
+                record.limit(RECORD_HEADER + length);
+                while (record.hasRemaining()) {
+                    if (input.read(record, offset + record.position() - RECORD_HEADER) < 0) {
+                        throw new EOFException("File shrank while it was ingested");
+                    }
+                }
+                record.flip();
+                while (record.hasRemaining()) {
+                    position += output.write(record, position);
+                }
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                output.write(header, header.position());
+            }
+        }
+        Files.move(temporary.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String storeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(name.hashCode()) + ".chunks";
+    }
+
+    /**
+     * A mapped store file serving one resource
+     */
+    public static class PreframedSource implements StreamDataSource {
+        private volatile MappedByteBuffer mapping;
+        private AtomicInteger references = new AtomicInteger(1);
+        private long size;
+        private long lastModified;
+        private int chunkSize;
+        private volatile int touched;       // keeps the page reads of prefetch from being optimised away
+
+        PreframedSource(MappedByteBuffer mapping, long size, long lastModified, int chunkSize) {
+            this.mapping = mapping;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * Takes another reference, unless the mapping was already dropped
+         *
+         * @return false if the last reference is gone and the store must not be read anymore
+         */
+        public boolean retain() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives up a reference, the last one drops the mapping
+         */
+        public void release() {
+            int count = references.decrementAndGet();
+            if (count == 0) {
+                mapping = null;
+            } else if (count < 0) {
+                throw new IllegalStateException("Store released more often than retained");
+            }
+        }
+
+        public int getReferenceCount() {
+            return references.get();
+        }
+
+        /**
+         * @return the mapping, as long as a reference is held
+         */
+        private MappedByteBuffer mapping() throws IOException {
+            MappedByteBuffer mapping = this.mapping;
+            if (mapping == null) {
+                throw new IOException("Store already released");
+            }
+            return mapping;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * @param offset a stream offset
+         * @return the bytes from the offset to the end of its chunk
+         */
+        public int getChunkRemaining(long offset) {
+            return (int) Math.min(chunkSize - offset % chunkSize, size - offset);
+        }
+
+        /**
+         * @param streamId the stream to send on
+         * @param offset   the offset of a chunk, a multiple of the chunk size
+         * @return the chunk as a frame, ready to be encoded
+         */
+        public PreframedStreamFrame frame(long streamId, long offset) throws IOException {
+            if (offset % chunkSize != 0 || offset >= size) {
+                throw new IOException("No chunk starts at offset " + offset);
+            }
+            MappedByteBuffer mapping = mapping();
+            int chunk = (int) (offset / chunkSize);
+            int length = getChunkRemaining(offset);
+            int position = (int) mapping.getLong(HEADER + 8 * chunk);
+            ByteBuffer record = mapping.duplicate();
+            record.position(position);
+            record.limit(position + RECORD_HEADER + length);
+            ByteBuffer payload = record.duplicate();
+            payload.position(position + RECORD_HEADER);
+            return new PreframedStreamFrame(streamId, offset, offset + length == size, payload.asReadOnlyBuffer(),
+                    record.asReadOnlyBuffer());
+        }
+
+        @Override
+        public ByteBuffer slice(long offset, int length) throws IOException {
+            if (offset < 0 || offset + length > size) {
+                throw new EOFException("Stream data beyond the end of the store");
+            }
+            MappedByteBuffer mapping = mapping();
+            ByteBuffer data = ByteBuffer.allocate(length);
+            while (data.hasRemaining()) {
+                long at = offset + data.position();
+                int chunk = (int) (at / chunkSize);
+                int position = (int) mapping.getLong(HEADER + 8 * chunk) + RECORD_HEADER + (int) (at % chunkSize);
+                ByteBuffer part = mapping.duplicate();
+                part.position(position);
+                part.limit(position + Math.min(data.remaining(), getChunkRemaining(at)));
+                data.put(part);
+            }
+            data.flip();
+            return data.asReadOnlyBuffer();
+        }
+
+        /**
+         * Faults in the mapped pages of the chunks holding a range
+         */
+        @Override
+        public void prefetch(long offset, int length) throws IOException {
+            long end = Math.min(size, offset + length);
+            if (offset >= end) {
+                return;
+            }
+            MappedByteBuffer mapping = mapping();
+            int first = (int) mapping.getLong(HEADER + 8 * (int) (offset / chunkSize));
+            int last = (int) mapping.getLong(HEADER + 8 * (int) ((end - 1) / chunkSize)) + RECORD_HEADER + chunkSize;
+            int sum = 0;
+            for (int position = first - first % FileHandle.PAGE_SIZE; position < Math.min(last, mapping.limit()); position += FileHandle.PAGE_SIZE) {
+                sum += mapping.get(position);
+            }
+            touched = sum;
+        }
+
+        /**
+         * Gives up the stream's reference, see {@link #release()}
+         */
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
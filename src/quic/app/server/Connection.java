@@ -0,0 +1,791 @@
+package quic.app.server;
+
+import quic.app.transport.AckManager;
+import quic.app.transport.CongestionControl;
+import quic.app.transport.CongestionController;
+import quic.app.transport.LossRecovery;
+import quic.app.transport.PmtuDiscovery;
+import quic.app.transport.ReceivedPacketTracker;
+import quic.app.transport.ReceiveWindow;
+import quic.app.transport.SendCredit;
+import quic.app.transport.SentPacket;
+import quic.app.transport.StreamRange;
+import quic.app.transport.TokenBucket;
+import quic.app.util.TimerWheel;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicAckFrequencyFrame;
+import quic.serialization.frame.QuicDataBlockedFrame;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+import quic.serialization.frame.QuicPaddingFrame;
+import quic.serialization.frame.QuicPingFrame;
+import quic.serialization.frame.QuicStreamDataBlockedFrame;
+import quic.serialization.frame.QuicStreamFrame;
+import quic.serialization.packet.QuicPacket;
+import quic.serialization.parameter.TransportParameters;
+import quic.serialization.packet.QuicShortHeaderPacket;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State the server keeps for one client, identified by its address and port.
+ */
+public class Connection {
+    /**
+     * Bytes of a packet around the stream data: short header, packet number and frame header.
+     * The configured packet size plus this is the datagram size before path MTU discovery.
+     */
+    public static final int PACKET_OVERHEAD = 64;
+    /**
+     * ACKs a client supporting ACK_FREQUENCY is asked to send per congestion window
+     */
+    public static final int ACKS_PER_WINDOW = 8;
+    /**
+     * Most ack-eliciting packets a client is asked to receive before acknowledging
+     */
+    public static final int MAX_ACK_ELICITING_THRESHOLD = 10;
+
+    private InetAddress clientIp;
+    private int clientPort;
+    private InetSocketAddress clientAddress;
+    private byte[] destinationAdress;
+    private long nextPacketNumber = 0;
+    private int maxDatagramSize = Server.getPacketSize() + PACKET_OVERHEAD;
+    private LossRecovery lossRecovery;
+    private TokenBucket pacingBucket = new TokenBucket(0, (long) Pacer.BURST_PACKETS * maxDatagramSize);
+    private long maxRate = 0;
+    private int weight;
+    private TransportParameters peerParameters;
+    private SendCredit sendCredit = new SendCredit(ReceiveWindow.DEFAULT_MAX_DATA);
+    private long peerMaxStreamData = ReceiveWindow.DEFAULT_MAX_STREAM_DATA;
+    private Map<Long, SendCredit> streamSendCredits = new HashMap<>();
+    private Map<Long, StreamDataSource> streamSources = new HashMap<>();
+    private Map<Long, Integer> streamRangesInFlight = new HashMap<>();
+    private Set<Long> finishedStreams = new HashSet<>();
+    private ReceiveWindow receiveWindow = new ReceiveWindow(Server.getInitialMaxData(), Server.getInitialMaxData());
+    private Map<Long, Long> streamReceivedOffsets = new HashMap<>();        // highest offset received on each stream the client opened
+    private PacketAssembler packetAssembler = new PacketAssembler();
+    private PmtuDiscovery pmtuDiscovery;
+    private boolean pmtuProbeQueued = false;
+    private long ackFrequencySequence = 0;
+    private ReceivedPacketTracker receivedPackets = new ReceivedPacketTracker();
+    private long ackElicitingThreshold = AckManager.DEFAULT_ACK_ELICITING_THRESHOLD;
+    private long idleTimeout = TimeUnit.MILLISECONDS.toNanos(Server.getIdleTimeout());
+    private boolean closed = false;
+    private TimerWheel.Timer idleTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            close();
+        }
+    });
+    private TimerWheel.Timer flushTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            try {
+                flushPendingFrames();
+            } catch (IOException | InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    });
+    private TimerWheel.Timer lossDetectionTimer = new TimerWheel.Timer(new Runnable() {
+        @Override
+        public void run() {
+            try {
+                onLossDetectionTimeout();
+            } catch (IOException | InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    });
+
+    /**
+     * @param clientIp          the client's address
+     * @param clientPort        the client's port
+     * @param congestionControl the congestion control algorithm of the connection, it is kept for the connection's lifetime
+     */
+    public Connection(InetAddress clientIp, int clientPort, CongestionControl congestionControl) {
+        this.clientIp = clientIp;
+        this.clientPort = clientPort;
+        this.clientAddress = new InetSocketAddress(clientIp, clientPort);
+        this.weight = Server.getClientWeight(clientIp);
+        this.lossRecovery = new LossRecovery(TimeUnit.MILLISECONDS.toNanos(Server.getTimeout()), congestionControl.create(maxDatagramSize));
+    }
+
+    /**
+     * @return the connection's share of the server's egress under contention, relative to the other connections
+     */
+    public synchronized int getWeight() {
+        return weight;
+    }
+
+    public synchronized void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public InetAddress getClientIp() {
+        return clientIp;
+    }
+
+    public int getClientPort() {
+        return clientPort;
+    }
+
+    public byte[] getDestinationAdress() {
+        return destinationAdress;
+    }
+
+    public void setDestinationAdress(byte[] destinationAdress) {
+        this.destinationAdress = destinationAdress;
+    }
+
+    /**
+     * Applies the transport parameters the client announced in its Initial packet. Only the
+     * first Initial counts, repeated ones are probes of the same handshake.
+     *
+     * @param parameters the client's transport parameters
+     */
+    public synchronized void setPeerParameters(TransportParameters parameters) {
+        if (peerParameters != null) {
+            return;
+        }
+        peerParameters = parameters;
+        sendCredit = new SendCredit(parameters.getInitialMaxData());
+        peerMaxStreamData = parameters.getInitialMaxStreamDataBidiLocal();      // requests are streams opened by the client
+        maxDatagramSize = (int) Math.min(Server.getPacketSize() + PACKET_OVERHEAD, parameters.getMaxUdpPayloadSize());
+        lossRecovery.getCongestionController().setMaxDatagramSize(maxDatagramSize);
+        pmtuDiscovery = new PmtuDiscovery(maxDatagramSize,
+                (int) Math.min(Server.getMaxDatagramSize(), parameters.getMaxUdpPayloadSize()));
+        lossRecovery.setMaxAckDelay(TimeUnit.MILLISECONDS.toNanos(parameters.getMaxAckDelay()));
+        lossRecovery.setAckDelayExponent((int) parameters.getAckDelayExponent());
+        if (parameters.getMaxIdleTimeout() > 0 && (Server.getIdleTimeout() == 0 || parameters.getMaxIdleTimeout() < Server.getIdleTimeout())) {
+            idleTimeout = TimeUnit.MILLISECONDS.toNanos(parameters.getMaxIdleTimeout());
+        }
+        onPacketReceived();
+    }
+
+    public synchronized TransportParameters getPeerParameters() {
+        return peerParameters;
+    }
+
+    /**
+     * @return the largest datagram this connection sends
+     */
+    public synchronized int getMaxDatagramSize() {
+        return maxDatagramSize;
+    }
+
+    /**
+     * Restarts the idle timer, called for every packet from the client
+     */
+    public synchronized void onPacketReceived() {
+        if (idleTimeout > 0 && !closed) {
+            Server.getTimerWheel().schedule(idleTimer, System.nanoTime() + idleTimeout);
+        }
+    }
+
+    /**
+     * Records the packet number of a short header packet from the client
+     *
+     * @param packetNumber the packet number
+     * @return false if the packet is a duplicate whose frames must be dropped
+     */
+    public synchronized boolean onPacketNumberReceived(long packetNumber) {
+        return receivedPackets.add(packetNumber);
+    }
+
+    /**
+     * Drops the connection after the idle timeout or a protocol error, the client has to do a new handshake
+     */
+    public synchronized void close() {
+        closed = true;
+        Server.getTimerWheel().cancel(idleTimer);
+        Server.getTimerWheel().cancel(lossDetectionTimer);
+        Server.getTimerWheel().cancel(flushTimer);
+        for (StreamDataSource source : streamSources.values()) {
+            closeSource(source);
+        }
+        streamSources.clear();
+        Server.removeConnection(this);
+        if (Server.isDebug()) {
+            System.out.println("Connection to " + clientIp + ":" + clientPort + " closed");
+        }
+        wakeSenders();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized long nextPacketNumber() {
+        return nextPacketNumber++;
+    }
+
+    /**
+     * Encodes the packet straight into a pooled direct buffer, records it for loss detection and
+     * queues it on the pacer. Stream data is copied once, from its source into the buffer the
+     * kernel reads.
+     *
+     * @param packet the packet to send
+     */
+    public void send(QuicPacket packet) throws IOException, InterruptedException {
+        send(packet, false);
+    }
+
+    private void send(QuicPacket packet, boolean pmtuProbe) throws IOException, InterruptedException {
+        Set<QuicFrame> frames = new HashSet<>();
+        List<StreamRange> streamRanges = new ArrayList<>();
+        for (QuicFrame frame : packet.showFrames()) {
+            if (frame instanceof QuicStreamFrame) {
+                QuicStreamFrame streamFrame = (QuicStreamFrame) frame;      // the data is read from the source again if it is lost
+                streamRanges.add(new StreamRange(streamFrame.getStreamId(), streamFrame.getOffset(),
+                        streamFrame.getDataLength(), streamFrame.isEndOfStream()));
+            } else {
+                frames.add(frame);
+            }
+        }
+        if (Server.isDebug()) {
+            System.out.println("Sending : " + packet.toString());
+        }
+        ByteBuffer datagram = Server.getBufferPool().acquire(Math.max(getMaxDatagramSize(), Server.getMaxDatagramSize()));    // probes exceed the current size
+        packet.encode(datagram);
+        datagram.flip();
+        int length = datagram.remaining();
+        long releaseTime;
+        synchronized (this) {
+            if (closed) {
+                Server.getBufferPool().release(datagram);
+                return;
+            }
+            double rate = lossRecovery.getCongestionController().getPacingRate(lossRecovery.getRttEstimator());
+            if (maxRate > 0) {
+                rate = Math.min(rate, maxRate);
+            }
+            pacingBucket.setRate(rate);
+            releaseTime = pacingBucket.reserve(length, System.nanoTime());
+            lossRecovery.onPacketSent(new SentPacket(packet.getPacketNumber(), releaseTime, length, frames, streamRanges, pmtuProbe));
+            if (pmtuProbe) {
+                pmtuDiscovery.onProbeSent(packet.getPacketNumber(), length);       // only now can its acknowledgement be told apart
+                pmtuProbeQueued = false;
+            }
+            armLossDetectionTimer();
+        }
+        Server.getPacer().addPacketToSend(new OutgoingDatagram(datagram, clientAddress, true, getWeight()), releaseTime);
+    }
+
+    /**
+     * Sends a packet which does not need to be acknowledged, like a handshake reply
+     *
+     * @param packet the packet to send
+     */
+    public void sendUntracked(QuicPacket packet) throws IOException, InterruptedException {
+        if (Server.isDebug()) {
+            System.out.println("Sending : " + packet.toString());
+        }
+        Server.getPacer().addPacketToSend(new OutgoingDatagram(ByteBuffer.wrap(packet.encode()), clientAddress, false, getWeight()), System.nanoTime());
+    }
+
+    /**
+     * @param streamId the stream to send on
+     * @param offset   the offset of the next stream data
+     * @return how much stream data fits in the next packet next to the queued frames, 0 if
+     * the queued frames fill it on their own
+     */
+    public synchronized int getStreamRoom(long streamId, long offset) {
+        int room = maxDatagramSize - PacketAssembler.headerLength(destinationAdress, nextPacketNumber)
+                - packetAssembler.getPendingLength();
+        return PacketAssembler.streamDataFitting(streamId, offset, room);
+    }
+
+    /**
+     * @return the bytes free for frames in the next packet next to the queued frames
+     */
+    public synchronized int getFrameRoom() {
+        return maxDatagramSize - PacketAssembler.headerLength(destinationAdress, nextPacketNumber)
+                - packetAssembler.getPendingLength();
+    }
+
+    /**
+     * Sends a stream frame, topping the packet up with queued frames which fit next to it
+     *
+     * @param frame the stream frame, sized with {@link #getStreamRoom(long, long)} or {@link #getFrameRoom()}
+     */
+    public void sendStreamFrame(QuicStreamFrame frame) throws IOException, InterruptedException {
+        QuicPacket packet;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            long packetNumber = nextPacketNumber();
+            Set<QuicFrame> frames = new HashSet<>();
+            frames.add(frame);
+            int room = maxDatagramSize - PacketAssembler.headerLength(destinationAdress, packetNumber)
+                    - PacketAssembler.encodedLength(frame);
+            packetAssembler.fill(frames, room, streamSources);
+            onStreamFramesSent(frames);
+            packet = new QuicShortHeaderPacket(destinationAdress, packetNumber, frames);
+        }
+        send(packet);
+    }
+
+    /**
+     * Queues a frame to ride on the next stream packet, it is sent on its own after
+     * {@link PacketAssembler#FLUSH_DELAY} if no stream packet comes along
+     *
+     * @param frame the control or retransmitted frame
+     */
+    public synchronized void queueFrame(QuicFrame frame) throws IOException {
+        packetAssembler.add(frame);
+        if (!flushTimer.isScheduled()) {
+            Server.getTimerWheel().schedule(flushTimer, System.nanoTime() + PacketAssembler.FLUSH_DELAY);
+        }
+    }
+
+    /**
+     * Sends all queued frames now, packed into as few packets as possible
+     */
+    public void flushPendingFrames() throws IOException, InterruptedException {
+        while (true) {
+            QuicPacket packet;
+            synchronized (this) {
+                Server.getTimerWheel().cancel(flushTimer);
+                if (packetAssembler.isEmpty() || closed) {
+                    return;
+                }
+                long packetNumber = nextPacketNumber();
+                Set<QuicFrame> frames = new HashSet<>();
+                packetAssembler.fill(frames, maxDatagramSize - PacketAssembler.headerLength(destinationAdress, packetNumber),
+                        streamSources);
+                onStreamFramesSent(frames);
+                packet = new QuicShortHeaderPacket(destinationAdress, packetNumber, frames);
+            }
+            send(packet);
+        }
+    }
+
+    public synchronized long getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Caps the pacing rate of this connection below what the congestion controller allows
+     *
+     * @param maxRate the cap in bytes per second, 0 to pace at the congestion controller's rate
+     */
+    public synchronized void setMaxRate(long maxRate) {
+        this.maxRate = maxRate;
+    }
+
+    public synchronized CongestionController getCongestionController() {
+        return lossRecovery.getCongestionController();
+    }
+
+    /**
+     * @return true when the congestion window has room for another packet
+     * @throws IOException if the connection is closed
+     */
+    public synchronized boolean isSendWindowOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        return lossRecovery.canSend();
+    }
+
+    /**
+     * Takes as much of the peer's connection and stream limits as allowed without waiting,
+     * telling the peer with DATA_BLOCKED or STREAM_DATA_BLOCKED when they allow nothing
+     *
+     * @param streamId the stream to send on
+     * @param bytes    how much the caller wants to send
+     * @return how much the caller may send now, 0 if nothing, the credit is used up by this call
+     */
+    public synchronized int tryAcquireSendCredit(long streamId, int bytes) throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        SendCredit streamCredit = streamSendCredits.get(streamId);
+        if (streamCredit == null) {
+            streamCredit = new SendCredit(peerMaxStreamData);
+            streamSendCredits.put(streamId, streamCredit);
+        }
+        long available = Math.min(sendCredit.available(), streamCredit.available());
+        if (available > 0) {
+            int granted = (int) Math.min(bytes, available);
+            sendCredit.onDataSent(granted);
+            streamCredit.onDataSent(granted);
+            return granted;
+        }
+        if (sendCredit.shouldSendBlocked(1)) {
+            queueFrame(new QuicDataBlockedFrame(sendCredit.getLimit()));
+        }
+        if (streamCredit.shouldSendBlocked(1)) {
+            queueFrame(new QuicStreamDataBlockedFrame(streamId, streamCredit.getLimit()));
+        }
+        return 0;
+    }
+
+    /**
+     * Wakes the upload scheduler, a stream held back by the window or credit may move again.
+     * Called with the connection locked.
+     */
+    private void wakeSenders() {
+        FileUploader uploader = Server.getFileUploader();
+        if (uploader != null) {
+            uploader.wakeUp();
+        }
+    }
+
+    /**
+     * Registers the source of a stream's data, which lost data is read from again
+     *
+     * @param streamId the stream
+     * @param source   the source, closed by the connection once the stream is finished and acknowledged
+     */
+    public synchronized void openStream(long streamId, StreamDataSource source) throws IOException {
+        if (closed) {
+            closeSource(source);
+            throw new IOException("Connection closed");
+        }
+        streamSources.put(streamId, source);
+    }
+
+    /**
+     * Forgets the send credit of a stream once all its data was sent, the source is kept until
+     * the data is acknowledged
+     *
+     * @param streamId the finished stream
+     */
+    public synchronized void onStreamFinished(long streamId) {
+        streamSendCredits.remove(streamId);
+        finishedStreams.add(streamId);
+        releaseStream(streamId);
+    }
+
+    /**
+     * Counts the stream frames of a packet being sent as in flight. Called with the connection locked.
+     *
+     * @param frames the frames of the packet
+     */
+    private void onStreamFramesSent(Set<QuicFrame> frames) {
+        for (QuicFrame frame : frames) {
+            if (frame instanceof QuicStreamFrame) {
+                long streamId = ((QuicStreamFrame) frame).getStreamId();
+                Integer count = streamRangesInFlight.get(streamId);
+                streamRangesInFlight.put(streamId, count == null ? 1 : count + 1);
+            }
+        }
+    }
+
+    /**
+     * Stops counting the stream data of an acknowledged or lost packet as in flight. Called
+     * with the connection locked.
+     *
+     * @param packet the packet which left flight
+     */
+    private void onStreamRangesDone(SentPacket packet) {
+        for (StreamRange range : packet.getStreamRanges()) {
+            Integer count = streamRangesInFlight.get(range.getStreamId());
+            if (count == null) {
+                continue;
+            }
+            if (count > 1) {
+                streamRangesInFlight.put(range.getStreamId(), count - 1);
+            } else {
+                streamRangesInFlight.remove(range.getStreamId());
+                releaseStream(range.getStreamId());
+            }
+        }
+    }
+
+    /**
+     * Closes the source of a finished stream once none of its data is in flight or waiting to
+     * be sent again. Called with the connection locked.
+     *
+     * @param streamId the stream
+     */
+    private void releaseStream(long streamId) {
+        if (!finishedStreams.contains(streamId) || streamRangesInFlight.containsKey(streamId)
+                || packetAssembler.hasPendingData(streamId)) {
+            return;
+        }
+        finishedStreams.remove(streamId);
+        StreamDataSource source = streamSources.remove(streamId);
+        if (source != null) {
+            closeSource(source);
+        }
+    }
+
+    private static void closeSource(StreamDataSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void onMaxData(long maximumData) {
+        if (sendCredit.onLimit(maximumData)) {
+            wakeSenders();
+        }
+    }
+
+    public synchronized void onMaxStreamData(long streamId, long maximumStreamData) {
+        SendCredit streamCredit = streamSendCredits.get(streamId);
+        if (streamCredit != null && streamCredit.onLimit(maximumStreamData)) {
+            wakeSenders();
+        }
+    }
+
+    /**
+     * Checks a stream frame from the client against the limits the server granted and hands
+     * the data on as consumed
+     *
+     * @param frame the received frame
+     * @return true if the frame opened the stream, false if the stream was known, e.g. from a
+     * request the client sent again
+     * @throws QuicException if the client opened too many streams or sent more than it was allowed to
+     */
+    public boolean onStreamDataReceived(QuicStreamFrame frame) throws QuicException, IOException, InterruptedException {
+        long endOffset = frame.getOffset() + frame.getData().length;
+        long maxData;
+        boolean opened;
+        synchronized (this) {
+            Long receivedOffset = streamReceivedOffsets.get(frame.getStreamId());
+            opened = receivedOffset == null;
+            if (opened) {
+                if (streamReceivedOffsets.size() >= Server.getInitialMaxStreams()) {
+                    throw new QuicException(4, 8, "Stream limit exceeded");
+                }
+                receivedOffset = 0L;
+            }
+            if (endOffset > Server.getInitialMaxStreamData()) {   // requests are single frame streams, the stream limit is never raised
+                throw new QuicException(3, 8, "Stream data limit exceeded");
+            }
+            // the connection counts the sum of the streams' highest offsets, repeated data adds nothing
+            long streamGrowth = Math.max(0, endOffset - receivedOffset);
+            long grown = receiveWindow.onDataReceived(receiveWindow.getReceived() + streamGrowth);
+            if (grown < 0) {
+                throw new QuicException(3, 8, "Connection data limit exceeded");
+            }
+            streamReceivedOffsets.put(frame.getStreamId(), receivedOffset + streamGrowth);
+            receiveWindow.onDataConsumed(grown);
+            maxData = receiveWindow.update(System.nanoTime(), lossRecovery.getRttEstimator().getSmoothedRtt());
+        }
+        if (maxData >= 0) {
+            sendMaxData(maxData);
+        }
+        return opened;
+    }
+
+    /**
+     * Answers a DATA_BLOCKED frame from the client with the current limit
+     */
+    public void onDataBlocked() throws IOException, InterruptedException {
+        long maxData;
+        synchronized (this) {
+            receiveWindow.onBlocked();
+            maxData = receiveWindow.update(System.nanoTime(), lossRecovery.getRttEstimator().getSmoothedRtt());
+        }
+        sendMaxData(maxData);
+    }
+
+    private void sendMaxData(long maxData) throws IOException {
+        queueFrame(new QuicMaxDataFrame(maxData));
+    }
+
+    public void onAckReceived(QuicAckFrame ack) throws IOException, InterruptedException {
+        List<SentPacket> lost;
+        synchronized (this) {
+            List<SentPacket> acked = new ArrayList<>();
+            lost = lossRecovery.onAckReceived(ack, System.nanoTime(), acked);
+            for (SentPacket packet : acked) {
+                onStreamRangesDone(packet);
+            }
+            onPmtuProbeOutcome(lost);
+            updateAckFrequency();
+            armLossDetectionTimer();
+            wakeSenders();
+        }
+        retransmit(lost, false);
+        sendPmtuProbe();
+    }
+
+    /**
+     * Asks a client which supports ACK_FREQUENCY for fewer ACKs as the congestion window grows,
+     * about {@link #ACKS_PER_WINDOW} per window. Called with the connection locked.
+     */
+    private void updateAckFrequency() throws IOException {
+        if (peerParameters == null || peerParameters.getMinAckDelay() == 0) {
+            return;
+        }
+        long windowPackets = lossRecovery.getCongestionController().getCongestionWindow() / maxDatagramSize;
+        long threshold = Math.max(AckManager.DEFAULT_ACK_ELICITING_THRESHOLD,
+                Math.min(MAX_ACK_ELICITING_THRESHOLD, windowPackets / ACKS_PER_WINDOW));
+        if (threshold == ackElicitingThreshold) {
+            return;
+        }
+        ackElicitingThreshold = threshold;
+        long smoothedRtt = TimeUnit.NANOSECONDS.toMicros(lossRecovery.getRttEstimator().getSmoothedRtt());
+        long maxAckDelay = Math.max(peerParameters.getMinAckDelay(),
+                Math.min(TimeUnit.MILLISECONDS.toMicros(peerParameters.getMaxAckDelay()), smoothedRtt / 4));
+        queueFrame(new QuicAckFrequencyFrame(ackFrequencySequence++, threshold, maxAckDelay, AckManager.DEFAULT_REORDERING_THRESHOLD));
+    }
+
+    /**
+     * Moves the loss detection timer to the current deadline, or stops it when nothing is in flight.
+     * Called with the connection locked.
+     */
+    private void armLossDetectionTimer() {
+        long deadline = lossRecovery.getLossDetectionDeadline();
+        if (deadline == 0) {
+            Server.getTimerWheel().cancel(lossDetectionTimer);
+        } else {
+            Server.getTimerWheel().schedule(lossDetectionTimer, deadline);
+        }
+    }
+
+    public void onLossDetectionTimeout() throws IOException, InterruptedException {
+        List<SentPacket> packets;
+        boolean probe;
+        synchronized (this) {
+            long deadline = lossRecovery.getLossDetectionDeadline();
+            long now = System.nanoTime();
+            if (deadline == 0 || now < deadline) {
+                armLossDetectionTimer();
+                return;
+            }
+            int ptoCount = lossRecovery.getPtoCount();
+            packets = lossRecovery.onLossDetectionTimeout(now);
+            probe = lossRecovery.getPtoCount() > ptoCount;
+            if (!probe) {
+                onPmtuProbeOutcome(packets);
+            } else if (pmtuDiscovery != null && pmtuDiscovery.onProbeTimeout(lossRecovery.getPtoCount())) {
+                applyDatagramSize();        // the discovered size looks black-holed, fall back to the base size
+            }
+            armLossDetectionTimer();
+            wakeSenders();
+        }
+        retransmit(packets, probe);
+        sendPmtuProbe();
+    }
+
+    /**
+     * Queues the frames of lost or probed packets to be sent again in new packets, stream data
+     * as ranges which are read from the source when packed. PING and PADDING frames are not
+     * repeated. Probe timeout packets go out at once and must elicit an acknowledgement even
+     * without data, lost data waits briefly for a stream packet to share.
+     *
+     * @param packets the packets whose data must be sent again
+     * @param probe   true for probe timeout packets
+     */
+    private void retransmit(List<SentPacket> packets, boolean probe) throws IOException, InterruptedException {
+        if (packets.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (SentPacket packet : packets) {
+                if (packet.isPmtuProbe() && !probe) {
+                    continue;       // a lost probe carries nothing to repeat
+                }
+                boolean queued = false;
+                for (StreamRange range : packet.getStreamRanges()) {
+                    packetAssembler.add(range);
+                    queued = true;
+                }
+                if (!probe) {
+                    onStreamRangesDone(packet);     // a probed packet is still in flight
+                }
+                if (queued && !flushTimer.isScheduled()) {
+                    Server.getTimerWheel().schedule(flushTimer, System.nanoTime() + PacketAssembler.FLUSH_DELAY);
+                }
+                for (QuicFrame frame : packet.getFrames()) {
+                    if (!(frame instanceof QuicPingFrame || frame instanceof QuicPaddingFrame)) {
+                        queueFrame(frame);
+                        queued = true;
+                    }
+                }
+                if (!queued && probe) {
+                    queueFrame(new QuicPingFrame());
+                }
+            }
+        }
+        if (probe) {
+            flushPendingFrames();
+        }
+    }
+
+    /**
+     * Sends a path MTU probe when discovery is searching and the congestion window has room: a
+     * PING padded with PADDING frames to the size under test
+     */
+    private void sendPmtuProbe() throws IOException, InterruptedException {
+        int size;
+        long packetNumber;
+        synchronized (this) {
+            if (pmtuDiscovery == null || pmtuProbeQueued || closed || !lossRecovery.canSend()) {
+                return;
+            }
+            size = pmtuDiscovery.nextProbeSize(System.nanoTime());
+            if (size == 0) {
+                return;
+            }
+            packetNumber = nextPacketNumber();
+            pmtuProbeQueued = true;
+        }
+        Set<QuicFrame> frames = new HashSet<>();
+        frames.add(new QuicPingFrame());
+        int unpadded = new QuicShortHeaderPacket(destinationAdress, packetNumber, new HashSet<>(frames)).encode().length;
+        frames.add(new QuicPaddingFrame(size - unpadded));
+        send(new QuicShortHeaderPacket(destinationAdress, packetNumber, frames), true);
+    }
+
+    /**
+     * Checks whether the probe in flight was acknowledged or lost. Called with the connection locked.
+     *
+     * @param lost the packets just declared lost
+     */
+    private void onPmtuProbeOutcome(List<SentPacket> lost) {
+        if (pmtuDiscovery == null || pmtuDiscovery.getProbePacketNumber() < 0) {
+            return;
+        }
+        for (SentPacket packet : lost) {
+            if (pmtuDiscovery.isProbe(packet.getPacketNumber())) {
+                pmtuDiscovery.onProbeLost();
+                return;
+            }
+        }
+        if (!lossRecovery.isInFlight(pmtuDiscovery.getProbePacketNumber())) {
+            pmtuDiscovery.onProbeAcked();
+            applyDatagramSize();
+        }
+    }
+
+    /**
+     * Sizes packets, congestion window and pacing burst to the datagram size path MTU discovery
+     * settled on. Called with the connection locked.
+     */
+    private void applyDatagramSize() {
+        int size = pmtuDiscovery.getCurrentSize();
+        maxDatagramSize = size;
+        lossRecovery.getCongestionController().setMaxDatagramSize(size);
+        pacingBucket.setBurst((long) Pacer.BURST_PACKETS * size);
+        if (Server.isDebug()) {
+            System.out.println("Datagram size to " + clientIp + ":" + clientPort + " is " + size);
+        }
+    }
+
+    public synchronized int getPacketsInFlight() {
+        return lossRecovery.getPacketsInFlight();
+    }
+}
@@ -0,0 +1,320 @@
+package quic.app.server;
+
+import quic.app.util.BufferPool;
+import quic.app.util.CountMinSketch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps frequently requested files off the Java heap, so repeated requests are served without
+ * touching the file system. Entries are keyed by resource name and evicted least recently used
+ * first once their total size exceeds the capacity. Lookups take no lock: a hit only stamps the
+ * entry with the current access tick, eviction scans for the oldest stamp.
+ * <p>
+ * New content has to earn its place (TinyLFU): every request is counted in a
+ * {@link CountMinSketch}, and a file is only admitted when it was requested more often than
+ * each entry it would evict. A scan of cold files is then served from disk instead of flushing
+ * the hot ones.
+ * <p>
+ * Loads run on an I/O pool. Concurrent misses for the same file share a single load
+ * (single-flight): the first request starts it, every request waits for its result, so a flash
+ * crowd reads each file from disk once. A file which is not admitted is not read at all, its
+ * streams share the mapping of its {@link FileHandle}, which the {@link FileHandleCache} keeps
+ * open for concurrent requests.
+ * <p>
+ * Content is reference counted, see {@link CachedContent}: an evicted file stays readable for
+ * the streams still serving it, and its chunks are reused for new content once they are done.
+ * Thread safe.
+ */
+public class ContentCache {
+    /**
+     * Counters per row of the frequency sketch, about the number of distinct resources to tell apart
+     */
+    public static final int DEFAULT_SKETCH_WIDTH = 4096;
+    /**
+     * Most chunks of released content kept for reuse
+     */
+    public static final int MAX_POOLED_CHUNKS = 256;
+
+    private long capacity;
+    private CountMinSketch sketch;
+    private BufferPool chunkPool;
+    private Executor loader;
+    private long used = 0;
+    private Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private Map<String, FutureTask<CachedContent>> loads = new ConcurrentHashMap<>();
+    private AtomicLong clock = new AtomicLong();
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+    private AtomicLong evictions = new AtomicLong();
+    private AtomicLong rejections = new AtomicLong();
+    private AtomicLong coalesced = new AtomicLong();
+    private AtomicLong loaded = new AtomicLong();
+
+    /**
+     * @param capacity the most bytes of content held at once
+     * @param loader   runs the loads of missed files
+     */
+    public ContentCache(long capacity, Executor loader) {
+        this(capacity, DEFAULT_SKETCH_WIDTH, loader);
+    }
+
+    /**
+     * @param capacity    the most bytes of content held at once
+     * @param sketchWidth the counters per row of the frequency sketch
+     * @param loader      runs the loads of missed files
+     */
+    public ContentCache(long capacity, int sketchWidth, Executor loader) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(sketchWidth);
+        this.loader = loader;
+        this.chunkPool = new BufferPool(CachedContent.CHUNK_SIZE,
+                (int) Math.min(MAX_POOLED_CHUNKS, capacity / CachedContent.CHUNK_SIZE));
+    }
+
+    /**
+     * @param name the resource name
+     * @return the cached content holding a reference for the caller, who gives it up by closing
+     * the content, or null on a miss
+     */
+    public CachedContent get(String name) {
+        sketch.increment(name);
+        Entry entry = entries.get(name);
+        if (entry == null || !entry.content.retain()) {       // evicted and released meanwhile
+            misses.incrementAndGet();
+            return null;
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        hits.incrementAndGet();
+        return entry.content;
+    }
+
+    /**
+     * Returns the cached content of a file, loading it into the cache on a miss or waiting for
+     * a load already under way. Files larger than the whole cache or not popular enough to be
+     * admitted are served from the file's mapping instead, which shares the operating system's
+     * page cache.
+     *
+     * @param name the resource name
+     * @param file the open file holding the resource, the caller keeps its reference
+     * @return the source to serve the resource from, closing it gives up the caller's reference
+     */
+    public StreamDataSource open(final String name, final FileHandle file) throws IOException {
+        CachedContent content = get(name);
+        if (content != null) {
+            return content;
+        }
+        FutureTask<CachedContent> load = new FutureTask<>(new Callable<CachedContent>() {
+            @Override
+            public CachedContent call() throws IOException {
+                try {
+                    return load(name, file);
+                } finally {
+                    loads.remove(name);     // the content is in the cache by now, or will not be
+                }
+            }
+        });
+        FutureTask<CachedContent> running = loads.putIfAbsent(name, load);
+        if (running == null) {
+            loader.execute(load);     // the caller's reference keeps the file open until the load is done
+            running = load;
+        } else {
+            coalesced.incrementAndGet();
+        }
+        content = await(running);
+        if (content != null && content.retain()) {
+            return content;
+        }
+        return new FileDataSource(file);
+    }
+
+    /**
+     * Reads a missed file into the cache
+     *
+     * @return the content, or null if the file is not admitted
+     */
+    private CachedContent load(String name, FileHandle file) throws IOException {
+        synchronized (this) {
+            if (selectVictims(name, file.size()) == null) {
+                rejections.incrementAndGet();
+                return null;
+            }
+        }
+        loaded.incrementAndGet();
+        CachedContent content = CachedContent.load(file, chunkPool);
+        if (!put(name, content)) {
+            content.release();
+            return null;
+        }
+        return content;
+    }
+
+    private static CachedContent await(FutureTask<CachedContent> load) throws IOException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a file to load");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Adds content, evicting the least recently used entries until it fits, unless one of
+     * them was requested at least as often
+     *
+     * @param name    the resource name
+     * @param content the content, the cache takes over the caller's reference when it is admitted
+     * @return false if the content was not admitted
+     */
+    public synchronized boolean put(String name, CachedContent content) {
+        Entry previous = entries.remove(name);
+        if (previous != null) {
+            used -= previous.content.size();
+            previous.content.release();
+        }
+        List<String> victims = selectVictims(name, content.size());
+        if (victims == null) {
+            rejections.incrementAndGet();
+            return false;
+        }
+        for (String victim : victims) {
+            CachedContent evicted = entries.remove(victim).content;
+            used -= evicted.size();
+            evicted.release();      // streams still serving it keep it alive
+            evictions.incrementAndGet();
+        }
+        Entry entry = new Entry(content);
+        entry.lastAccess = clock.incrementAndGet();
+        entries.put(name, entry);
+        used += content.size();
+        return true;
+    }
+
+    /**
+     * Drops an entry, the next request loads the file again
+     *
+     * @param name the resource name
+     */
+    public synchronized void invalidate(String name) {
+        Entry entry = entries.remove(name);
+        if (entry != null) {
+            used -= entry.content.size();
+            entry.content.release();
+        }
+    }
+
+    /**
+     * Picks the least recently used entries which have to go to make room. Called with the cache locked.
+     *
+     * @param name the resource to admit
+     * @param size its size
+     * @return the names of the entries to evict, or null if the resource is too large or less
+     * popular than one of them
+     */
+    private List<String> selectVictims(String name, long size) {
+        if (size > capacity) {
+            return null;
+        }
+        List<String> victims = new ArrayList<>();
+        if (used + size <= capacity) {
+            return victims;
+        }
+        List<Map.Entry<String, Entry>> byAge = new ArrayList<>(entries.entrySet());
+        Collections.sort(byAge, new Comparator<Map.Entry<String, Entry>>() {
+            @Override
+            public int compare(Map.Entry<String, Entry> a, Map.Entry<String, Entry> b) {
+                return Long.compare(a.getValue().lastAccess, b.getValue().lastAccess);
+            }
+        });
+        int frequency = sketch.estimate(name);
+        long freed = 0;
+        for (Map.Entry<String, Entry> entry : byAge) {
+            if (used - freed + size <= capacity) {
+                break;
+            }
+            if (sketch.estimate(entry.getKey()) >= frequency) {
+                return null;
+            }
+            victims.add(entry.getKey());
+            freed += entry.getValue().content.size();
+        }
+        return victims;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return how often a request waited for a load started by another one
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return how often a missed file was read into the cache
+     */
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    /**
+     * @return how often a missed file was not admitted and served from disk
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ContentCache{entries=" + getEntryCount() + ", used=" + getUsed() + ", capacity=" + capacity
+                + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ", rejections=" + getRejections() + ", coalesced=" + getCoalesced() + ", loaded=" + getLoaded() + "}";
+    }
+
+    private static class Entry {
+        private CachedContent content;
+        private volatile long lastAccess;
+
+        Entry(CachedContent content) {
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package quic.app.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream data served from a memory mapped file. Slices of the mapping become the payload of
+ * stream frames, so the bytes are copied once, from the page cache into the datagram. The
+ * mapping belongs to the file's {@link FileHandle} and is shared with every other stream
+ * serving the file; the rare slice crossing a region boundary is read into a buffer of its own.
+ */
+public class FileDataSource implements StreamDataSource {
+    private FileHandle file;
+    private boolean closed = false;
+
+    /**
+     * @param file an open file, the source takes a reference of its own
+     */
+    public FileDataSource(FileHandle file) {
+        if (!file.retain()) {
+            throw new IllegalStateException("File handle already closed");
+        }
+        this.file = file;
+    }
+
+    @Override
+    public long size() {
+        return file.size();
+    }
+
+    @Override
+    public ByteBuffer slice(long offset, int length) throws IOException {
+        if (offset < 0 || offset + length > file.size()) {
+            throw new EOFException("Stream data beyond the end of the file");
+        }
+        int index = (int) (offset / FileHandle.MAP_REGION);
+        int position = (int) (offset % FileHandle.MAP_REGION);
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        if (position + length > FileHandle.MAP_REGION) {
+            return file.read(offset, length).asReadOnlyBuffer();
+        }
+        ByteBuffer slice = file.region(index).duplicate();
+        slice.position(position);
+        slice.limit(position + length);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public void prefetch(long offset, int length) throws IOException {
+        file.prefetch(offset, (int) Math.min(length, file.size() - offset));
+    }
+
+    /**
+     * Gives up the source's reference to the file
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            file.release();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package quic.app.server;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An open file with the metadata read when it was opened, shared by every stream serving the
+ * file. Regions of {@link #MAP_REGION} bytes are mapped when they are first touched and kept
+ * for the next stream. The handle is reference counted like {@link CachedContent}: the
+ * {@link FileHandleCache} holds one reference while it caches the handle and every user holds
+ * one, the last release closes the file. Thread safe.
+ */
+public class FileHandle {
+    /**
+     * Bytes mapped at once, a single mapping cannot exceed 2 GiB
+     */
+    public static final int MAP_REGION = 1 << 30;
+    /**
+     * Step between the bytes read to fault in mapped pages
+     */
+    public static final int PAGE_SIZE = 4096;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long size;
+    private long lastModified;
+    private MappedByteBuffer[] regions;
+    private AtomicInteger references = new AtomicInteger(1);
+    private volatile int touched;       // keeps the page reads of prefetch from being optimised away
+
+    private FileHandle(RandomAccessFile file, long lastModified) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.size = channel.size();
+        this.lastModified = lastModified;
+        this.regions = new MappedByteBuffer[(int) ((size + MAP_REGION - 1) / MAP_REGION)];
+    }
+
+    /**
+     * @param fileName the file
+     * @return the handle, holding one reference for the caller
+     * @throws FileNotFoundException if the file does not exist or cannot be read
+     */
+    public static FileHandle open(String fileName) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            return new FileHandle(file, new File(fileName).lastModified());
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes another reference, unless the file was already closed
+     *
+     * @return false if the last reference is gone
+     */
+    public boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives up a reference, the last one closes the file. Mapped regions stay valid until the
+     * frames using them are gone.
+     */
+    public void release() {
+        int count = references.decrementAndGet();
+        if (count == 0) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (count < 0) {
+            throw new IllegalStateException("File handle released more often than retained");
+        }
+    }
+
+    public int getReferenceCount() {
+        return references.get();
+    }
+
+    /**
+     * @return the channel, for positional reads only
+     */
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the modification time of the file when it was opened, in ms since the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param index the region's position in the file, in units of {@link #MAP_REGION}
+     * @return the mapped region
+     */
+    public synchronized MappedByteBuffer region(int index) throws IOException {
+        if (regions[index] == null) {
+            long start = (long) index * MAP_REGION;
+            regions[index] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_REGION, size - start));
+        }
+        return regions[index];
+    }
+
+    /**
+     * Faults in the mapped pages of a range by reading a byte of each
+     *
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     */
+    public void prefetch(long offset, int length) throws IOException {
+        int sum = 0;
+        for (long at = offset - offset % PAGE_SIZE; at < offset + length; at += PAGE_SIZE) {
+            sum += region((int) (at / MAP_REGION)).get((int) (at % MAP_REGION));
+        }
+        touched = sum;
+    }
+
+    /**
+     * Reads bytes into a buffer of their own
+     *
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     */
+    public ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Stream data beyond the end of the file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,277 @@
+package quic.app.server;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the files of recently requested resources open together with their size and
+ * modification time, and remembers resources which do not exist. A repeated request then
+ * costs no open, stat or mmap call, and a request for a missing file fails without touching
+ * the file system. At most {@link #getCapacity()} names are cached, the least recently used
+ * one goes first.
+ * <p>
+ * Entries are kept up to date by a {@link WatchService} on every directory holding a cached
+ * name: creating, changing or deleting a file drops its entry, and the entry of the same
+ * resource in the {@link ContentCache}. Thread safe.
+ */
+public class FileHandleCache implements Runnable {
+    private int capacity;
+    private WatchService watchService;
+    private Map<Path, CachedFile> entries;
+    private Map<WatchKey, Path> directories = new HashMap<>();
+    private long generation = 0;        // counts invalidations, an entry opened across one is not cached
+    private long hits = 0;
+    private long misses = 0;
+    private long negativeHits = 0;
+    private long invalidations = 0;
+
+    /**
+     * @param capacity the most names cached at once, open or missing
+     */
+    public FileHandleCache(final int capacity) throws IOException {
+        this.capacity = capacity;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.entries = new LinkedHashMap<Path, CachedFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedFile> eldest) {
+                if (size() > capacity) {
+                    eldest.getValue().release();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Thread t = new Thread(this);
+        t.start();
+    }
+
+    /**
+     * @param name     the resource name
+     * @param fileName the file holding the resource
+     * @return the open file, holding a reference for the caller, who gives it up with {@link FileHandle#release()}
+     * @throws FileNotFoundException if the file does not exist or cannot be read
+     */
+    public FileHandle open(String name, String fileName) throws IOException {
+        Path path = new File(fileName).getAbsoluteFile().toPath().normalize();
+        long openedIn;
+        synchronized (this) {
+            CachedFile entry = entries.get(path);
+            if (entry != null) {
+                if (entry.handle == null) {
+                    negativeHits++;
+                    throw new FileNotFoundException(fileName + " (cached)");
+                }
+                if (entry.handle.retain()) {
+                    hits++;
+                    return entry.handle;
+                }
+            }
+            misses++;
+            openedIn = generation;
+        }
+        boolean watched = watch(path.getParent());        // before opening, so no change after the open goes unnoticed
+        FileHandle handle;
+        try {
+            handle = FileHandle.open(fileName);
+        } catch (FileNotFoundException e) {
+            if (watched) {
+                cache(path, new CachedFile(name, null), openedIn);
+            }
+            throw e;
+        }
+        if (watched && handle.retain()) {
+            if (!cache(path, new CachedFile(name, handle), openedIn)) {
+                handle.release();
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * @return false if the entry was not cached because a change came in while it was opened
+     */
+    private synchronized boolean cache(Path path, CachedFile entry, long openedIn) {
+        if (generation != openedIn) {
+            return false;
+        }
+        CachedFile previous = entries.put(path, entry);
+        if (previous != null) {
+            previous.release();
+        }
+        return true;
+    }
+
+    /**
+     * @param directory a directory to be told about changes in
+     * @return false if the directory cannot be watched, its files are then not cached
+     */
+    private boolean watch(Path directory) {
+        if (directory == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (directories.containsValue(directory)) {
+                return true;
+            }
+        }
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            synchronized (this) {
+                directories.put(key, directory);
+            }
+            return true;
+        } catch (IOException | ClosedWatchServiceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops the entry of a file, and the resource's entry in the content cache
+     *
+     * @param path the file
+     */
+    public void invalidate(Path path) {
+        CachedFile entry;
+        synchronized (this) {
+            generation++;
+            entry = entries.remove(path);
+            if (entry == null) {
+                return;
+            }
+            invalidations++;
+            entry.release();
+        }
+        ContentCache cache = Server.getContentCache();
+        if (cache != null) {
+            cache.invalidate(entry.name);
+        }
+    }
+
+    /**
+     * Drops every entry under a directory, or all of them when the watch service lost events
+     *
+     * @param directory the directory, null for all
+     */
+    private void invalidateAll(Path directory) {
+        List<Path> paths = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            for (Path path : entries.keySet()) {
+                if (directory == null || path.startsWith(directory)) {
+                    paths.add(path);
+                }
+            }
+        }
+        for (Path path : paths) {
+            invalidate(path);
+        }
+    }
+
+    /**
+     * Closes every cached file and stops watching
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            for (Iterator<CachedFile> i = entries.values().iterator(); i.hasNext(); ) {
+                i.next().release();
+                i.remove();
+            }
+        }
+        watchService.close();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return how often a request for a missing file was answered from the cache
+     */
+    public synchronized long getNegativeHits() {
+        return negativeHits;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FileHandleCache{entries=" + entries.size() + ", capacity=" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", negativeHits=" + negativeHits + ", invalidations=" + invalidations + "}";
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory;
+            synchronized (this) {
+                directory = directories.get(key);
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateAll(null);
+                } else if (directory != null) {
+                    invalidate(directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {         // the directory is gone
+                synchronized (this) {
+                    directories.remove(key);
+                }
+                if (directory != null) {
+                    invalidateAll(directory);
+                }
+            }
+        }
+    }
+
+    private static class CachedFile {
+        private String name;
+        private FileHandle handle;      // null for a missing file
+
+        CachedFile(String name, FileHandle handle) {
+            this.name = name;
+            this.handle = handle;
+        }
+
+        void release() {
+            if (handle != null) {
+                handle.release();
+            }
+        }
+    }
+}
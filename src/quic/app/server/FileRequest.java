@@ -0,0 +1,52 @@
+package quic.app.server;
+
+import quic.app.transport.StreamPriority;
+
+public class FileRequest {
+    private Connection connection;
+    private long streamId;
+    private String fileName;
+    private StreamPriority priority;
+
+    public FileRequest(Connection connection, long streamId, String fileName) {
+        this(connection, streamId, fileName, StreamPriority.DEFAULT);
+    }
+
+    public FileRequest(Connection connection, long streamId, String fileName, StreamPriority priority) {
+        this.connection = connection;
+        this.streamId = streamId;
+        this.fileName = fileName;
+        this.priority = priority;
+    }
+
+    /**
+     * @param connection the connection the request came in on
+     * @param streamId   the request stream
+     * @param request    the file name, optionally followed by a line holding the stream's priority
+     * @return the request
+     */
+    public static FileRequest parse(Connection connection, long streamId, String request) {
+        int newline = request.indexOf('\n');
+        if (newline < 0) {
+            return new FileRequest(connection, streamId, request);
+        }
+        return new FileRequest(connection, streamId, request.substring(0, newline).trim(),
+                StreamPriority.parse(request.substring(newline + 1)));
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public StreamPriority getPriority() {
+        return priority;
+    }
+}
@@ -1,107 +1,259 @@
 package quic.app.server;
 
-import quic.serialization.frame.QuicAckFrame;
-import quic.serialization.frame.QuicConnectionCloseFrame;
-import quic.serialization.frame.QuicFrame;
+import quic.app.transport.StreamPriority;
 import quic.serialization.frame.QuicStreamFrame;
-import quic.serialization.packet.QuicPacket;
-import quic.serialization.packet.QuicShortHeaderPacket;
-import quic.serialization.util.Util;
-import quic.app.util.*;
 
 import java.io.*;
-import java.sql.ClientInfoStatus;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Scanner;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Sends requested files. A single scheduler thread runs every active stream of every
+ * connection at once: it takes the connections in turn and sends one packet of each, so
+ * concurrent requests share the link instead of waiting for each other. Within a connection
+ * the packet goes to the stream with the most urgent {@link StreamPriority}; streams of equal
+ * urgency which are not incremental are sent one after the other in the order their files were
+ * opened, incremental ones take turns. A stream held back by flow control gives way to the next
+ * one. When no stream can move the thread sleeps until a connection reports an ACK, a raised
+ * limit or a new stream.
+ * <p>
+ * Requested files are opened on a pool of their own, opening may wait for the disk, a cache
+ * load or an ingest. A stream joins the rotation once its source is ready, the scheduler never
+ * touches the file system.
+ */
 public class FileUploader implements Runnable {
-    private BlockingQueue fileToUpload = new BlockingQueue(1200);
-    private BlockingQueue incomingAckBuffer = new BlockingQueue(1200);
+    /**
+     * Longest sleep without a wake up, a safety net should one get lost
+     */
+    public static final long IDLE_WAIT = 100;
+
+    private ExecutorService openers = Executors.newFixedThreadPool(Server.getIoThreads());
+    private Queue<StreamUpload> ready = new ConcurrentLinkedQueue<>();      // opened, waiting to join the rotation
+    private Map<Connection, List<StreamUpload>> uploads = new LinkedHashMap<>();      // by urgency, scheduler thread only
+    private boolean woken = false;
 
     public FileUploader() {
         Thread t = new Thread(this);
         t.start();
     }
 
-    public void addFileToUpload(QuicFrame frame) throws InterruptedException {
-        fileToUpload.enqueue(frame);
+    /**
+     * Opens the requested file on the opener pool, its stream joins the rotation once it is open
+     *
+     * @param request the request
+     */
+    public void addFileToUpload(final FileRequest request) {
+        openers.execute(new Runnable() {
+            @Override
+            public void run() {
+                start(request);
+            }
+        });
     }
 
-    public Object retrieveFileToUpload() throws InterruptedException {
-        return fileToUpload.dequeue();
+    /**
+     * Tells the scheduler a stream may be able to move again
+     */
+    public synchronized void wakeUp() {
+        woken = true;
+        notifyAll();
     }
 
-    public void addNewAck(IncomingAck ack) throws InterruptedException {
-        incomingAckBuffer.enqueue(ack);
+    private synchronized void awaitWork() throws InterruptedException {
+        if (!woken) {
+            wait(IDLE_WAIT);
+        }
+        woken = false;
     }
 
-    public Object retrieveAckFrame() throws InterruptedException {
-        return incomingAckBuffer.dequeue();
+    /**
+     * @param name the requested resource
+     * @return its content, from the chunk store or the cache when they are on. Both are optional,
+     * when one of them fails the file is served directly.
+     * @throws FileNotFoundException if there is no such resource
+     */
+    private StreamDataSource openSource(String name) throws IOException {
+        String fileName = Server.getResourceDirectory() + name;
+        FileHandleCache handles = Server.getFileHandleCache();
+        FileHandle file = handles != null ? handles.open(name, fileName) : FileHandle.open(fileName);
+        try {
+            if (Server.isDebug() && handles != null) {
+                System.out.println(handles);
+            }
+            ChunkStore store = Server.getChunkStore();
+            if (store != null) {
+                try {
+                    StreamDataSource source = store.open(name, file);
+                    if (source != null) {
+                        return source;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();        // e.g. the chunk directory is full
+                }
+            }
+            ContentCache cache = Server.getContentCache();
+            if (cache != null) {
+                try {
+                    StreamDataSource source = cache.open(name, file);
+                    if (Server.isDebug()) {
+                        System.out.println(cache);
+                    }
+                    return source;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return new FileDataSource(file);
+        } finally {
+            file.release();     // the source holds a reference of its own
+        }
     }
 
+    /**
+     * Opens the requested file and hands its stream to the scheduler. A file which is missing or
+     * cannot be read is answered with an empty stream, so the client stops repeating the request.
+     * Runs on the opener pool.
+     */
+    private void start(FileRequest request) {
+        Connection connection = request.getConnection();
+        StreamDataSource source;
+        try {
+            source = openSource(request.getFileName());
+        } catch (IOException e) {
+            if (!(e instanceof FileNotFoundException)) {
+                e.printStackTrace();
+            }
+            endStream(connection, request.getStreamId());
+            return;
+        }
+        try {
+            connection.openStream(request.getStreamId(), source);     // the connection closes it once all data is acknowledged
+            StreamUpload upload = new StreamUpload(connection, request.getStreamId(), request.getPriority(), source);
+            if (upload.isDone()) {
+                connection.sendStreamFrame(new QuicStreamFrame(request.getStreamId(), 0, true, new byte[0]));
+                upload.finish();
+            } else {
+                ready.add(upload);
+                wakeUp();
+            }
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
 
-    @Override
-    public void run() {
-        QuicStreamFrame quicStreamFrame = null;
-        InputStream is = null;
-        Set<QuicFrame> temp = new HashSet<>();
-        while (true) {
-            try {
-                quicStreamFrame = (QuicStreamFrame) retrieveFileToUpload();
-                String fileName = "C:\\Datacom\\qq\\BU_QUIC_SERVER\\resources\\" + new String(quicStreamFrame.getData());
-                is = new FileInputStream(fileName);
-                int c = 0;
-                int dataSize = is.available();
-                while (true) {
-                    if (is.available() == 0) {
-                        break;
-                    }
-                    byte[] data;
-                    if (is.available() > Server.getPacketSize()) {
-                        data = new byte[Server.getPacketSize()];
-                    } else {
-                        data = new byte[is.available()];
-                    }
-                    c += is.read(data);
-                    temp.clear();
-                    if(c==dataSize){
-                        temp.add(new QuicStreamFrame(quicStreamFrame.getStreamId(), c, true, data));
-                    }else {
-                        temp.add(new QuicStreamFrame(quicStreamFrame.getStreamId(), c, false, data));
-                    }
-                    QuicShortHeaderPacket quicShortHeaderPacket = new QuicShortHeaderPacket(Server.getDestinationAdress(), 0, temp);
-                    Server.getSender().addPacketToSend(quicShortHeaderPacket);
-                    ////////
-                    IncomingAck ack = (IncomingAck) retrieveAckFrame();
-                    while (ack.getPacketNumer() != quicStreamFrame.getStreamId() || ack.getOffset() != c + 1) {
+    /**
+     * Ends a stream without data
+     */
+    private static void endStream(Connection connection, long streamId) {
+        try {
+            connection.sendStreamFrame(new QuicStreamFrame(streamId, 0, true, new byte[0]));
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
 
-                    }
+    /**
+     * Adds a stream behind the streams of its connection with the same or a more urgent priority
+     */
+    private void schedule(StreamUpload upload) {
+        List<StreamUpload> streams = uploads.get(upload.getConnection());
+        if (streams == null) {
+            streams = new ArrayList<>();
+            uploads.put(upload.getConnection(), streams);
+        }
+        int index = streams.size();
+        while (index > 0 && streams.get(index - 1).getPriority().getUrgency() > upload.getPriority().getUrgency()) {
+            index--;
+        }
+        streams.add(index, upload);
+    }
 
+    /**
+     * Sends a packet of the first stream of a connection which can move, in priority order
+     *
+     * @param streams the connection's streams, by urgency
+     * @return false if all of them are held back
+     */
+    private boolean sendNext(List<StreamUpload> streams) {
+        int start = 0;
+        while (start < streams.size()) {
+            int urgency = streams.get(start).getPriority().getUrgency();
+            int end = start;
+            while (end < streams.size() && streams.get(end).getPriority().getUrgency() == urgency) {
+                end++;
+            }
+            for (int i = start; i < end; i++) {       // the oldest non-incremental stream goes first
+                if (!streams.get(i).getPriority().isIncremental() && sendNext(streams, i)) {
+                    return true;
                 }
-            } catch (FileNotFoundException e) {
-                temp.clear();
-                temp.add(new QuicStreamFrame(quicStreamFrame.getStreamId(), 0, true, new byte[0]));
-                try {
-                    Server.getSender().addPacketToSend(new QuicShortHeaderPacket(Server.getDestinationAdress(), 0, temp));
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
+            }
+            for (int i = start; i < end; i++) {
+                StreamUpload upload = streams.get(i);
+                if (upload.getPriority().isIncremental() && sendNext(streams, i)) {
+                    if (i < streams.size() && streams.get(i) == upload) {
+                        streams.remove(i);
+                        streams.add(end - 1, upload);     // its turn is over, the next incremental stream is first
+                    }
+                    return true;
                 }
+            }
+            start = end;
+        }
+        return false;
+    }
 
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                e.printStackTrace();
-            } finally {
+    /**
+     * @return false if the stream is held back, a finished or failed stream is removed
+     */
+    private boolean sendNext(List<StreamUpload> streams, int index) {
+        StreamUpload upload = streams.get(index);
+        try {
+            boolean sent = upload.sendNext();
+            if (upload.isDone()) {
+                streams.remove(index);
+                upload.finish();
+            }
+            return sent;
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            streams.remove(index);
+            upload.finish();
+            return true;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            boolean progress = false;
+            StreamUpload upload;
+            while ((upload = ready.poll()) != null) {
+                schedule(upload);
+                progress = true;
+            }
+            for (Iterator<List<StreamUpload>> i = uploads.values().iterator(); i.hasNext(); ) {     // one packet per connection and round
+                List<StreamUpload> streams = i.next();
+                if (sendNext(streams)) {
+                    progress = true;
+                }
+                if (streams.isEmpty()) {
+                    i.remove();
+                }
+            }
+            if (!progress) {
                 try {
-                    if (is != null) {
-                        is.close();
-                    }
-                } catch (Exception e) {
+                    awaitWork();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
                 }
             }
         }
     }
 }
-
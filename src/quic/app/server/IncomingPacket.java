@@ -0,0 +1,21 @@
+package quic.app.server;
+
+import quic.serialization.packet.QuicPacket;
+
+public class IncomingPacket {
+    private Connection connection;
+    private QuicPacket packet;
+
+    public IncomingPacket(Connection connection, QuicPacket packet) {
+        this.connection = connection;
+        this.packet = packet;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public QuicPacket getPacket() {
+        return packet;
+    }
+}
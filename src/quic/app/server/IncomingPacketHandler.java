@@ -1,15 +1,23 @@
 package quic.app.server;
 
 import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.exception.QuicException;
 import quic.serialization.frame.QuicConnectionCloseFrame;
+import quic.serialization.frame.QuicCryptoFrame;
+import quic.serialization.frame.QuicDataBlockedFrame;
 import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+import quic.serialization.frame.QuicMaxStreamDataFrame;
 import quic.serialization.frame.QuicStreamFrame;
 import quic.serialization.packet.QuicInitialPacket;
 import quic.serialization.packet.QuicPacket;
 import quic.serialization.packet.QuicShortHeaderPacket;
+import quic.serialization.parameter.TransportParameters;
 import quic.serialization.util.Util;
 import quic.app.util.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -23,7 +31,7 @@ public class IncomingPacketHandler implements Runnable {
         t.start();
     }
 
-    public void addNewPacketToBuffer(QuicPacket packet) throws InterruptedException {
+    public void addNewPacketToBuffer(IncomingPacket packet) throws InterruptedException {
         packetBuffer.enqueue(packet);
     }
 
@@ -34,42 +42,90 @@ public class IncomingPacketHandler implements Runnable {
     @Override
     public void run() {
         while (true) {
+            IncomingPacket incomingPacket = null;
             try {
-                QuicPacket quicPacket = (QuicPacket) packetBuffer.dequeue();
+                incomingPacket = (IncomingPacket) packetBuffer.dequeue();
+                Connection connection = incomingPacket.getConnection();
+                QuicPacket quicPacket = incomingPacket.getPacket();
                 if (quicPacket instanceof QuicInitialPacket) {
                     if (Arrays.equals(quicPacket.getDcID(), "0".getBytes())) {
-                        Server.setDestinationAdress(((QuicInitialPacket) quicPacket).getScID());
+                        connection.setDestinationAdress(((QuicInitialPacket) quicPacket).getScID());
                         QuicPacket.setDcIdSize(Server.getSourceAdrees().length);
-                        QuicFrame ackFrame = new QuicAckFrame(0, 0, 0, 1);
+                        for (QuicFrame quicFrame : quicPacket.getFrames()) {
+                            if (quicFrame instanceof QuicCryptoFrame) {
+                                connection.setPeerParameters(TransportParameters.decode(((QuicCryptoFrame) quicFrame).getData()));
+                            }
+                        }
+                        QuicFrame ackFrame = new QuicAckFrame(quicPacket.getPacketNumber(), 0, 0, new ArrayList<>(), new ArrayList<>());
                         Set<QuicFrame> temp = new HashSet<>();
                         temp.add(ackFrame);
-                        QuicPacket initialReply = new QuicInitialPacket(Server.getDestinationAdress(),0,Server.getVersion(),Server.getSourceAdrees(),temp);
-                        Server.getSender().addPacketToSend(initialReply);
+                        temp.add(new QuicCryptoFrame(0, Server.getTransportParameters().encode()));
+                        QuicPacket initialReply = new QuicInitialPacket(connection.getDestinationAdress(),0,Server.getVersion(),Server.getSourceAdrees(),temp);
+                        connection.sendUntracked(initialReply);
                     } else {
                         QuicFrame connectionCloseFrame = new QuicConnectionCloseFrame(10, 0, "Invalid Destination Adress");
                         Set<QuicFrame> temp = new HashSet<>();
                         temp.add(connectionCloseFrame);
                         QuicPacket initialPacket = new QuicInitialPacket(((QuicInitialPacket) quicPacket).getScID(), 0, 0xff000019L, "0".getBytes(), temp);
-                        Server.getSender().addPacketToSend(initialPacket);
+                        connection.sendUntracked(initialPacket);
                     }
                 }
                 else if(quicPacket instanceof QuicShortHeaderPacket){
+                    if (!connection.onPacketNumberReceived(quicPacket.getPacketNumber())) {
+                        continue;       // a duplicate, a request in it would start the same upload twice
+                    }
                     Set<QuicFrame> frames = quicPacket.getFrames();
                     Iterator<QuicFrame> frameIterator = frames.iterator();
                     while(frameIterator.hasNext()){
                         QuicFrame quicFrame = frameIterator.next();
                         if(quicFrame instanceof QuicStreamFrame){
-                            Server.getFileUploader().addFileToUpload((QuicStreamFrame)quicFrame);
+                            QuicStreamFrame streamFrame = (QuicStreamFrame) quicFrame;
+                            if (!connection.onStreamDataReceived(streamFrame)) {
+                                continue;       // a retransmitted request, its upload runs already
+                            }
+                            Server.getFileUploader().addFileToUpload(FileRequest.parse(connection, streamFrame.getStreamId(), new String(streamFrame.getData())));
                         }else if(quicFrame instanceof QuicAckFrame){
-                            Server.getFileUploader().addNewAck(new IncomingAck(quicPacket.getPacketNumber(),((QuicAckFrame) quicFrame).getFirstAckRange()));
+                            connection.onAckReceived((QuicAckFrame) quicFrame);
+                        }else if(quicFrame instanceof QuicMaxDataFrame){
+                            connection.onMaxData(((QuicMaxDataFrame) quicFrame).getMaximumData());
+                        }else if(quicFrame instanceof QuicMaxStreamDataFrame){
+                            QuicMaxStreamDataFrame maxStreamDataFrame = (QuicMaxStreamDataFrame) quicFrame;
+                            connection.onMaxStreamData(maxStreamDataFrame.getStreamId(), maxStreamDataFrame.getMaximumStreamData());
+                        }else if(quicFrame instanceof QuicDataBlockedFrame){
+                            connection.onDataBlocked();
                         }else if(quicFrame instanceof QuicConnectionCloseFrame){
-
+                            connection.close();         // the client gave up on the connection, stop sending to it
+                            break;
                         }
                     }
                 }
-            } catch (InterruptedException e) {
+            } catch (QuicException e) {
+                closeConnection(incomingPacket, e);
+            } catch (IOException | InterruptedException e) {
                 e.printStackTrace();
             }
         }
     }
+
+    /**
+     * Tells the client about a protocol violation with a CONNECTION_CLOSE frame and drops the connection
+     *
+     * @param incomingPacket the packet which caused the error
+     * @param e              the error
+     */
+    private void closeConnection(IncomingPacket incomingPacket, QuicException e) {
+        Connection connection = incomingPacket.getConnection();
+        Set<QuicFrame> temp = new HashSet<>();
+        temp.add(new QuicConnectionCloseFrame(e.getErrorCode(), e.getFrameType(), e.getMessage()));
+        try {
+            if (incomingPacket.getPacket() instanceof QuicInitialPacket) {
+                connection.sendUntracked(new QuicInitialPacket(((QuicInitialPacket) incomingPacket.getPacket()).getScID(), 0, Server.getVersion(), "0".getBytes(), temp));
+            } else {
+                connection.sendUntracked(new QuicShortHeaderPacket(connection.getDestinationAdress(), connection.nextPacketNumber(), temp));
+            }
+        } catch (IOException | InterruptedException ex) {
+            ex.printStackTrace();
+        }
+        connection.close();
+    }
 }
@@ -0,0 +1,54 @@
+package quic.app.server;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * An encoded datagram on its way through the {@link Pacer} to the {@link Sender}. Pooled
+ * buffers go back to {@link Server#getBufferPool()} once the datagram was sent.
+ */
+public class OutgoingDatagram {
+    private ByteBuffer data;
+    private SocketAddress target;
+    private boolean pooled;
+    private int weight;
+
+    /**
+     * @param data   the datagram, from its position to its limit
+     * @param target the client to send it to
+     * @param pooled true if the buffer came from the server's buffer pool
+     */
+    public OutgoingDatagram(ByteBuffer data, SocketAddress target, boolean pooled) {
+        this(data, target, pooled, 1);
+    }
+
+    /**
+     * @param weight the share of the server's egress the sending connection is entitled to, see {@link Pacer}
+     */
+    public OutgoingDatagram(ByteBuffer data, SocketAddress target, boolean pooled, int weight) {
+        this.data = data;
+        this.target = target;
+        this.pooled = pooled;
+        this.weight = weight;
+    }
+
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    public SocketAddress getTarget() {
+        return target;
+    }
+
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getLength() {
+        return data.remaining();
+    }
+}
@@ -0,0 +1,140 @@
+package quic.app.server;
+
+import quic.app.transport.TokenBucket;
+import quic.app.util.DeficitRoundRobin;
+import quic.app.util.TimerWheel;
+
+import java.net.SocketAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds packets back until their departure time and then hands them to the {@link Sender}.
+ * Connections compute the departure time from their own pacing rate, the pacer additionally
+ * enforces the server wide {@link Server#getMaxRate()} cap. Packets which are due while the
+ * cap holds them back wait in one queue per client and leave in deficit round robin order,
+ * weighted by {@link OutgoingDatagram#getWeight()}: a bulk client cannot crowd out the others,
+ * each gets its share of the cap and waits at most one round. The pacer thread also drives
+ * the server's {@link Server#getTimerWheel() timer wheel}, it never sleeps past the next timer.
+ */
+public class Pacer implements Runnable {
+    /**
+     * Packets due within this window are released together, waking up for every single packet
+     * costs more than the burst it avoids
+     */
+    public static final long BATCH_WINDOW = TimeUnit.MICROSECONDS.toNanos(200);
+    /**
+     * Packets a connection may send back to back after being idle
+     */
+    public static final int BURST_PACKETS = 10;
+    /**
+     * Bytes a client of weight 1 may send per round while the server cap is reached, one full datagram
+     */
+    public static final int QUANTUM = 1500;
+
+    private PriorityQueue<PacedPacket> queue = new PriorityQueue<>();
+    private DeficitRoundRobin<SocketAddress, OutgoingDatagram> due = new DeficitRoundRobin<>(QUANTUM);
+    private TokenBucket globalBucket = new TokenBucket(0, 0);
+    private long sequence = 0;
+    private Thread thread;
+
+    public Pacer() {
+        thread = new Thread(this);
+        thread.start();
+    }
+
+    /**
+     * @param packet      the datagram to send
+     * @param releaseTime the earliest time in nanoseconds the datagram may leave
+     */
+    public void addPacketToSend(OutgoingDatagram packet, long releaseTime) {
+        boolean earliest;
+        synchronized (this) {
+            PacedPacket pacedPacket = new PacedPacket(packet, releaseTime, sequence++);
+            queue.add(pacedPacket);
+            earliest = queue.peek() == pacedPacket;
+        }
+        if (earliest) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        List<OutgoingDatagram> batch = new ArrayList<>();
+        TimerWheel timerWheel = Server.getTimerWheel();
+        timerWheel.setDriver(thread);
+        while (true) {
+            timerWheel.advance(System.nanoTime());      // outside the lock, timers queue packets on this pacer
+            long parkNanos;
+            synchronized (this) {
+                long maxRate = (long) Server.getMaxRate() * 1000000 / 8;     // Mbit/s to bytes per second
+                globalBucket.setRate(maxRate);
+                globalBucket.setBurst(maxRate / 1000);           // at most one millisecond worth of traffic back to back
+                long now = System.nanoTime();
+                while (!queue.isEmpty() && queue.peek().releaseTime - now <= BATCH_WINDOW) {
+                    OutgoingDatagram packet = queue.poll().packet;
+                    due.add(packet.getTarget(), packet.getWeight(), packet, packet.getLength());
+                }
+                long dueRelease = -1;
+                while (!due.isEmpty()) {
+                    long globalRelease = globalBucket.peek(due.peekSize(), now);
+                    if (globalRelease - now > BATCH_WINDOW) {       // over the server cap, wait for the bucket to refill
+                        dueRelease = globalRelease;
+                        break;
+                    }
+                    OutgoingDatagram packet = due.poll();
+                    globalBucket.reserve(packet.getLength(), now);
+                    batch.add(packet);
+                }
+                parkNanos = queue.isEmpty() ? -1 : queue.peek().releaseTime - now;
+                if (dueRelease >= 0 && (parkNanos < 0 || dueRelease - now < parkNanos)) {
+                    parkNanos = dueRelease - now;
+                }
+            }
+            long nextExpiry = timerWheel.nextExpiry();
+            if (nextExpiry != Long.MAX_VALUE && (parkNanos < 0 || nextExpiry - System.nanoTime() < parkNanos)) {
+                parkNanos = Math.max(0, nextExpiry - System.nanoTime());
+            }
+            try {
+                for (OutgoingDatagram packet : batch) {
+                    Server.getSender().addPacketToSend(packet);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            if (batch.isEmpty()) {
+                if (parkNanos < 0) {
+                    LockSupport.park(this);
+                } else if (parkNanos > 0) {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private static class PacedPacket implements Comparable<PacedPacket> {
+        private OutgoingDatagram packet;
+        private long releaseTime;
+        private long sequence;
+
+        PacedPacket(OutgoingDatagram packet, long releaseTime, long sequence) {
+            this.packet = packet;
+            this.releaseTime = releaseTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PacedPacket that) {
+            if (releaseTime != that.releaseTime) {
+                return releaseTime - that.releaseTime < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, that.sequence);
+        }
+    }
+}
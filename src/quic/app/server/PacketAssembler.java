@@ -0,0 +1,213 @@
+package quic.app.server;
+
+import quic.app.transport.StreamRange;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicStreamFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the frames waiting on one connection into as few packets as possible. Control frames
+ * and retransmitted frames wait here until a stream packet has room for them or the flush
+ * delay passes; new stream data is then sized to fill what is left of the datagram exactly.
+ * Lost stream data waits as ranges and is read from the stream's source only when it is packed.
+ * Not thread safe, the owning connection guards every access.
+ */
+public class PacketAssembler {
+    /**
+     * Longest a queued frame waits for a stream packet to ride on before it is sent on its own
+     */
+    public static final long FLUSH_DELAY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private Deque<QuicFrame> pendingFrames = new ArrayDeque<>();
+    private Deque<StreamRange> pendingRanges = new ArrayDeque<>();
+    private int pendingLength = 0;
+
+    public void add(QuicFrame frame) throws IOException {
+        pendingFrames.addLast(frame);
+        pendingLength += encodedLength(frame);
+    }
+
+    public void add(StreamRange range) {
+        pendingRanges.addLast(range);
+        pendingLength += encodedLength(range);
+    }
+
+    public boolean isEmpty() {
+        return pendingFrames.isEmpty() && pendingRanges.isEmpty();
+    }
+
+    /**
+     * @param streamId a stream
+     * @return true if lost data of the stream waits to be sent again
+     */
+    public boolean hasPendingData(long streamId) {
+        for (StreamRange range : pendingRanges) {
+            if (range.getStreamId() == streamId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the encoded size of all queued frames together
+     */
+    public int getPendingLength() {
+        return pendingLength;
+    }
+
+    /**
+     * Moves queued frames into a packet in the order they were queued, as long as they fit,
+     * then lost stream data. A stream frame or range which does not fit is split, the rest
+     * stays queued at the front.
+     *
+     * @param frames  the frames of the packet being built
+     * @param room    the bytes still free in the packet
+     * @param sources the sources lost stream data is read from, by stream ID
+     * @return the bytes still free after adding the frames
+     */
+    public int fill(Set<QuicFrame> frames, int room, Map<Long, StreamDataSource> sources) throws IOException {
+        while (!pendingFrames.isEmpty()) {
+            QuicFrame frame = pendingFrames.peekFirst();
+            int length = encodedLength(frame);
+            if (length <= room) {
+                pendingFrames.removeFirst();
+                pendingLength -= length;
+                frames.add(frame);
+                room -= length;
+                continue;
+            }
+            if (frame instanceof QuicStreamFrame) {
+                QuicStreamFrame streamFrame = (QuicStreamFrame) frame;
+                int fitting = streamDataFitting(streamFrame.getStreamId(), streamFrame.getOffset(), room);
+                if (fitting > 0) {
+                    byte[] data = streamFrame.getData();
+                    QuicStreamFrame head = new QuicStreamFrame(streamFrame.getStreamId(), streamFrame.getOffset(), false,
+                            Arrays.copyOfRange(data, 0, fitting));
+                    QuicStreamFrame tail = new QuicStreamFrame(streamFrame.getStreamId(), streamFrame.getOffset() + fitting,
+                            streamFrame.isEndOfStream(), Arrays.copyOfRange(data, fitting, data.length));
+                    pendingFrames.removeFirst();
+                    pendingFrames.addFirst(tail);
+                    pendingLength += encodedLength(tail) - length;
+                    frames.add(head);
+                    room -= encodedLength(head);
+                }
+            } else if (frames.isEmpty()) {
+                pendingFrames.removeFirst();        // larger than any packet, it has to go alone
+                pendingLength -= length;
+                frames.add(frame);
+                room = 0;
+            }
+            break;
+        }
+        while (!pendingRanges.isEmpty()) {
+            StreamRange range = pendingRanges.peekFirst();
+            int length = encodedLength(range);
+            int fitting = length <= room ? range.getLength() : streamDataFitting(range.getStreamId(), range.getOffset(), room);
+            if (length > room && fitting == 0) {
+                break;
+            }
+            pendingRanges.removeFirst();
+            pendingLength -= length;
+            if (fitting < range.getLength()) {
+                StreamRange tail = new StreamRange(range.getStreamId(), range.getOffset() + fitting,
+                        range.getLength() - fitting, range.isEndOfStream());
+                pendingRanges.addFirst(tail);
+                pendingLength += encodedLength(tail);
+            }
+            QuicStreamFrame frame = new QuicStreamFrame(range.getStreamId(), range.getOffset(),
+                    range.isEndOfStream() && fitting == range.getLength(), slice(range, fitting, sources));
+            frames.add(frame);
+            room -= encodedLength(frame);
+        }
+        return room;
+    }
+
+    private static ByteBuffer slice(StreamRange range, int length, Map<Long, StreamDataSource> sources) throws IOException {
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        StreamDataSource source = sources.get(range.getStreamId());
+        if (source == null) {
+            throw new IOException("No source for stream " + range.getStreamId());
+        }
+        return source.slice(range.getOffset(), length);
+    }
+
+    /**
+     * @param dcID         the destination connection ID
+     * @param packetNumber the packet number
+     * @return the size of a short header packet's header
+     */
+    public static int headerLength(byte[] dcID, long packetNumber) {
+        int packetNumberLength = packetNumber < (1L << 8) ? 1 : packetNumber < (1L << 16) ? 2 : packetNumber < (1L << 24) ? 3 : 4;
+        return 1 + dcID.length + packetNumberLength;
+    }
+
+    /**
+     * @param frame a frame
+     * @return its encoded size, computed without copying the data of stream frames
+     */
+    public static int encodedLength(QuicFrame frame) throws IOException {
+        if (frame instanceof PreframedStreamFrame) {
+            return ((PreframedStreamFrame) frame).getEncodedLength();
+        }
+        if (frame instanceof QuicStreamFrame) {
+            QuicStreamFrame streamFrame = (QuicStreamFrame) frame;
+            int length = streamFrame.getDataLength();
+            return streamFrameHeaderLength(streamFrame.getStreamId(), streamFrame.getOffset())
+                    + (length > 0 ? variableLengthIntegerLength(length) : 0) + length;
+        }
+        return frame.encode().length;
+    }
+
+    /**
+     * @param range lost stream data
+     * @return the encoded size of the stream frame carrying it
+     */
+    public static int encodedLength(StreamRange range) {
+        int length = range.getLength();
+        return streamFrameHeaderLength(range.getStreamId(), range.getOffset())
+                + (length > 0 ? variableLengthIntegerLength(length) : 0) + length;
+    }
+
+    /**
+     * @param streamId the stream
+     * @param offset   the offset of the data
+     * @param room     the bytes free in the packet
+     * @return the most stream data a frame taking at most room bytes can carry, 0 if none fits
+     */
+    public static int streamDataFitting(long streamId, long offset, int room) {
+        int available = room - streamFrameHeaderLength(streamId, offset);
+        for (int lengthSize = 1; lengthSize <= 8; lengthSize *= 2) {
+            int data = available - lengthSize;
+            if (data <= 0) {
+                return 0;
+            }
+            long limit = (1L << (8 * lengthSize - 2)) - 1;      // largest length this varint size can hold
+            if (data <= limit) {
+                return data;
+            }
+            if (available - lengthSize * 2 <= limit) {
+                return (int) limit;        // the next varint size would leave less data
+            }
+        }
+        return 0;
+    }
+
+    private static int streamFrameHeaderLength(long streamId, long offset) {
+        return 1 + variableLengthIntegerLength(streamId) + (offset > 0 ? variableLengthIntegerLength(offset) : 0);
+    }
+
+    private static int variableLengthIntegerLength(long value) {
+        return value < (1L << 6) ? 1 : value < (1L << 14) ? 2 : value < (1L << 30) ? 4 : 8;
+    }
+}
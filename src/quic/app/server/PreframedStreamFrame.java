@@ -0,0 +1,58 @@
+package quic.app.server;
+
+import quic.serialization.frame.QuicStreamFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A STREAM frame whose offset, length and data were encoded ahead of time by the
+ * {@link ChunkStore}. Encoding it writes the frame type, patches in the stream ID as a
+ * fixed-width 8-byte varint and copies the stored record behind it, nothing is encoded per byte.
+ */
+public class PreframedStreamFrame extends QuicStreamFrame {
+    /**
+     * Frame type byte, offset and length fields present
+     */
+    private static final int TYPE = 0x08 | 0x04 | 0x02;
+
+    private ByteBuffer record;
+
+    /**
+     * @param streamId    the ID of the stream
+     * @param offset      the byte offset of the data within the stream
+     * @param endOfStream flag marking the end of the stream
+     * @param payload     the frame's data
+     * @param record      the stored offset and length varints followed by the data
+     */
+    public PreframedStreamFrame(long streamId, long offset, boolean endOfStream, ByteBuffer payload, ByteBuffer record) {
+        super(streamId, offset, endOfStream, payload);
+        this.record = record.slice();
+    }
+
+    /**
+     * @param dataLength the bytes of data in the frame
+     * @return the encoded size of a pre-framed frame
+     */
+    public static int encodedLength(int dataLength) {
+        return 1 + 8 + ChunkStore.RECORD_HEADER + dataLength;
+    }
+
+    public int getEncodedLength() {
+        return encodedLength(getDataLength());
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(getEncodedLength());
+        encode(buffer);
+        return buffer.array();
+    }
+
+    @Override
+    public void encode(ByteBuffer buffer) {
+        buffer.put((byte) (TYPE | (isEndOfStream() ? 1 : 0)));
+        buffer.putLong(getStreamId() | 0xc000000000000000L);      // 8-byte varint, the same width for every stream
+        buffer.put(record.duplicate());
+    }
+}
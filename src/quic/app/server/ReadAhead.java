@@ -0,0 +1,109 @@
+package quic.app.server;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads stream data ahead of the sender on a pool of I/O threads. Every stream being sent
+ * keeps up to {@link #getDepth()} chunks of {@link #CHUNK_SIZE} bytes past its send offset
+ * requested from its source, so when the congestion window opens the data is already in
+ * memory and a slice costs no disk access. The sender never waits for a prefetch; data it
+ * catches up with is simply read on its own thread. Thread safe.
+ */
+public class ReadAhead {
+    /**
+     * Bytes prefetched by one task
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private ExecutorService pool;
+    private int depth;
+    private AtomicLong prefetched = new AtomicLong();
+    private AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param threads the I/O threads
+     * @param depth   the chunks kept requested ahead of each stream's send offset
+     */
+    public ReadAhead(int threads, int depth) {
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.depth = depth;
+    }
+
+    /**
+     * @param source the data of a stream about to be sent
+     * @return the cursor the stream's sender advances as it sends
+     */
+    public Cursor open(StreamDataSource source) throws IOException {
+        return new Cursor(source, source.size());
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the chunks brought into memory
+     */
+    public long getPrefetched() {
+        return prefetched.get();
+    }
+
+    /**
+     * @return the prefetches which failed, their data is read when it is sent
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadAhead{depth=" + depth + ", prefetched=" + getPrefetched() + ", failures=" + getFailures() + "}";
+    }
+
+    /**
+     * The read-ahead position of one stream. Used by the stream's sender only.
+     */
+    public class Cursor {
+        private StreamDataSource source;
+        private long size;
+        private long requested = 0;      // the data up to here is prefetched or being prefetched
+
+        private Cursor(StreamDataSource source, long size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        /**
+         * Requests the chunks up to {@link #getDepth()} chunks past the send offset
+         *
+         * @param offset the stream offset of the next data to send
+         */
+        public void advance(long offset) {
+            long target = Math.min(size, offset + (long) depth * CHUNK_SIZE);
+            requested = Math.max(requested, offset);        // data already sent needs no prefetch
+            while (requested < target) {
+                final long start = requested;
+                final int length = (int) Math.min(CHUNK_SIZE, size - start);
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            source.prefetch(start, length);
+                            prefetched.incrementAndGet();
+                        } catch (IOException e) {
+                            failures.incrementAndGet();     // e.g. the source was closed, the stream is gone
+                        }
+                    }
+                });
+                requested += length;
+            }
+        }
+    }
+}
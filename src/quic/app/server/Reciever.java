@@ -1,12 +1,12 @@
 package quic.app.server;
 
 import quic.serialization.exception.QuicException;
-import quic.serialization.packet.QuicInitialPacket;
 import quic.serialization.packet.QuicPacket;
 import quic.serialization.util.Util;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
+import java.util.Arrays;
 
 /**
  * @author Md Rofiqul Islam
@@ -21,19 +21,17 @@ public class Reciever implements Runnable {
     @Override
     public void run() {
         while (true) {
-            byte[] b1 = new byte[1300];
+            byte[] b1 = new byte[Server.getMaxUdpPayloadSize()];
             DatagramPacket DpRecv = new DatagramPacket(b1, b1.length);
             try {
                 Server.getDs().receive(DpRecv);
-                Server.setClientIp(DpRecv.getAddress());
-                Server.setClientPort(DpRecv.getPort());
-                QuicPacket quicPacket = QuicPacket.decode(b1);
-                if(quicPacket instanceof QuicInitialPacket){
-                    Server.setClientIp(DpRecv.getAddress());
-                    Server.setClientPort(DpRecv.getPort());
+                Connection connection = Server.getConnection(DpRecv.getAddress(), DpRecv.getPort());
+                connection.onPacketReceived();
+                QuicPacket quicPacket = QuicPacket.decode(Arrays.copyOf(b1, DpRecv.getLength()));     // the rest of the buffer is not part of the datagram
+                if (Server.isDebug()) {
+                    System.out.println("Recieveing : " + quicPacket.toString());
                 }
-                System.out.println("Recieveing : "+quicPacket.toString());
-                Server.getIncomingPacketHandler().addNewPacketToBuffer(quicPacket);
+                Server.getIncomingPacketHandler().addNewPacketToBuffer(new IncomingPacket(connection, quicPacket));
             } catch (IOException | QuicException | InterruptedException e) {
                 e.printStackTrace();
             }
@@ -1,15 +1,12 @@
 package quic.app.server;
 
 
-
-import quic.serialization.exception.QuicException;
-import quic.serialization.packet.QuicPacket;
-
 import java.io.IOException;
-import java.net.DatagramPacket;
 import quic.app.util.*;
 
 /**
+ * Writes datagrams to the server's channel. Pooled buffers are returned once written.
+ *
  * @author Md Rofiqul Islam
  */
 public class Sender implements Runnable {
@@ -20,29 +17,25 @@ public class Sender implements Runnable {
         t.start();
     }
 
-    public void addPacketToSend(QuicPacket packet) throws InterruptedException {
+    public void addPacketToSend(OutgoingDatagram packet) throws InterruptedException {
         packetToSend.enqueue(packet);
     }
     public Object retrievePacketToSend() throws InterruptedException {
         return packetToSend.dequeue();
     }
 
-    public void sendData(byte[] data){
-        DatagramPacket DpSend = new DatagramPacket(data, data.length,Server.getClientIp(), Server.getClientPort());
-        try {
-            Server.getDs().send(DpSend);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
     @Override
     public void run() {
         while (true) {
             try {
-                QuicPacket quicPacket = (QuicPacket) packetToSend.dequeue();
-                sendData(quicPacket.encode());
-                System.out.println("Sending : "+quicPacket.toString());
+                OutgoingDatagram DpSend = (OutgoingDatagram) packetToSend.dequeue();
+                try {
+                    Server.getChannel().send(DpSend.getData(), DpSend.getTarget());
+                } finally {
+                    if (DpSend.isPooled()) {
+                        Server.getBufferPool().release(DpSend.getData());
+                    }
+                }
             } catch (IOException | InterruptedException e) {
                 e.printStackTrace();
             }
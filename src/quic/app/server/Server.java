@@ -1,7 +1,23 @@
 package quic.app.server;
 
 
+import quic.app.transport.CongestionControl;
+import quic.app.transport.ReceiveWindow;
+import quic.app.util.BufferPool;
+import quic.app.util.TimerWheel;
+import quic.serialization.parameter.TransportParameters;
+
+import java.io.File;
+import java.io.IOException;
 import java.net.*;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -10,43 +26,140 @@ import java.net.*;
 
 public class Server {
     private static int serverPort = 443;
-    private static int clientPort;
     private static DatagramSocket ds;
+    private static DatagramChannel channel;
+    private static BufferPool bufferPool = new BufferPool(2048, 4096);     // outgoing datagrams waiting in the pacer and sender
     private static Sender sender ;
     private static Reciever reciever;
-    private static InetAddress clientIp;
     private static byte[] sourceAdrees = "Server".getBytes();
-    private static byte[] destinationAdress;
+    private static Map<InetSocketAddress, Connection> connections = new ConcurrentHashMap<>();
     private static IncomingPacketHandler incomingPacketHandler;
     private static long version  = 0xff000019L;
-    private static int maxRate = 1500;
+    private static int maxRate = 1500;      // egress cap for the whole server in Mbit/s, 0 for none
     private static int packetSize = 500;
-    private static int timout = 100;
+    private static int timeout = 100;       // round trip time in ms assumed for a new connection until it is measured
+    private static int maxUdpPayloadSize = 1300;       // size of the receive buffer
+    private static int maxDatagramSize = 1472;          // largest datagram path MTU discovery probes, a 1500 byte MTU less IP and UDP headers
+    private static int idleTimeout = 30000;             // ms without packets from a client before its connection is dropped
+    private static long initialMaxStreams = 1024;       // requests one connection may make
+    private static long initialMaxData = ReceiveWindow.DEFAULT_MAX_DATA;      // what all clients' streams together may send
+    private static long initialMaxStreamData = ReceiveWindow.DEFAULT_MAX_STREAM_DATA;
+    private static int defaultWeight = 1;                // egress share of a connection under contention
+    private static Map<InetAddress, Integer> clientWeights = new ConcurrentHashMap<>();     // shares of particular clients
+    private static CongestionControl congestionControl = CongestionControl.NEW_RENO;     // algorithm of new connections
+    private static Map<InetAddress, CongestionControl> clientCongestionControls = new ConcurrentHashMap<>();     // algorithms of particular clients
+    private static boolean debug = false;
+    private static String resourceDirectory = "C:\\Datacom\\qq\\BU_QUIC_SERVER\\resources\\";     // prefix of requested file names
+    private static int ioThreads = 4;                       // threads loading files into the cache and the chunk store
+    private static ExecutorService ioPool;
+    private static long cacheSize = 64L * 1024 * 1024;     // bytes of files kept in memory, 0 to read every request from disk
+    private static ContentCache contentCache;
+    private static int fileHandleCacheSize = 256;           // files kept open with their metadata, 0 to open the file on every request
+    private static FileHandleCache fileHandleCache;
+    private static int readAheadChunks = 8;                 // chunks read ahead of each stream's send offset, 0 to read when sending
+    private static int readAheadThreads = 2;
+    private static ReadAhead readAhead;
+    private static String chunkStoreDirectory = null;       // where files are ingested pre-framed, null to frame every packet
+    private static int chunkSize = 1400;                    // stream data per pre-framed chunk, one chunk fills a 1472 byte datagram
+    private static ChunkStore chunkStore;
     private static FileUploader fileUploader;
+    private static TimerWheel timerWheel;
+    private static Pacer pacer;
 
 
-    public static void main(String args[]) throws SocketException, UnknownHostException {
-        ds = new DatagramSocket(serverPort);
+    public static void main(String args[]) throws IOException {
+        parseArguments(args);
+        channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress(serverPort));
+        ds = channel.socket();      // received through the socket, sent through the channel from direct buffers
         sender = new Sender();
+        ioPool = Executors.newFixedThreadPool(ioThreads);
+        contentCache = cacheSize > 0 ? new ContentCache(cacheSize, ioPool) : null;
+        fileHandleCache = fileHandleCacheSize > 0 ? new FileHandleCache(fileHandleCacheSize) : null;
+        readAhead = readAheadChunks > 0 ? new ReadAhead(readAheadThreads, readAheadChunks) : null;
+        chunkStore = chunkStoreDirectory != null ? new ChunkStore(new File(chunkStoreDirectory), chunkSize, ioPool) : null;
+        timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(1));
+        pacer = new Pacer();          // also drives the timer wheel
         reciever = new Reciever();
         incomingPacketHandler = new IncomingPacketHandler();
         fileUploader = new FileUploader();
     }
 
-    public static int getServerPort() {
-        return serverPort;
+    /**
+     * Applies the command line options: {@code --max-rate <Mbit/s>} caps the server's egress,
+     * {@code --default-weight <weight>} and {@code --weight <client address>=<weight>}, which
+     * may be repeated, set the shares connections get of the capped egress when it is saturated.
+     * {@code --congestion-control <algorithm>} and {@code --client-congestion-control <client
+     * address>=<algorithm>} choose NEW_RENO, CUBIC or BBR for new connections.
+     *
+     * @param args the command line
+     * @throws IllegalArgumentException if an option is unknown or its value is malformed
+     * @throws UnknownHostException     if a client address cannot be resolved
+     */
+    public static void parseArguments(String[] args) throws UnknownHostException {
+        for (int i = 0; i < args.length; i += 2) {
+            String option = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of " + option);
+            }
+            String value = args[i + 1];
+            switch (option) {
+                case "--max-rate":
+                    maxRate = parseNumber(option, value, 0);
+                    break;
+                case "--default-weight":
+                    defaultWeight = parseNumber(option, value, 1);
+                    break;
+                case "--weight":
+                    int equals = value.lastIndexOf('=');
+                    if (equals <= 0) {
+                        throw new IllegalArgumentException("Expected <client address>=<weight> after " + option + ", got " + value);
+                    }
+                    setClientWeight(InetAddress.getByName(value.substring(0, equals)), parseNumber(option, value.substring(equals + 1), 1));
+                    break;
+                case "--congestion-control":
+                    congestionControl = parseCongestionControl(option, value);
+                    break;
+                case "--client-congestion-control":
+                    equals = value.lastIndexOf('=');
+                    if (equals <= 0) {
+                        throw new IllegalArgumentException("Expected <client address>=<algorithm> after " + option + ", got " + value);
+                    }
+                    setClientCongestionControl(InetAddress.getByName(value.substring(0, equals)),
+                            parseCongestionControl(option, value.substring(equals + 1)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
     }
 
-    public static void setServerPort(int serverPort) {
-        Server.serverPort = serverPort;
+    private static int parseNumber(String option, String value, int min) {
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= min) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Expected a number of at least " + min + " after " + option + ", got " + value);
     }
 
-    public static int getClientPort() {
-        return clientPort;
+    private static CongestionControl parseCongestionControl(String option, String value) {
+        try {
+            return CongestionControl.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Expected one of " + Arrays.toString(CongestionControl.values()) + " after " + option + ", got " + value);
+        }
+    }
+
+    public static int getServerPort() {
+        return serverPort;
     }
 
-    public static void setClientPort(int clientPort) {
-        Server.clientPort = clientPort;
+    public static void setServerPort(int serverPort) {
+        Server.serverPort = serverPort;
     }
 
     public static DatagramSocket getDs() {
@@ -57,20 +170,28 @@ public class Server {
         Server.ds = ds;
     }
 
-    public static Sender getSender() {
-        return sender;
+    public static DatagramChannel getChannel() {
+        return channel;
     }
 
-    public static void setSender(Sender sender) {
-        Server.sender = sender;
+    public static void setChannel(DatagramChannel channel) {
+        Server.channel = channel;
     }
 
-    public static InetAddress getClientIp() {
-        return clientIp;
+    public static BufferPool getBufferPool() {
+        return bufferPool;
     }
 
-    public static void setClientIp(InetAddress clientIp) {
-        Server.clientIp = clientIp;
+    public static void setBufferPool(BufferPool bufferPool) {
+        Server.bufferPool = bufferPool;
+    }
+
+    public static Sender getSender() {
+        return sender;
+    }
+
+    public static void setSender(Sender sender) {
+        Server.sender = sender;
     }
 
     public static byte[] getSourceAdrees() {
@@ -81,12 +202,35 @@ public class Server {
         Server.sourceAdrees = sourceAdrees;
     }
 
-    public static byte[] getDestinationAdress() {
-        return destinationAdress;
+    public static Connection getConnection(InetAddress clientIp, int clientPort) {
+        return connections.computeIfAbsent(new InetSocketAddress(clientIp, clientPort),
+                address -> new Connection(clientIp, clientPort, getClientCongestionControl(clientIp)));
+    }
+
+    /**
+     * Forgets a connection, the next packet from the same address starts a new one
+     *
+     * @param connection the connection to drop
+     */
+    public static void removeConnection(Connection connection) {
+        connections.remove(new InetSocketAddress(connection.getClientIp(), connection.getClientPort()), connection);
+    }
+
+    /**
+     * @return the transport parameters the server announces in its handshake reply
+     */
+    public static TransportParameters getTransportParameters() {
+        TransportParameters parameters = new TransportParameters();
+        parameters.setMaxIdleTimeout(idleTimeout);
+        parameters.setMaxUdpPayloadSize(maxUdpPayloadSize);
+        parameters.setInitialMaxData(initialMaxData);
+        parameters.setInitialMaxStreamDataBidiRemote(initialMaxStreamData);   // requests are streams opened by the client
+        parameters.setInitialMaxStreamsBidi(initialMaxStreams);
+        return parameters;
     }
 
-    public static void setDestinationAdress(byte[] destinationAdress) {
-        Server.destinationAdress = destinationAdress;
+    public static Collection<Connection> getConnections() {
+        return connections.values();
     }
 
     public static Reciever getReciever() {
@@ -128,4 +272,264 @@ public class Server {
     public static void setPacketSize(int packetSize) {
         Server.packetSize = packetSize;
     }
+
+    public static int getTimeout() {
+        return timeout;
+    }
+
+    public static void setTimeout(int timeout) {
+        Server.timeout = timeout;
+    }
+
+    public static TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public static void setTimerWheel(TimerWheel timerWheel) {
+        Server.timerWheel = timerWheel;
+    }
+
+    public static Pacer getPacer() {
+        return pacer;
+    }
+
+    public static void setPacer(Pacer pacer) {
+        Server.pacer = pacer;
+    }
+
+    public static int getMaxRate() {
+        return maxRate;
+    }
+
+    public static void setMaxRate(int maxRate) {
+        Server.maxRate = maxRate;
+    }
+
+    public static CongestionControl getCongestionControl() {
+        return congestionControl;
+    }
+
+    /**
+     * @param congestionControl the algorithm of new connections from clients without one of their own, existing connections keep theirs
+     */
+    public static void setCongestionControl(CongestionControl congestionControl) {
+        Server.congestionControl = congestionControl;
+    }
+
+    /**
+     * @param client a client address
+     * @return the congestion control algorithm new connections from the client run
+     */
+    public static CongestionControl getClientCongestionControl(InetAddress client) {
+        CongestionControl algorithm = clientCongestionControls.get(client);
+        return algorithm != null ? algorithm : congestionControl;
+    }
+
+    /**
+     * Chooses the congestion control of a client's connections, existing connections keep theirs
+     *
+     * @param client            a client address
+     * @param congestionControl the algorithm
+     */
+    public static void setClientCongestionControl(InetAddress client, CongestionControl congestionControl) {
+        clientCongestionControls.put(client, congestionControl);
+    }
+
+    public static boolean isDebug() {
+        return debug;
+    }
+
+    public static void setDebug(boolean debug) {
+        Server.debug = debug;
+    }
+
+    public static long getInitialMaxData() {
+        return initialMaxData;
+    }
+
+    public static void setInitialMaxData(long initialMaxData) {
+        Server.initialMaxData = initialMaxData;
+    }
+
+    public static long getInitialMaxStreamData() {
+        return initialMaxStreamData;
+    }
+
+    public static void setInitialMaxStreamData(long initialMaxStreamData) {
+        Server.initialMaxStreamData = initialMaxStreamData;
+    }
+
+    public static int getMaxDatagramSize() {
+        return maxDatagramSize;
+    }
+
+    public static void setMaxDatagramSize(int maxDatagramSize) {
+        Server.maxDatagramSize = maxDatagramSize;
+    }
+
+    public static int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public static void setDefaultWeight(int defaultWeight) {
+        Server.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * @param client a client address
+     * @return the egress share new connections from the client get
+     */
+    public static int getClientWeight(InetAddress client) {
+        Integer weight = clientWeights.get(client);
+        return weight != null ? weight : defaultWeight;
+    }
+
+    /**
+     * Gives the connections of a client a larger or smaller share of the egress, existing connections keep theirs
+     *
+     * @param client a client address
+     * @param weight the share relative to the default weight
+     */
+    public static void setClientWeight(InetAddress client, int weight) {
+        clientWeights.put(client, weight);
+    }
+
+    public static String getResourceDirectory() {
+        return resourceDirectory;
+    }
+
+    public static void setResourceDirectory(String resourceDirectory) {
+        Server.resourceDirectory = resourceDirectory;
+    }
+
+    public static int getIoThreads() {
+        return ioThreads;
+    }
+
+    public static void setIoThreads(int ioThreads) {
+        Server.ioThreads = ioThreads;
+    }
+
+    /**
+     * @return the pool loading files into the cache and the chunk store
+     */
+    public static ExecutorService getIoPool() {
+        return ioPool;
+    }
+
+    public static long getCacheSize() {
+        return cacheSize;
+    }
+
+    public static void setCacheSize(long cacheSize) {
+        Server.cacheSize = cacheSize;
+    }
+
+    /**
+     * @return the cache of requested files, null when caching is off
+     */
+    public static ContentCache getContentCache() {
+        return contentCache;
+    }
+
+    public static void setContentCache(ContentCache contentCache) {
+        Server.contentCache = contentCache;
+    }
+
+    public static int getFileHandleCacheSize() {
+        return fileHandleCacheSize;
+    }
+
+    public static void setFileHandleCacheSize(int fileHandleCacheSize) {
+        Server.fileHandleCacheSize = fileHandleCacheSize;
+    }
+
+    /**
+     * @return the cache of open files, null when it is off
+     */
+    public static FileHandleCache getFileHandleCache() {
+        return fileHandleCache;
+    }
+
+    public static void setFileHandleCache(FileHandleCache fileHandleCache) {
+        Server.fileHandleCache = fileHandleCache;
+    }
+
+    public static int getReadAheadChunks() {
+        return readAheadChunks;
+    }
+
+    public static void setReadAheadChunks(int readAheadChunks) {
+        Server.readAheadChunks = readAheadChunks;
+    }
+
+    public static int getReadAheadThreads() {
+        return readAheadThreads;
+    }
+
+    public static void setReadAheadThreads(int readAheadThreads) {
+        Server.readAheadThreads = readAheadThreads;
+    }
+
+    /**
+     * @return the read-ahead stage, null when it is off
+     */
+    public static ReadAhead getReadAhead() {
+        return readAhead;
+    }
+
+    public static void setReadAhead(ReadAhead readAhead) {
+        Server.readAhead = readAhead;
+    }
+
+    public static String getChunkStoreDirectory() {
+        return chunkStoreDirectory;
+    }
+
+    public static void setChunkStoreDirectory(String chunkStoreDirectory) {
+        Server.chunkStoreDirectory = chunkStoreDirectory;
+    }
+
+    public static int getChunkSize() {
+        return chunkSize;
+    }
+
+    public static void setChunkSize(int chunkSize) {
+        Server.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the store of pre-framed files, null when it is off
+     */
+    public static ChunkStore getChunkStore() {
+        return chunkStore;
+    }
+
+    public static void setChunkStore(ChunkStore chunkStore) {
+        Server.chunkStore = chunkStore;
+    }
+
+    public static int getMaxUdpPayloadSize() {
+        return maxUdpPayloadSize;
+    }
+
+    public static void setMaxUdpPayloadSize(int maxUdpPayloadSize) {
+        Server.maxUdpPayloadSize = maxUdpPayloadSize;
+    }
+
+    public static int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public static void setIdleTimeout(int idleTimeout) {
+        Server.idleTimeout = idleTimeout;
+    }
+
+    public static long getInitialMaxStreams() {
+        return initialMaxStreams;
+    }
+
+    public static void setInitialMaxStreams(long initialMaxStreams) {
+        Server.initialMaxStreams = initialMaxStreams;
+    }
 }
@@ -0,0 +1,34 @@
+package quic.app.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Where the data of a stream sent by the server comes from. It stays open until every byte
+ * of the stream was acknowledged, lost data is read from it again.
+ */
+public interface StreamDataSource extends Closeable {
+    /**
+     * @return the number of bytes in the stream
+     */
+    long size() throws IOException;
+
+    /**
+     * @param offset the stream offset of the first byte
+     * @param length the number of bytes, all of them must lie within the stream
+     * @return a read-only buffer holding exactly the bytes, it may share memory with the source
+     */
+    ByteBuffer slice(long offset, int length) throws IOException;
+
+    /**
+     * Brings data into memory ahead of its first {@link #slice(long, int)}, so the sender does
+     * not wait for the disk. Called from the {@link ReadAhead} threads. Sources which hold
+     * their data in memory do nothing.
+     *
+     * @param offset the stream offset of the first byte
+     * @param length the number of bytes, all of them must lie within the stream
+     */
+    default void prefetch(long offset, int length) throws IOException {
+    }
+}
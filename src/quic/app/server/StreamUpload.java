@@ -0,0 +1,118 @@
+package quic.app.server;
+
+import quic.app.transport.StreamPriority;
+import quic.serialization.frame.QuicStreamFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A file being sent on a stream, advanced one packet at a time by the {@link FileUploader}.
+ * It never blocks: when the congestion window or the peer's limits hold the stream back it
+ * returns and the uploader moves on to another stream. Not thread safe, created on the
+ * uploader's opener pool and from then on used by the scheduler thread only.
+ */
+public class StreamUpload {
+    private Connection connection;
+    private long streamId;
+    private StreamPriority priority;
+    private StreamDataSource source;
+    private ReadAhead.Cursor cursor;
+    private long offset = 0;
+    private long size;
+
+    /**
+     * @param connection the connection to send on
+     * @param streamId   the stream
+     * @param priority   the priority the client asked for
+     * @param source     the data, already registered with the connection
+     */
+    public StreamUpload(Connection connection, long streamId, StreamPriority priority, StreamDataSource source) throws IOException {
+        this.connection = connection;
+        this.streamId = streamId;
+        this.priority = priority;
+        this.source = source;
+        this.size = source.size();
+        ReadAhead readAhead = Server.getReadAhead();
+        this.cursor = readAhead != null ? readAhead.open(source) : null;
+    }
+
+    /**
+     * Sends the next packet of the stream if the connection lets it
+     *
+     * @return false if nothing was sent because the stream is held back
+     * @throws IOException if the connection is closed
+     */
+    public boolean sendNext() throws IOException, InterruptedException {
+        if (cursor != null) {
+            cursor.advance(offset);        // the disk works while the stream waits for the window
+        }
+        if (!connection.isSendWindowOpen()) {
+            return false;
+        }
+        int room = connection.getStreamRoom(streamId, offset);
+        if (room == 0) {
+            connection.flushPendingFrames();        // queued frames fill a whole packet
+            return true;
+        }
+        int wanted = (int) Math.min(size - offset, room);
+        boolean whole = false;
+        if (source instanceof ChunkStore.PreframedSource) {
+            ChunkStore.PreframedSource chunks = (ChunkStore.PreframedSource) source;
+            int chunk = chunks.getChunkRemaining(offset);
+            whole = offset % chunks.getChunkSize() == 0
+                    && connection.getFrameRoom() >= PreframedStreamFrame.encodedLength(chunk);
+            wanted = whole ? chunk : Math.min(wanted, chunk);      // partial frames stop at the chunk end
+        }
+        int length = connection.tryAcquireSendCredit(streamId, wanted);
+        if (length == 0) {
+            return false;
+        }
+        if (whole && length == wanted) {
+            connection.sendStreamFrame(((ChunkStore.PreframedSource) source).frame(streamId, offset));
+        } else {
+            ByteBuffer data = source.slice(offset, length);      // a view of the mapped file, copied only into the datagram
+            connection.sendStreamFrame(new QuicStreamFrame(streamId, offset, offset + length == size, data));
+        }
+        offset += length;
+        return true;
+    }
+
+    /**
+     * @return true once every byte was sent
+     */
+    public boolean isDone() {
+        return offset >= size;
+    }
+
+    /**
+     * Tells the connection the stream has nothing more to send, it keeps the source until the
+     * data is acknowledged
+     */
+    public void finish() {
+        connection.onStreamFinished(streamId);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public StreamPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return the stream data sent so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
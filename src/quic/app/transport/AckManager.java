@@ -0,0 +1,158 @@
+package quic.app.transport;
+
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicAckFrequencyFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the packets received on a connection are acknowledged, following RFC 9000
+ * section 13.2 and the ACK_FREQUENCY extension. An ACK goes out once the ack-eliciting
+ * threshold is reached, when packets arrive out of order, or at the latest max_ack_delay after
+ * the first unacknowledged ack-eliciting packet. ACKs report the time the largest packet waited.
+ * All times are in nanoseconds. Not thread safe, the owner guards every access.
+ */
+public class AckManager {
+    /**
+     * Ack-eliciting packets received before an ACK is sent, RFC 9000 section 13.2.2
+     */
+    public static final int DEFAULT_ACK_ELICITING_THRESHOLD = 2;
+    /**
+     * Packets missing below a new packet which make the receiver acknowledge at once
+     */
+    public static final int DEFAULT_REORDERING_THRESHOLD = 1;
+    /**
+     * Most ranges of received packets reported in one ACK frame
+     */
+    public static final int MAX_ACK_RANGES = 32;
+
+    private ReceivedPacketTracker receivedPackets = new ReceivedPacketTracker();
+    private long largestReceived = -1;
+    private long largestReceivedTime = 0;
+    private int ackElicitingUnacked = 0;
+    private long ackDeadline = 0;
+    private boolean ackNow = false;
+    private long maxAckDelay;
+    private int ackDelayExponent;
+    private long minAckDelay;
+    private long ackElicitingThreshold = DEFAULT_ACK_ELICITING_THRESHOLD;
+    private long reorderingThreshold = DEFAULT_REORDERING_THRESHOLD;
+    private long ackFrequencySequence = -1;
+
+    /**
+     * @param maxAckDelay      the longest an acknowledgement may be delayed, as announced in the transport parameters
+     * @param ackDelayExponent the exponent applied to the ack delay in ACK frames
+     * @param minAckDelay      the shortest delay an ACK_FREQUENCY frame may request
+     */
+    public AckManager(long maxAckDelay, int ackDelayExponent, long minAckDelay) {
+        this.maxAckDelay = maxAckDelay;
+        this.ackDelayExponent = ackDelayExponent;
+        this.minAckDelay = minAckDelay;
+    }
+
+    /**
+     * Records a received packet
+     *
+     * @param packetNumber the packet number
+     * @param ackEliciting true if the packet carries frames other than ACK, PADDING and CONNECTION_CLOSE
+     * @param now          the time the packet was received
+     * @return false if the packet was received before, its frames must not be processed again
+     */
+    public boolean onPacketReceived(long packetNumber, boolean ackEliciting, long now) {
+        if (!receivedPackets.add(packetNumber)) {
+            if (ackEliciting) {
+                ackNow = true;      // the peer sent it again, so it probably missed the ACK
+            }
+            return false;
+        }
+        boolean outOfOrder = reorderingThreshold > 0 && largestReceived >= 0
+                && (packetNumber < largestReceived || packetNumber > largestReceived + reorderingThreshold);
+        if (packetNumber > largestReceived) {
+            largestReceived = packetNumber;
+            largestReceivedTime = now;
+        }
+        if (!ackEliciting) {
+            return true;
+        }
+        ackElicitingUnacked++;
+        if (ackElicitingUnacked >= ackElicitingThreshold || outOfOrder) {
+            ackNow = true;
+        } else if (ackDeadline == 0) {
+            ackDeadline = now + maxAckDelay;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if an ACK must be sent right away
+     */
+    public boolean shouldAckNow() {
+        return ackNow;
+    }
+
+    /**
+     * @return the latest time the pending ACK may be sent, 0 when no ACK is pending
+     */
+    public long getAckDeadline() {
+        return ackNow ? 0 : ackDeadline;
+    }
+
+    /**
+     * @return true if ack-eliciting packets wait for an acknowledgement
+     */
+    public boolean hasPendingAck() {
+        return ackElicitingUnacked > 0 || ackNow;
+    }
+
+    /**
+     * Builds an ACK frame of all remembered ranges and clears the pending acknowledgement
+     *
+     * @param now the time the frame is sent
+     * @return the ACK frame, or null if nothing was received yet
+     */
+    public QuicAckFrame buildAck(long now) {
+        if (largestReceived < 0) {
+            return null;
+        }
+        long delay = TimeUnit.NANOSECONDS.toMicros(Math.max(0, now - largestReceivedTime)) >> ackDelayExponent;
+        List<long[]> ranges = receivedPackets.getRanges(MAX_ACK_RANGES);
+        List<Long> gaps = new ArrayList<>();
+        List<Long> ackRanges = new ArrayList<>();
+        long[] first = ranges.get(0);
+        long smallest = first[0];
+        for (long[] range : ranges.subList(1, ranges.size())) {
+            gaps.add(smallest - range[1] - 2);
+            ackRanges.add(range[1] - range[0]);
+            smallest = range[0];
+        }
+        ackElicitingUnacked = 0;
+        ackDeadline = 0;
+        ackNow = false;
+        return new QuicAckFrame(first[1], delay, first[1] - first[0], gaps, ackRanges);
+    }
+
+    /**
+     * Applies an ACK_FREQUENCY frame from the peer, unless a newer one was applied already
+     *
+     * @param frame the received frame
+     */
+    public void onAckFrequency(QuicAckFrequencyFrame frame) {
+        if (frame.getSequenceNumber() <= ackFrequencySequence) {
+            return;
+        }
+        ackFrequencySequence = frame.getSequenceNumber();
+        ackElicitingThreshold = Math.max(1, frame.getAckElicitingThreshold());
+        maxAckDelay = Math.max(minAckDelay, TimeUnit.MICROSECONDS.toNanos(frame.getRequestMaxAckDelay()));
+        reorderingThreshold = frame.getReorderingThreshold();
+    }
+
+    public long getMaxAckDelay() {
+        return maxAckDelay;
+    }
+
+    public long getAckElicitingThreshold() {
+        return ackElicitingThreshold;
+    }
+}
@@ -0,0 +1,210 @@
+package quic.app.transport;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model based congestion control in the style of BBR. Instead of reacting to loss it estimates
+ * the bottleneck bandwidth (the largest delivery rate of the last rounds) and the minimum round
+ * trip time, and keeps about two bandwidth-delay products in flight. The state machine follows
+ * BBR v1: STARTUP doubles the rate each round until the bandwidth stops growing, DRAIN removes
+ * the queue built meanwhile, PROBE_BW cycles the gain around 1 and PROBE_RTT periodically shrinks
+ * the window to refresh the minimum round trip time.
+ */
+public class BbrCongestionController implements CongestionController {
+    public static final double STARTUP_GAIN = 2.885;
+    public static final double CWND_GAIN = 2.0;
+    public static final double[] PROBE_BW_GAINS = {1.25, 0.75, 1, 1, 1, 1, 1, 1};
+    /**
+     * Number of rounds the bandwidth filter remembers
+     */
+    public static final int BANDWIDTH_WINDOW_ROUNDS = 10;
+    public static final long MIN_RTT_WINDOW = TimeUnit.SECONDS.toNanos(10);
+    public static final long PROBE_RTT_DURATION = TimeUnit.MILLISECONDS.toNanos(200);
+
+    enum State {STARTUP, DRAIN, PROBE_BW, PROBE_RTT}
+
+    private int maxDatagramSize;
+    private State state = State.STARTUP;
+    private double pacingGain = STARTUP_GAIN;
+    private double cwndGain = STARTUP_GAIN;
+    private long congestionWindow;
+
+    /**
+     * Delivery rate samples in bytes per second, one slot per round
+     */
+    private double[] bandwidthSamples = new double[BANDWIDTH_WINDOW_ROUNDS];
+    private long roundCount = 0;
+    private long roundEndPacketNumber = -1;
+    private long lastSentPacketNumber = -1;
+    private long deliveredBytes = 0;
+    private long roundStartDelivered = 0;
+    private long roundStartTime = 0;
+
+    private double fullBandwidth = 0;
+    private int fullBandwidthRounds = 0;
+    private int cycleIndex = 0;
+    private long cycleStart = 0;
+    private long minRtt = Long.MAX_VALUE;
+    private long minRttStamp = 0;
+    private long probeRttDone = 0;
+
+    public BbrCongestionController(int maxDatagramSize) {
+        this.maxDatagramSize = maxDatagramSize;
+        this.congestionWindow = Math.min(10L * maxDatagramSize, Math.max(14720L, 2L * maxDatagramSize));
+    }
+
+    @Override
+    public void setMaxDatagramSize(int maxDatagramSize) {
+        this.maxDatagramSize = maxDatagramSize;
+        congestionWindow = Math.max(congestionWindow, 4L * maxDatagramSize);
+    }
+
+    @Override
+    public void onPacketSent(SentPacket packet, long bytesInFlight) {
+        lastSentPacketNumber = packet.getPacketNumber();
+        if (roundStartTime == 0) {
+            roundStartTime = packet.getTimeSent();
+        }
+    }
+
+    @Override
+    public void onPacketsAcked(List<SentPacket> acked, RttEstimator rttEstimator, long bytesInFlight, long now) {
+        long largestAcked = -1;
+        for (SentPacket packet : acked) {
+            deliveredBytes += packet.getSize();
+            largestAcked = packet.getPacketNumber();
+        }
+        if (largestAcked > roundEndPacketNumber) {     // every packet of the previous round is acknowledged
+            endRound(now);
+            roundEndPacketNumber = lastSentPacketNumber;
+        }
+        updateMinRtt(rttEstimator.getLatestRtt(), now);
+        updateState(bytesInFlight, now);
+        long target = (long) (cwndGain * getBandwidthDelayProduct());
+        if (state == State.PROBE_RTT) {
+            target = 4L * maxDatagramSize;
+        }
+        congestionWindow = Math.max(target, 4L * maxDatagramSize);
+    }
+
+    @Override
+    public void onPacketsLost(List<SentPacket> lost, long now) {
+        // the model does not treat loss as a congestion signal, the bandwidth samples carry the reduction
+    }
+
+    private void endRound(long now) {
+        if (roundStartTime != 0 && now > roundStartTime) {
+            double sample = (double) (deliveredBytes - roundStartDelivered) * TimeUnit.SECONDS.toNanos(1) / (now - roundStartTime);
+            bandwidthSamples[(int) (roundCount % BANDWIDTH_WINDOW_ROUNDS)] = sample;
+        }
+        roundCount++;
+        bandwidthSamples[(int) (roundCount % BANDWIDTH_WINDOW_ROUNDS)] = 0;     // forget the sample that fell out of the window
+        roundStartDelivered = deliveredBytes;
+        roundStartTime = now;
+        if (state == State.STARTUP) {
+            double bandwidth = getBandwidth();
+            if (bandwidth >= fullBandwidth * 1.25) {
+                fullBandwidth = bandwidth;
+                fullBandwidthRounds = 0;
+            } else if (++fullBandwidthRounds >= 3) {    // three rounds without 25% growth, the pipe is full
+                state = State.DRAIN;
+                pacingGain = 1 / STARTUP_GAIN;
+                cwndGain = STARTUP_GAIN;
+            }
+        }
+    }
+
+    private void updateMinRtt(long latestRtt, long now) {
+        if (latestRtt <= minRtt || now - minRttStamp > MIN_RTT_WINDOW) {
+            if (latestRtt > minRtt && state != State.PROBE_RTT) {   // the minimum expired, go and measure it again
+                state = State.PROBE_RTT;
+                pacingGain = 1;
+                cwndGain = 1;
+                probeRttDone = now + PROBE_RTT_DURATION;
+            }
+            minRtt = latestRtt;
+            minRttStamp = now;
+        }
+    }
+
+    private void updateState(long bytesInFlight, long now) {
+        switch (state) {
+            case DRAIN:
+                if (bytesInFlight <= getBandwidthDelayProduct()) {
+                    enterProbeBandwidth(now);
+                }
+                break;
+            case PROBE_BW:
+                if (now - cycleStart > minRtt) {
+                    cycleIndex = (cycleIndex + 1) % PROBE_BW_GAINS.length;
+                    cycleStart = now;
+                    pacingGain = PROBE_BW_GAINS[cycleIndex];
+                }
+                break;
+            case PROBE_RTT:
+                if (now >= probeRttDone) {
+                    if (fullBandwidth == 0) {
+                        state = State.STARTUP;
+                        pacingGain = STARTUP_GAIN;
+                        cwndGain = STARTUP_GAIN;
+                    } else {
+                        enterProbeBandwidth(now);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void enterProbeBandwidth(long now) {
+        state = State.PROBE_BW;
+        cwndGain = CWND_GAIN;
+        cycleIndex = 1;          // start right after the probing phase
+        cycleStart = now;
+        pacingGain = PROBE_BW_GAINS[cycleIndex];
+    }
+
+    /**
+     * @return the bottleneck bandwidth estimate in bytes per second
+     */
+    public double getBandwidth() {
+        double max = 0;
+        for (double sample : bandwidthSamples) {
+            max = Math.max(max, sample);
+        }
+        return max;
+    }
+
+    private long getBandwidthDelayProduct() {
+        double bandwidth = getBandwidth();
+        if (bandwidth == 0 || minRtt == Long.MAX_VALUE) {
+            return Math.min(10L * maxDatagramSize, Math.max(14720L, 2L * maxDatagramSize));
+        }
+        return (long) (bandwidth * minRtt / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public double getPacingRate(RttEstimator rttEstimator) {
+        double bandwidth = getBandwidth();
+        if (bandwidth == 0) {      // no delivery rate sample yet
+            return pacingGain * congestionWindow * TimeUnit.SECONDS.toNanos(1) / Math.max(rttEstimator.getSmoothedRtt(), 1);
+        }
+        return pacingGain * bandwidth;
+    }
+
+    public double getPacingGain() {
+        return pacingGain;
+    }
+
+    @Override
+    public long getCongestionWindow() {
+        return congestionWindow;
+    }
+
+    @Override
+    public String toString() {
+        return "BbrCongestionController{state=" + state + ", bandwidth=" + (long) getBandwidth() + ", minRtt=" + minRtt + ", congestionWindow=" + congestionWindow + "}";
+    }
+}
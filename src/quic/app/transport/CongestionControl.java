@@ -0,0 +1,25 @@
+package quic.app.transport;
+
+/**
+ * The built-in congestion control algorithms.
+ */
+public enum CongestionControl {
+    NEW_RENO,
+    CUBIC,
+    BBR;
+
+    /**
+     * @param maxDatagramSize the largest datagram the connection sends
+     * @return a controller running this algorithm
+     */
+    public CongestionController create(int maxDatagramSize) {
+        switch (this) {
+            case CUBIC:
+                return new CubicCongestionController(maxDatagramSize);
+            case BBR:
+                return new BbrCongestionController(maxDatagramSize);
+            default:
+                return new NewRenoCongestionController(maxDatagramSize);
+        }
+    }
+}
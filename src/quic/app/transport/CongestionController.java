@@ -0,0 +1,50 @@
+package quic.app.transport;
+
+import java.util.List;
+
+/**
+ * Congestion control algorithm of a connection. The loss recovery of the connection reports
+ * every sent, acknowledged and lost packet, the sender only transmits while the bytes in
+ * flight are below the congestion window. Implementations are not thread safe, the owning
+ * connection guards every access.
+ */
+public interface CongestionController {
+    /**
+     * @param packet the packet which has just been sent
+     * @param bytesInFlight bytes in flight including this packet
+     */
+    void onPacketSent(SentPacket packet, long bytesInFlight);
+
+    /**
+     * @param acked         the newly acknowledged packets in ascending packet number order
+     * @param rttEstimator  round trip estimation, already updated with the sample from this ACK
+     * @param bytesInFlight bytes still in flight after removing the acknowledged packets
+     * @param now           the time the acknowledgement was received
+     */
+    void onPacketsAcked(List<SentPacket> acked, RttEstimator rttEstimator, long bytesInFlight, long now);
+
+    /**
+     * @param lost the packets declared lost in ascending packet number order
+     * @param now  the time the loss was detected
+     */
+    void onPacketsLost(List<SentPacket> lost, long now);
+
+    /**
+     * @return the congestion window in bytes
+     */
+    long getCongestionWindow();
+
+    /**
+     * @param rttEstimator round trip estimation of the connection
+     * @return the rate in bytes per second at which the pacer should release packets
+     */
+    double getPacingRate(RttEstimator rttEstimator);
+
+    /**
+     * Called when path MTU discovery changes the datagram size, limits counted in datagrams
+     * scale with it
+     *
+     * @param maxDatagramSize the largest datagram the connection sends from now on
+     */
+    void setMaxDatagramSize(int maxDatagramSize);
+}
@@ -0,0 +1,69 @@
+package quic.app.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CUBIC congestion control as described in RFC 9438. The window grows along a cubic function of
+ * the time since the last reduction, centred on the window where the loss happened, which lets
+ * long fat paths recover their window much faster than NewReno's one datagram per round trip.
+ */
+public class CubicCongestionController extends NewRenoCongestionController {
+    public static final double BETA = 0.7;
+    public static final double C = 0.4;
+
+    /**
+     * Window before the last reduction, in bytes
+     */
+    private double windowMax = 0;
+    /**
+     * Start of the current congestion avoidance epoch, 0 when a new epoch has to begin
+     */
+    private long epochStart = 0;
+    /**
+     * Time in seconds the cubic function takes to grow back to windowMax
+     */
+    private double k = 0;
+    /**
+     * The window a Reno flow would have, CUBIC never grows slower than that
+     */
+    private double renoWindow = 0;
+
+    public CubicCongestionController(int maxDatagramSize) {
+        super(maxDatagramSize);
+    }
+
+    @Override
+    protected void increaseWindow(int ackedBytes, RttEstimator rttEstimator, long now) {
+        if (epochStart == 0) {
+            epochStart = now;
+            if (congestionWindow < windowMax) {
+                k = Math.cbrt((windowMax - congestionWindow) / maxDatagramSize / C);
+            } else {
+                k = 0;
+                windowMax = congestionWindow;
+            }
+            renoWindow = congestionWindow;
+        }
+        double t = (double) (now - epochStart + rttEstimator.getSmoothedRtt()) / TimeUnit.SECONDS.toNanos(1);
+        double target = windowMax + C * Math.pow(t - k, 3) * maxDatagramSize;
+        target = Math.max(congestionWindow, Math.min(target, 1.5 * congestionWindow));
+        renoWindow += maxDatagramSize * (3 * (1 - BETA) / (1 + BETA)) * ackedBytes / congestionWindow;
+        if (renoWindow > target) {
+            congestionWindow = (long) renoWindow;
+        } else {
+            congestionWindow += (long) ((target - congestionWindow) * ackedBytes / congestionWindow);
+        }
+    }
+
+    @Override
+    protected void onCongestionEvent(long now) {
+        if (congestionWindow < windowMax) {      // fast convergence, release bandwidth to newer flows
+            windowMax = congestionWindow * (1 + BETA) / 2;
+        } else {
+            windowMax = congestionWindow;
+        }
+        ssthresh = Math.max((long) (congestionWindow * BETA), getMinimumWindow());
+        congestionWindow = ssthresh;
+        epochStart = 0;
+    }
+}
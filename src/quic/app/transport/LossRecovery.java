@@ -0,0 +1,205 @@
+package quic.app.transport;
+
+import quic.serialization.frame.QuicAckFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loss detection and probe timeouts for one packet number space of a connection, following
+ * RFC 9002 sections 6 and A. All times are in nanoseconds. Not thread safe, the owning
+ * connection guards every access.
+ */
+public class LossRecovery {
+    /**
+     * Packets this far below the largest acknowledged one are considered lost
+     */
+    public static final int PACKET_THRESHOLD = 3;
+    /**
+     * Maximum reordering in time, as a multiple of 1/8 of the round trip time
+     */
+    public static final int TIME_THRESHOLD_EIGHTHS = 9;
+    public static final long DEFAULT_MAX_ACK_DELAY = TimeUnit.MILLISECONDS.toNanos(25);
+    public static final int DEFAULT_ACK_DELAY_EXPONENT = 3;
+    /**
+     * Number of in flight packets whose data is sent again when the probe timer fires
+     */
+    public static final int MAX_PROBE_PACKETS = 2;
+
+    private SentPacketTable sentPackets = new SentPacketTable();
+    private RttEstimator rttEstimator;
+    private long maxAckDelay = DEFAULT_MAX_ACK_DELAY;
+    private int ackDelayExponent = DEFAULT_ACK_DELAY_EXPONENT;
+    private long lossTime = 0;
+    private long timeOfLastAckElicitingPacket = 0;
+    private int ptoCount = 0;
+    private long bytesInFlight = 0;
+    private CongestionController congestionController;
+
+    /**
+     * @param initialRtt           the round trip time assumed before the first sample
+     * @param congestionController the congestion controller fed with the sent, acked and lost packets
+     */
+    public LossRecovery(long initialRtt, CongestionController congestionController) {
+        this.rttEstimator = new RttEstimator(initialRtt);
+        this.congestionController = congestionController;
+    }
+
+    public void onPacketSent(SentPacket packet) {
+        sentPackets.add(packet);
+        if (packet.isAckEliciting()) {
+            timeOfLastAckElicitingPacket = packet.getTimeSent();
+        }
+        bytesInFlight += packet.getSize();
+        congestionController.onPacketSent(packet, bytesInFlight);
+    }
+
+    /**
+     * Processes an ACK frame: releases the acknowledged packets, takes an RTT sample and
+     * declares earlier packets lost when they fall behind the packet or time threshold
+     *
+     * @param ack the received ACK frame
+     * @param now the time the frame was received
+     * @return the packets declared lost, whose data must be sent again
+     */
+    public List<SentPacket> onAckReceived(QuicAckFrame ack, long now) {
+        return onAckReceived(ack, now, new ArrayList<SentPacket>());
+    }
+
+    /**
+     * @param ack   the received ACK frame
+     * @param now   the time the frame was received
+     * @param acked receives the packets newly acknowledged by the frame
+     * @return the packets declared lost, whose data must be sent again
+     */
+    public List<SentPacket> onAckReceived(QuicAckFrame ack, long now, List<SentPacket> acked) {
+        acked.addAll(sentPackets.onAck(ack));
+        if (acked.isEmpty()) {
+            return new ArrayList<>();
+        }
+        SentPacket largest = acked.get(acked.size() - 1);
+        if (largest.getPacketNumber() == ack.getLargestAck()) {   // only the largest acknowledged packet gives a usable sample
+            long ackDelay = TimeUnit.MICROSECONDS.toNanos(ack.getDelay() << ackDelayExponent);
+            rttEstimator.update(now - largest.getTimeSent(), ackDelay, maxAckDelay);
+        }
+        ptoCount = 0;
+        for (SentPacket packet : acked) {
+            bytesInFlight -= packet.getSize();
+        }
+        List<SentPacket> lost = detectLostPackets(now);
+        congestionController.onPacketsAcked(acked, rttEstimator, bytesInFlight, now);
+        return lost;
+    }
+
+    /**
+     * Called when the deadline from {@link #getLossDetectionDeadline()} passes
+     *
+     * @param now the current time
+     * @return the packets whose data must be sent again, either lost packets or probes
+     */
+    public List<SentPacket> onLossDetectionTimeout(long now) {
+        if (lossTime != 0 && now >= lossTime) {
+            return detectLostPackets(now);
+        }
+        List<SentPacket> probes = new ArrayList<>();
+        for (long pn = sentPackets.getSmallest(); pn >= 0 && probes.size() < MAX_PROBE_PACKETS; pn = sentPackets.next(pn)) {
+            probes.add(sentPackets.get(pn));       // the oldest data is the most likely to be holding the peer up
+        }
+        ptoCount++;
+        return probes;
+    }
+
+    private List<SentPacket> detectLostPackets(long now) {
+        List<SentPacket> lost = new ArrayList<>();
+        lossTime = 0;
+        long largestAcked = sentPackets.getLargestAcked();
+        long lossDelay = Math.max(rttEstimator.getLatestRtt(), rttEstimator.getSmoothedRtt()) * TIME_THRESHOLD_EIGHTHS / 8;
+        lossDelay = Math.max(lossDelay, RttEstimator.GRANULARITY);
+        long lostSendTime = now - lossDelay;
+        for (long pn = sentPackets.getSmallest(); pn >= 0 && pn <= largestAcked; pn = sentPackets.next(pn)) {
+            long timeSent = sentPackets.getTimeSent(pn);
+            if (timeSent <= lostSendTime || largestAcked >= pn + PACKET_THRESHOLD) {
+                SentPacket packet = sentPackets.remove(pn);
+                bytesInFlight -= packet.getSize();
+                lost.add(packet);
+            } else if (lossTime == 0 || timeSent + lossDelay < lossTime) {
+                lossTime = timeSent + lossDelay;
+            }
+        }
+        List<SentPacket> congestionLost = new ArrayList<>();
+        for (SentPacket packet : lost) {
+            if (!packet.isPmtuProbe()) {        // a lost probe only means the path is too narrow for it
+                congestionLost.add(packet);
+            }
+        }
+        if (!congestionLost.isEmpty()) {
+            congestionController.onPacketsLost(congestionLost, now);
+        }
+        return lost;
+    }
+
+    /**
+     * @return the time the loss detection timer should fire, or 0 when nothing is in flight
+     */
+    public long getLossDetectionDeadline() {
+        if (lossTime != 0) {
+            return lossTime;
+        }
+        if (sentPackets.isEmpty()) {
+            return 0;
+        }
+        return timeOfLastAckElicitingPacket + (rttEstimator.getPtoDuration(maxAckDelay) << Math.min(ptoCount, 16));
+    }
+
+    /**
+     * @param packetNumber a sent packet
+     * @return true if the packet is neither acknowledged nor declared lost yet
+     */
+    public boolean isInFlight(long packetNumber) {
+        return sentPackets.contains(packetNumber);
+    }
+
+    public int getPacketsInFlight() {
+        return sentPackets.size();
+    }
+
+    public long getBytesInFlight() {
+        return bytesInFlight;
+    }
+
+    /**
+     * @return true when the congestion window has room for another packet
+     */
+    public boolean canSend() {
+        return bytesInFlight < congestionController.getCongestionWindow();
+    }
+
+    public CongestionController getCongestionController() {
+        return congestionController;
+    }
+
+    public int getPtoCount() {
+        return ptoCount;
+    }
+
+    public RttEstimator getRttEstimator() {
+        return rttEstimator;
+    }
+
+    public long getMaxAckDelay() {
+        return maxAckDelay;
+    }
+
+    public void setMaxAckDelay(long maxAckDelay) {
+        this.maxAckDelay = maxAckDelay;
+    }
+
+    public int getAckDelayExponent() {
+        return ackDelayExponent;
+    }
+
+    public void setAckDelayExponent(int ackDelayExponent) {
+        this.ackDelayExponent = ackDelayExponent;
+    }
+}
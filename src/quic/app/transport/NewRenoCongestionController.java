@@ -0,0 +1,107 @@
+package quic.app.transport;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NewReno congestion control as described in RFC 9002 section 7: slow start, additive increase
+ * of one datagram per congestion window, and halving the window once per recovery period.
+ */
+public class NewRenoCongestionController implements CongestionController {
+    public static final double LOSS_REDUCTION_FACTOR = 0.5;
+    /**
+     * Pacing runs slightly faster than one window per round trip so the window is not under-used
+     */
+    public static final double PACING_GAIN = 1.25;
+
+    protected int maxDatagramSize;
+    protected long congestionWindow;
+    protected long ssthresh = Long.MAX_VALUE;
+    /**
+     * Packets sent before this time belong to the current recovery period, 0 when not recovering
+     */
+    protected long recoveryStartTime = 0;
+
+    public NewRenoCongestionController(int maxDatagramSize) {
+        this.maxDatagramSize = maxDatagramSize;
+        this.congestionWindow = getInitialWindow();
+    }
+
+    protected long getInitialWindow() {
+        return Math.min(10L * maxDatagramSize, Math.max(14720L, 2L * maxDatagramSize));
+    }
+
+    protected long getMinimumWindow() {
+        return 2L * maxDatagramSize;
+    }
+
+    @Override
+    public void onPacketSent(SentPacket packet, long bytesInFlight) {
+    }
+
+    @Override
+    public void setMaxDatagramSize(int maxDatagramSize) {
+        this.maxDatagramSize = maxDatagramSize;
+        congestionWindow = Math.max(congestionWindow, getMinimumWindow());
+    }
+
+    @Override
+    public void onPacketsAcked(List<SentPacket> acked, RttEstimator rttEstimator, long bytesInFlight, long now) {
+        for (SentPacket packet : acked) {
+            if (packet.getTimeSent() <= recoveryStartTime) {     // acknowledgements from before the loss do not grow the window
+                continue;
+            }
+            if (congestionWindow < ssthresh) {
+                congestionWindow += packet.getSize();
+            } else {
+                increaseWindow(packet.getSize(), rttEstimator, now);
+            }
+        }
+    }
+
+    /**
+     * Congestion avoidance growth for one acknowledged packet
+     *
+     * @param ackedBytes   size of the acknowledged packet
+     * @param rttEstimator round trip estimation of the connection
+     * @param now          the time the acknowledgement was received
+     */
+    protected void increaseWindow(int ackedBytes, RttEstimator rttEstimator, long now) {
+        congestionWindow += (long) maxDatagramSize * ackedBytes / congestionWindow;
+    }
+
+    @Override
+    public void onPacketsLost(List<SentPacket> lost, long now) {
+        SentPacket last = lost.get(lost.size() - 1);
+        if (last.getTimeSent() <= recoveryStartTime) {    // one reduction per round trip
+            return;
+        }
+        recoveryStartTime = now;
+        onCongestionEvent(now);
+    }
+
+    /**
+     * Reduces the window when a new recovery period starts
+     *
+     * @param now the time the loss was detected
+     */
+    protected void onCongestionEvent(long now) {
+        ssthresh = Math.max((long) (congestionWindow * LOSS_REDUCTION_FACTOR), getMinimumWindow());
+        congestionWindow = ssthresh;
+    }
+
+    @Override
+    public long getCongestionWindow() {
+        return congestionWindow;
+    }
+
+    @Override
+    public double getPacingRate(RttEstimator rttEstimator) {
+        return PACING_GAIN * congestionWindow * TimeUnit.SECONDS.toNanos(1) / Math.max(rttEstimator.getSmoothedRtt(), 1);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{congestionWindow=" + congestionWindow + ", ssthresh=" + ssthresh + "}";
+    }
+}
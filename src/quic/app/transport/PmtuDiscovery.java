@@ -0,0 +1,152 @@
+package quic.app.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path MTU discovery for one connection in the style of DPLPMTUD (RFC 8899). Probe packets
+ * are padded to the size being tested; an acknowledged probe raises the datagram size, a size
+ * whose probe is lost {@link #MAX_PROBES} times in a row is taken as too large. The largest
+ * allowed size is tried first, then the gap between the largest working and the smallest
+ * failing size is halved until it is narrower than {@link #SEARCH_GRANULARITY}. All sizes are
+ * whole UDP payloads and all times are in nanoseconds. Not thread safe, the owning connection
+ * guards every access.
+ */
+public class PmtuDiscovery {
+    /**
+     * Probes of one size which must all be lost before the size counts as too large
+     */
+    public static final int MAX_PROBES = 3;
+    /**
+     * The search stops when the working and failing sizes are this close
+     */
+    public static final int SEARCH_GRANULARITY = 32;
+    /**
+     * Time after a finished search before larger sizes are probed again, the path may have changed
+     */
+    public static final long RAISE_INTERVAL = TimeUnit.SECONDS.toNanos(600);
+    /**
+     * Consecutive probe timeouts after which the discovered size is suspected to be black-holed
+     */
+    public static final int BLACK_HOLE_PTO_COUNT = 3;
+
+    private int baseSize;
+    private int maxSize;
+    private int currentSize;
+    private int searchLow;          // largest size known to work
+    private int searchHigh;         // smallest size known not to work, maxSize + 1 while the maximum is untested
+    private int probeSize = 0;      // size of the probe in flight, 0 for none
+    private long probePacketNumber = -1;
+    private int probeCount = 0;
+    private long searchDoneTime = -1;
+
+    /**
+     * @param baseSize the datagram size the connection starts with, assumed to work on any path
+     * @param maxSize  the largest datagram size allowed on this connection
+     */
+    public PmtuDiscovery(int baseSize, int maxSize) {
+        this.baseSize = baseSize;
+        this.maxSize = Math.max(baseSize, maxSize);
+        this.currentSize = baseSize;
+        this.searchLow = baseSize;
+        this.searchHigh = this.maxSize + 1;
+    }
+
+    /**
+     * @param now the current time
+     * @return the size of the next probe to send, or 0 when a probe is in flight or the search is done
+     */
+    public int nextProbeSize(long now) {
+        if (probeSize != 0) {
+            return 0;
+        }
+        if (searchDoneTime >= 0) {
+            if (now - searchDoneTime < RAISE_INTERVAL || searchLow >= maxSize) {
+                return 0;
+            }
+            searchHigh = maxSize + 1;
+            searchDoneTime = -1;
+        }
+        if (searchHigh - searchLow <= SEARCH_GRANULARITY) {
+            searchDoneTime = now;
+            return 0;
+        }
+        return searchHigh > maxSize ? maxSize : (searchLow + searchHigh) / 2;
+    }
+
+    /**
+     * @param packetNumber the packet number of the probe
+     * @param size         the size returned by {@link #nextProbeSize(long)}
+     */
+    public void onProbeSent(long packetNumber, int size) {
+        probePacketNumber = packetNumber;
+        probeSize = size;
+    }
+
+    /**
+     * @param packetNumber a packet number
+     * @return true if it is the probe in flight
+     */
+    public boolean isProbe(long packetNumber) {
+        return probeSize != 0 && packetNumber == probePacketNumber;
+    }
+
+    /**
+     * @return the packet number of the probe in flight, -1 for none
+     */
+    public long getProbePacketNumber() {
+        return probeSize == 0 ? -1 : probePacketNumber;
+    }
+
+    /**
+     * The probe got through, its size becomes the connection's datagram size
+     */
+    public void onProbeAcked() {
+        currentSize = probeSize;
+        searchLow = probeSize;
+        probeSize = 0;
+        probeCount = 0;
+    }
+
+    /**
+     * The probe was declared lost, the same size is tried again until it failed {@link #MAX_PROBES} times
+     */
+    public void onProbeLost() {
+        if (++probeCount >= MAX_PROBES) {
+            searchHigh = probeSize;
+            probeCount = 0;
+        }
+        probeSize = 0;
+    }
+
+    /**
+     * Falls back to the base size after ordinary packets stopped getting through, the search
+     * starts over below the size that failed
+     *
+     * @param ptoCount the number of consecutive probe timeouts
+     * @return true if the datagram size was reduced
+     */
+    public boolean onProbeTimeout(int ptoCount) {
+        if (ptoCount < BLACK_HOLE_PTO_COUNT || currentSize == baseSize) {
+            return false;
+        }
+        searchHigh = currentSize;
+        currentSize = baseSize;
+        searchLow = baseSize;
+        probeSize = 0;
+        probeCount = 0;
+        searchDoneTime = -1;
+        return true;
+    }
+
+    public int getCurrentSize() {
+        return currentSize;
+    }
+
+    public int getBaseSize() {
+        return baseSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
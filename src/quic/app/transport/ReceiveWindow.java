@@ -0,0 +1,108 @@
+package quic.app.transport;
+
+/**
+ * Receive side flow control for a connection or a single stream, see RFC 9000 section 4.
+ * A new limit is advertised once half of the window was consumed. The window grows towards
+ * twice the bandwidth-delay product measured between two updates, so a fast peer is not
+ * held back by the window while a slow receiver still bounds what it has to buffer.
+ * A lost update is not repeated on its own, the peer runs into the old limit and reports it
+ * with a blocked frame, which is answered with the current limit. Not thread safe.
+ */
+public class ReceiveWindow {
+    /**
+     * Connection limit assumed for a peer which announced no transport parameters
+     */
+    public static final long DEFAULT_MAX_DATA = 1 << 20;
+    /**
+     * Stream limit assumed for a peer which announced no transport parameters
+     */
+    public static final long DEFAULT_MAX_STREAM_DATA = 1 << 19;
+
+    private long window;
+    private long maxWindow;
+    private long limit;
+    private long received = 0;
+    private long consumed = 0;
+    private long updateTime = 0;
+    private long consumedAtUpdate = 0;
+    private boolean blocked = false;
+
+    /**
+     * @param window    the initial window, which is also the limit the peer starts with
+     * @param maxWindow the window never grows beyond this
+     */
+    public ReceiveWindow(long window, long maxWindow) {
+        this.window = window;
+        this.maxWindow = Math.max(window, maxWindow);
+        this.limit = window;
+    }
+
+    /**
+     * Records data received up to an offset, out of order and repeated data included
+     *
+     * @param endOffset offset just past the received data
+     * @return how much the highest received offset grew, -1 if the data is beyond the limit
+     */
+    public long onDataReceived(long endOffset) {
+        if (endOffset > limit) {
+            return -1;
+        }
+        long grown = Math.max(0, endOffset - received);
+        received += grown;
+        return grown;
+    }
+
+    /**
+     * @param bytes data handed to the application, which frees room in the window
+     */
+    public void onDataConsumed(long bytes) {
+        consumed += bytes;
+    }
+
+    /**
+     * Makes the next {@link #update(long, long)} advertise the limit even if it did not change,
+     * after the peer reported being blocked
+     */
+    public void onBlocked() {
+        blocked = true;
+    }
+
+    /**
+     * Moves the limit forward once half of the window was consumed, growing the window first
+     * if the measured bandwidth-delay product needs it
+     *
+     * @param now current time in nanoseconds
+     * @param rtt smoothed round trip time in nanoseconds
+     * @return the limit to send in a MAX_DATA or MAX_STREAM_DATA frame, -1 if none is needed
+     */
+    public long update(long now, long rtt) {
+        boolean due = limit - consumed <= window / 2;
+        if (due) {
+            if (updateTime != 0) {
+                long elapsed = Math.max(1, now - updateTime);
+                long bdp = (long) ((double) (consumed - consumedAtUpdate) * rtt / elapsed);
+                window = Math.min(maxWindow, Math.max(window, 2 * bdp));
+            }
+            updateTime = now;
+            consumedAtUpdate = consumed;
+            limit = consumed + window;
+        }
+        if (due || blocked) {
+            blocked = false;
+            return limit;
+        }
+        return -1;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+}
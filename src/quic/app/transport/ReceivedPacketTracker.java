@@ -0,0 +1,184 @@
+package quic.app.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers which packet numbers were received on a connection, for duplicate detection and
+ * ACK ranges. The newest {@link #WINDOW} packet numbers are kept in a bitmap, so recording and
+ * checking a packet is a single bit operation. When the window slides forward, the bits it
+ * leaves behind collapse into a list of ranges, of which the newest {@link #MAX_RANGES} are
+ * kept. Packets older than anything remembered count as duplicates, the sender never reuses
+ * packet numbers and sends lost data again in new packets. Not thread safe, the owner guards
+ * every access.
+ */
+public class ReceivedPacketTracker {
+    /**
+     * Packet numbers below the largest one which are tracked bit by bit, a multiple of 64
+     */
+    public static final int WINDOW = 1024;
+    /**
+     * Ranges of older packet numbers kept once they left the window
+     */
+    public static final int MAX_RANGES = 32;
+
+    private long[] bits = new long[WINDOW / 64];
+    private long base = 0;          // packet number of the lowest bit, a multiple of 64
+    private long largest = -1;
+    private TreeMap<Long, Long> history = new TreeMap<>();      // smallest to largest packet number of ranges below base
+    private long forgottenBelow = 0;        // ranges below this were dropped
+
+    /**
+     * Records a packet number
+     *
+     * @param packetNumber the packet number
+     * @return false if it was received before, or is too old to tell
+     */
+    public boolean add(long packetNumber) {
+        if (packetNumber < forgottenBelow) {
+            return false;
+        }
+        if (packetNumber < base) {
+            return addToHistory(packetNumber);
+        }
+        if (packetNumber >= base + WINDOW) {
+            slide(((packetNumber >>> 6) + 1 << 6) - WINDOW);
+        }
+        int index = (int) (packetNumber - base);
+        long mask = 1L << (index & 63);
+        if ((bits[index >>> 6] & mask) != 0) {
+            return false;
+        }
+        bits[index >>> 6] |= mask;
+        if (packetNumber > largest) {
+            largest = packetNumber;
+        }
+        return true;
+    }
+
+    /**
+     * @param packetNumber the packet number
+     * @return true if it was received, or is too old to tell
+     */
+    public boolean contains(long packetNumber) {
+        if (packetNumber < forgottenBelow) {
+            return true;
+        }
+        if (packetNumber < base) {
+            Map.Entry<Long, Long> range = history.floorEntry(packetNumber);
+            return range != null && range.getValue() >= packetNumber;
+        }
+        if (packetNumber >= base + WINDOW) {
+            return false;
+        }
+        int index = (int) (packetNumber - base);
+        return (bits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    public long getLargest() {
+        return largest;
+    }
+
+    /**
+     * @param max the most ranges to return
+     * @return the ranges of received packet numbers as {smallest, largest} pairs, largest first
+     */
+    public List<long[]> getRanges(int max) {
+        List<long[]> ranges = new ArrayList<>();
+        int i = (int) (largest - base);
+        while (largest >= 0 && ranges.size() < max) {
+            i = previousBit(i, false);
+            if (i < 0) {
+                break;
+            }
+            int end = i;
+            i = previousBit(i, true);
+            ranges.add(new long[]{base + i + 1, base + end});
+        }
+        for (Map.Entry<Long, Long> range : history.descendingMap().entrySet()) {
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[0] == range.getValue() + 1) {
+                last[0] = range.getKey();       // the range continues across the edge of the window
+            } else if (ranges.size() < max) {
+                ranges.add(new long[]{range.getKey(), range.getValue()});
+            } else {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Finds the nearest bit at or below an index which is set, or clear
+     *
+     * @param index the index to start at
+     * @param clear true to look for a clear bit
+     * @return the index of the bit, -1 if there is none
+     */
+    private int previousBit(int index, boolean clear) {
+        if (index < 0) {
+            return -1;
+        }
+        int w = index >>> 6;
+        long word = (clear ? ~bits[w] : bits[w]) & (-1L >>> (63 - (index & 63)));
+        while (word == 0) {
+            if (--w < 0) {
+                return -1;
+            }
+            word = clear ? ~bits[w] : bits[w];
+        }
+        return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * Moves the window up, turning the bits that fall out of it into history ranges
+     *
+     * @param newBase the new lowest packet number of the window, a multiple of 64
+     */
+    private void slide(long newBase) {
+        int shift = (int) Math.min((newBase - base) >>> 6, bits.length);
+        int i = 0;
+        while (i < shift << 6) {
+            if ((bits[i >>> 6] & (1L << (i & 63))) == 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < shift << 6 && (bits[i >>> 6] & (1L << (i & 63))) != 0) {
+                i++;
+            }
+            addRangeToHistory(base + start, base + i - 1);
+        }
+        System.arraycopy(bits, shift, bits, 0, bits.length - shift);
+        for (int w = bits.length - shift; w < bits.length; w++) {
+            bits[w] = 0;
+        }
+        base = newBase;
+    }
+
+    private boolean addToHistory(long packetNumber) {
+        Map.Entry<Long, Long> below = history.floorEntry(packetNumber);
+        if (below != null && below.getValue() >= packetNumber) {
+            return false;
+        }
+        addRangeToHistory(packetNumber, packetNumber);
+        return true;
+    }
+
+    private void addRangeToHistory(long smallest, long largest) {
+        Map.Entry<Long, Long> below = history.floorEntry(smallest);
+        if (below != null && below.getValue() == smallest - 1) {
+            smallest = below.getKey();
+        }
+        Long above = history.higherKey(largest);
+        if (above != null && above == largest + 1) {
+            largest = history.remove(above);
+        }
+        history.put(smallest, largest);
+        while (history.size() > MAX_RANGES) {
+            forgottenBelow = history.pollFirstEntry().getValue() + 1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package quic.app.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip time estimation as described in RFC 9002 section 5. All times are in nanoseconds.
+ */
+public class RttEstimator {
+    /**
+     * Timer granularity, the smallest variance the probe timeout accounts for
+     */
+    public static final long GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long latestRtt;
+    private long smoothedRtt;
+    private long rttVar;
+    private long minRtt = Long.MAX_VALUE;
+    private boolean hasSample = false;
+
+    /**
+     * @param initialRtt the round trip time assumed before the first sample
+     */
+    public RttEstimator(long initialRtt) {
+        this.latestRtt = initialRtt;
+        this.smoothedRtt = initialRtt;
+        this.rttVar = initialRtt / 2;
+    }
+
+    /**
+     * Feeds a new round trip sample taken from the largest newly acknowledged packet
+     *
+     * @param sample      time between sending the packet and receiving its acknowledgement
+     * @param ackDelay    the delay the peer reported in the ACK frame
+     * @param maxAckDelay the most the peer is allowed to delay an acknowledgement
+     */
+    public void update(long sample, long ackDelay, long maxAckDelay) {
+        latestRtt = sample;
+        if (sample < minRtt) {
+            minRtt = sample;
+        }
+        if (!hasSample) {
+            smoothedRtt = sample;
+            rttVar = sample / 2;
+            hasSample = true;
+            return;
+        }
+        long adjustedRtt = sample;
+        ackDelay = Math.min(ackDelay, maxAckDelay);
+        if (sample >= minRtt + ackDelay) {      // never let the ack delay take the sample below min rtt
+            adjustedRtt = sample - ackDelay;
+        }
+        rttVar = (3 * rttVar + Math.abs(smoothedRtt - adjustedRtt)) / 4;
+        smoothedRtt = (7 * smoothedRtt + adjustedRtt) / 8;
+    }
+
+    /**
+     * Duration of one probe timeout before any backoff is applied
+     *
+     * @param maxAckDelay the most the peer is allowed to delay an acknowledgement
+     * @return the probe timeout in nanoseconds
+     */
+    public long getPtoDuration(long maxAckDelay) {
+        return smoothedRtt + Math.max(4 * rttVar, GRANULARITY) + maxAckDelay;
+    }
+
+    public long getLatestRtt() {
+        return latestRtt;
+    }
+
+    public long getSmoothedRtt() {
+        return smoothedRtt;
+    }
+
+    public long getRttVar() {
+        return rttVar;
+    }
+
+    /**
+     * @return the smallest sample seen so far, or the smoothed rtt before the first sample
+     */
+    public long getMinRtt() {
+        return hasSample ? minRtt : smoothedRtt;
+    }
+
+    public boolean hasSample() {
+        return hasSample;
+    }
+}
@@ -0,0 +1,67 @@
+package quic.app.transport;
+
+/**
+ * Credit the peer granted for sending on a connection or on a single stream, see RFC 9000
+ * section 4. The limit only grows, stale MAX_DATA and MAX_STREAM_DATA frames are ignored.
+ * Not thread safe, callers synchronize on the connection.
+ */
+public class SendCredit {
+    private long limit;
+    private long sent = 0;
+    private long blockedAt = -1;
+
+    /**
+     * @param limit the limit in bytes the peer granted in the handshake
+     */
+    public SendCredit(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return bytes that may still be sent
+     */
+    public long available() {
+        return Math.max(0, limit - sent);
+    }
+
+    public void onDataSent(long bytes) {
+        sent += bytes;
+    }
+
+    /**
+     * Raises the limit after a MAX_DATA or MAX_STREAM_DATA frame
+     *
+     * @param limit the new limit
+     * @return true if the limit grew
+     */
+    public boolean onLimit(long limit) {
+        if (limit <= this.limit) {
+            return false;
+        }
+        this.limit = limit;
+        return true;
+    }
+
+    /**
+     * Tells whether a DATA_BLOCKED or STREAM_DATA_BLOCKED frame should be sent. It is sent once
+     * for every limit the sender runs into.
+     *
+     * @param wanted how much the sender needs to go on
+     * @return true if the credit is too small and the peer was not told about it at this limit yet
+     */
+    public boolean shouldSendBlocked(long wanted) {
+        if (available() >= wanted || blockedAt == limit) {
+            return false;
+        }
+        blockedAt = limit;
+        return true;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+}
@@ -0,0 +1,87 @@
+package quic.app.transport;
+
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicConnectionCloseFrame;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicPaddingFrame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Book-keeping for a packet which has been sent and is waiting to be acknowledged.
+ */
+public class SentPacket {
+    private long packetNumber;
+    private long timeSent;
+    private int size;
+    private Set<QuicFrame> frames;
+    private List<StreamRange> streamRanges;
+    private boolean pmtuProbe;
+
+    public SentPacket(long packetNumber, long timeSent, int size, Set<QuicFrame> frames) {
+        this(packetNumber, timeSent, size, frames, false);
+    }
+
+    /**
+     * @param pmtuProbe true for a path MTU probe, whose loss says nothing about congestion
+     */
+    public SentPacket(long packetNumber, long timeSent, int size, Set<QuicFrame> frames, boolean pmtuProbe) {
+        this(packetNumber, timeSent, size, frames, Collections.<StreamRange>emptyList(), pmtuProbe);
+    }
+
+    /**
+     * @param frames       the frames other than stream frames
+     * @param streamRanges the stream data the packet carried, kept without the bytes
+     * @param pmtuProbe    true for a path MTU probe, whose loss says nothing about congestion
+     */
+    public SentPacket(long packetNumber, long timeSent, int size, Set<QuicFrame> frames, List<StreamRange> streamRanges,
+                      boolean pmtuProbe) {
+        this.packetNumber = packetNumber;
+        this.timeSent = timeSent;
+        this.size = size;
+        this.frames = frames;
+        this.streamRanges = streamRanges;
+        this.pmtuProbe = pmtuProbe;
+    }
+
+    public long getPacketNumber() {
+        return packetNumber;
+    }
+
+    public long getTimeSent() {
+        return timeSent;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Set<QuicFrame> getFrames() {
+        return frames;
+    }
+
+    public List<StreamRange> getStreamRanges() {
+        return streamRanges;
+    }
+
+    public boolean isPmtuProbe() {
+        return pmtuProbe;
+    }
+
+    /**
+     * @return true if the packet carries frames other than ACK, PADDING and CONNECTION_CLOSE
+     */
+    public boolean isAckEliciting() {
+        if (!streamRanges.isEmpty()) {
+            return true;
+        }
+        for (QuicFrame frame : frames) {
+            if (!(frame instanceof QuicAckFrame || frame instanceof QuicPaddingFrame || frame instanceof QuicConnectionCloseFrame)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+package quic.app.transport;
+
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Packets which are in flight, stored in a ring buffer indexed by packet number. Send time,
+ * size and flags sit in primitive arrays, the frames and stream ranges, which are only needed
+ * when a packet is lost, in parallel arrays. The ring covers the packet numbers from the oldest packet in
+ * flight to the newest one and doubles when that span outgrows it, so an ACK is processed by
+ * sweeping the slots of its ranges. Not thread safe, the owning connection guards every access.
+ */
+public class SentPacketTable {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte IN_FLIGHT = 1;
+    private static final byte ACK_ELICITING = 2;
+    private static final byte PMTU_PROBE = 4;
+
+    private long[] timeSent = new long[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private Object[] frames = new Object[INITIAL_CAPACITY];
+    private Object[] streamRanges = new Object[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    private long base = 0;      // no packet below this is in flight, when any is in flight this one is
+    private long end = 0;       // one above the largest packet number in the ring
+    private int count = 0;
+    private long largestAcked = -1;
+
+    public void add(SentPacket packet) {
+        long packetNumber = packet.getPacketNumber();
+        long newBase = count == 0 ? packetNumber : Math.min(base, packetNumber);      // packet numbers may be sent out of order
+        long newEnd = count == 0 ? packetNumber + 1 : Math.max(end, packetNumber + 1);
+        if (newEnd - newBase > flags.length) {
+            grow(newEnd - newBase);
+        }
+        base = newBase;
+        end = newEnd;
+        int slot = (int) (packetNumber & mask);
+        timeSent[slot] = packet.getTimeSent();
+        size[slot] = packet.getSize();
+        frames[slot] = packet.getFrames();
+        streamRanges[slot] = packet.getStreamRanges();
+        flags[slot] = (byte) (IN_FLIGHT | (packet.isAckEliciting() ? ACK_ELICITING : 0) | (packet.isPmtuProbe() ? PMTU_PROBE : 0));
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean contains(long packetNumber) {
+        return packetNumber >= base && packetNumber < end && (flags[(int) (packetNumber & mask)] & IN_FLIGHT) != 0;
+    }
+
+    /**
+     * @return the smallest packet number in flight, -1 if none is
+     */
+    public long getSmallest() {
+        return count == 0 ? -1 : base;
+    }
+
+    /**
+     * @param packetNumber a packet number
+     * @return the next larger packet number in flight, -1 if there is none
+     */
+    public long next(long packetNumber) {
+        for (long p = Math.max(packetNumber + 1, base); p < end; p++) {
+            if ((flags[(int) (p & mask)] & IN_FLIGHT) != 0) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param packetNumber a packet number in flight
+     * @return the time it was sent
+     */
+    public long getTimeSent(long packetNumber) {
+        return timeSent[(int) (packetNumber & mask)];
+    }
+
+    /**
+     * @param packetNumber a packet number in flight
+     * @return the packet, which stays in flight
+     */
+    public SentPacket get(long packetNumber) {
+        return contains(packetNumber) ? toSentPacket(packetNumber) : null;
+    }
+
+    /**
+     * @param packetNumber a packet number in flight
+     * @return the packet, which is no longer in flight
+     */
+    public SentPacket remove(long packetNumber) {
+        if (!contains(packetNumber)) {
+            return null;
+        }
+        SentPacket packet = toSentPacket(packetNumber);
+        clear(packetNumber);
+        advanceBase();
+        return packet;
+    }
+
+    public long getLargestAcked() {
+        return largestAcked;
+    }
+
+    /**
+     * Removes every packet covered by the ACK frame, the first range and any additional ranges
+     *
+     * @param ack the received ACK frame
+     * @return the packets newly acknowledged by this frame, in ascending packet number order
+     */
+    public List<SentPacket> onAck(QuicAckFrame ack) {
+        List<long[]> ranges = new ArrayList<>();
+        long largest = ack.getLargestAck();
+        long smallest = largest - ack.getFirstAckRange();
+        ranges.add(new long[]{smallest, largest});
+        List<Long> gaps = ack.getGaps();
+        List<Long> ackRanges = ack.getAckRanges();
+        for (int i = 0; i < gaps.size(); i++) {
+            largest = smallest - gaps.get(i) - 2;       // a gap of g leaves g+1 unacknowledged packets
+            smallest = largest - ackRanges.get(i);
+            ranges.add(new long[]{smallest, largest});
+        }
+        List<SentPacket> acked = new ArrayList<>();
+        for (int i = ranges.size() - 1; i >= 0; i--) {      // lowest range first, the result stays sorted
+            long from = Math.max(ranges.get(i)[0], base);
+            long to = Math.min(ranges.get(i)[1], end - 1);
+            for (long p = from; p <= to; p++) {
+                if ((flags[(int) (p & mask)] & IN_FLIGHT) != 0) {
+                    acked.add(toSentPacket(p));
+                    clear(p);
+                }
+            }
+        }
+        advanceBase();
+        if (ack.getLargestAck() > largestAcked) {
+            largestAcked = ack.getLargestAck();
+        }
+        return acked;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SentPacket toSentPacket(long packetNumber) {
+        int slot = (int) (packetNumber & mask);
+        return new SentPacket(packetNumber, timeSent[slot], size[slot], (Set<QuicFrame>) frames[slot],
+                (List<StreamRange>) streamRanges[slot], (flags[slot] & PMTU_PROBE) != 0);
+    }
+
+    private void clear(long packetNumber) {
+        int slot = (int) (packetNumber & mask);
+        flags[slot] = 0;
+        frames[slot] = null;
+        streamRanges[slot] = null;
+        count--;
+    }
+
+    private void advanceBase() {
+        if (count == 0) {
+            base = end;
+            return;
+        }
+        while ((flags[(int) (base & mask)] & IN_FLIGHT) == 0) {
+            base++;
+        }
+    }
+
+    /**
+     * Enlarges the ring to hold at least the given span, moving every packet to its new slot
+     */
+    private void grow(long span) {
+        int capacity = flags.length;
+        while (capacity < span) {
+            capacity <<= 1;
+        }
+        int newMask = capacity - 1;
+        long[] newTimeSent = new long[capacity];
+        int[] newSize = new int[capacity];
+        byte[] newFlags = new byte[capacity];
+        Object[] newFrames = new Object[capacity];
+        Object[] newStreamRanges = new Object[capacity];
+        for (long p = base; p < end && count > 0; p++) {
+            int slot = (int) (p & mask);
+            int newSlot = (int) (p & newMask);
+            newTimeSent[newSlot] = timeSent[slot];
+            newSize[newSlot] = size[slot];
+            newFlags[newSlot] = flags[slot];
+            newFrames[newSlot] = frames[slot];
+            newStreamRanges[newSlot] = streamRanges[slot];
+        }
+        timeSent = newTimeSent;
+        size = newSize;
+        flags = newFlags;
+        frames = newFrames;
+        streamRanges = newStreamRanges;
+        mask = newMask;
+    }
+}
@@ -0,0 +1,104 @@
+package quic.app.transport;
+
+/**
+ * The priority of a request stream in the spirit of RFC 9218: an urgency from 0, the most
+ * urgent, to 7 and an incremental flag. The server sends the data of more urgent streams
+ * first; streams of equal urgency which are not incremental are sent one after the other,
+ * incremental ones share the bandwidth. A request carries its priority as a Priority field
+ * value, e.g. {@code u=0} or {@code u=5, i}, on a line after the file name.
+ */
+public class StreamPriority {
+    public static final int DEFAULT_URGENCY = 3;
+    public static final int MAX_URGENCY = 7;
+    /**
+     * The priority of a request which carries none, {@code u=3} and not incremental as in RFC 9218
+     */
+    public static final StreamPriority DEFAULT = new StreamPriority(DEFAULT_URGENCY, false);
+
+    private int urgency;
+    private boolean incremental;
+
+    /**
+     * @param urgency     0 to 7, lower is more urgent
+     * @param incremental true if the client can use the data before the stream is complete
+     */
+    public StreamPriority(int urgency, boolean incremental) {
+        if (urgency < 0 || urgency > MAX_URGENCY) {
+            throw new IllegalArgumentException("Urgency must be between 0 and " + MAX_URGENCY);
+        }
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Parses a Priority field value leniently, like RFC 9218 asks: unknown members, parameters
+     * and invalid values are ignored and leave the defaults in place
+     *
+     * @param value the field value, e.g. {@code u=1, i}
+     * @return the priority
+     */
+    public static StreamPriority parse(String value) {
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental = false;
+        for (String member : value.split(",")) {
+            int parameters = member.indexOf(';');
+            if (parameters >= 0) {
+                member = member.substring(0, parameters);
+            }
+            member = member.trim();
+            int equals = member.indexOf('=');
+            String key = equals < 0 ? member : member.substring(0, equals).trim();
+            String item = equals < 0 ? "?1" : member.substring(equals + 1).trim();
+            if (key.equals("u")) {
+                try {
+                    int u = Integer.parseInt(item);
+                    if (u >= 0 && u <= MAX_URGENCY) {
+                        urgency = u;
+                    }
+                } catch (NumberFormatException e) {
+                    // not an integer, keep the default
+                }
+            } else if (key.equals("i")) {
+                if (item.equals("?1")) {
+                    incremental = true;
+                } else if (item.equals("?0")) {
+                    incremental = false;
+                }
+            }
+        }
+        return new StreamPriority(urgency, incremental);
+    }
+
+    public int getUrgency() {
+        return urgency;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return the priority as a Priority field value
+     */
+    @Override
+    public String toString() {
+        return "u=" + urgency + (incremental ? ", i" : "");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StreamPriority that = (StreamPriority) o;
+        return urgency == that.urgency && incremental == that.incremental;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * urgency + (incremental ? 1 : 0);
+    }
+}
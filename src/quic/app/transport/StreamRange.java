@@ -0,0 +1,35 @@
+package quic.app.transport;
+
+/**
+ * A piece of stream data sent in a packet, remembered by position instead of content. When the
+ * packet is lost the bytes are read again from the stream's source.
+ */
+public class StreamRange {
+    private long streamId;
+    private long offset;
+    private int length;
+    private boolean endOfStream;
+
+    public StreamRange(long streamId, long offset, int length, boolean endOfStream) {
+        this.streamId = streamId;
+        this.offset = offset;
+        this.length = length;
+        this.endOfStream = endOfStream;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+}
@@ -0,0 +1,93 @@
+package quic.app.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket which hands out departure times. Reserving more bytes than the bucket holds puts
+ * it into debt, and the returned time is when the debt is paid back at the configured rate, so
+ * successive reservations are spread evenly. Not thread safe.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Refill rate in bytes per second, 0 means unlimited
+     */
+    private double rate;
+    private long burst;
+    private double tokens;
+    private long lastUpdate;
+
+    /**
+     * @param rate  refill rate in bytes per second, 0 for unlimited
+     * @param burst the most bytes that can leave back to back after an idle period
+     */
+    public TokenBucket(double rate, long burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastUpdate = System.nanoTime();
+    }
+
+    /**
+     * Takes the bytes out of the bucket
+     *
+     * @param bytes number of bytes to send
+     * @param now   the current time in nanoseconds
+     * @return the time in nanoseconds at which the bytes may leave, never before now
+     */
+    public long reserve(int bytes, long now) {
+        if (rate <= 0) {
+            return now;
+        }
+        refill(now);
+        tokens -= bytes;
+        if (tokens >= 0) {
+            return now;
+        }
+        return now + (long) (-tokens / rate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Like {@link #reserve(int, long)}, but leaves the bytes in the bucket. More bytes than the
+     * burst may leave as soon as the bucket is full, reserving them puts the bucket into debt.
+     *
+     * @param bytes number of bytes to send
+     * @param now   the current time in nanoseconds
+     * @return the time in nanoseconds at which the bytes could leave, never before now
+     */
+    public long peek(int bytes, long now) {
+        if (rate <= 0) {
+            return now;
+        }
+        refill(now);
+        double left = tokens - Math.min(bytes, burst);
+        if (left >= 0) {
+            return now;
+        }
+        return now + (long) (-left / rate * NANOS_PER_SECOND);
+    }
+
+    private void refill(long now) {
+        if (now > lastUpdate) {
+            tokens = Math.min(burst, tokens + (now - lastUpdate) * rate / NANOS_PER_SECOND);
+            lastUpdate = now;
+        }
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+
+    public void setBurst(long burst) {
+        this.burst = burst;
+    }
+}
@@ -0,0 +1,50 @@
+package quic.app.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Direct buffers outgoing datagrams are encoded into, reused so that sending a packet
+ * allocates nothing. The kernel reads a direct buffer in place, a heap buffer is first copied
+ * into a temporary direct one by the JDK. Thread safe.
+ */
+public class BufferPool {
+    private int bufferSize;
+    private int maxPooled;
+    private Deque<ByteBuffer> buffers = new ArrayDeque<>();
+
+    /**
+     * @param bufferSize the size of new buffers
+     * @param maxPooled  the most buffers kept for reuse, more are left to the garbage collector
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @param size the number of bytes needed
+     * @return a cleared buffer of at least that size
+     */
+    public ByteBuffer acquire(int size) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = buffers.pollFirst();
+        }
+        if (buffer == null || buffer.capacity() < size) {
+            return ByteBuffer.allocateDirect(Math.max(size, bufferSize));
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * @param buffer a buffer from {@link #acquire(int)} which is no longer used
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffers.size() < maxPooled) {
+            buffers.addFirst(buffer);       // the most recently used buffer is the most likely to be in the cache
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package quic.app.util;
+
+/**
+ * Estimates how often keys were seen in a fixed amount of memory, for frequency based cache
+ * admission (TinyLFU). Each key maps to one small counter in each of {@link #DEPTH} rows, the
+ * estimate is the smallest of them, so collisions can only inflate it. Counters saturate at
+ * {@link #MAX_COUNT} and all of them are halved after a sample of increments, so popularity
+ * from long ago fades. Thread safe.
+ */
+public class CountMinSketch {
+    public static final int DEPTH = 4;
+    public static final int MAX_COUNT = 15;
+    /**
+     * Increments per counter of one row before all counters are halved
+     */
+    public static final int SAMPLE_FACTOR = 10;
+    private static final int[] SEEDS = {0x97cb3127, 0xb3b3a5d9, 0x3f9ba0b7, 0x6c8e9cf5};
+
+    private byte[][] counters;
+    private int mask;
+    private int sampleSize;
+    private int additions = 0;
+
+    /**
+     * @param width the counters per row, rounded up to a power of two, about the number of keys to tell apart
+     */
+    public CountMinSketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        counters = new byte[DEPTH][size];
+        mask = size - 1;
+        sampleSize = SAMPLE_FACTOR * size;
+    }
+
+    /**
+     * Counts one occurrence of a key
+     *
+     * @param key the key
+     */
+    public synchronized void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return how often the key was seen recently, an upper bound
+     */
+    public synchronized int estimate(Object key) {
+        int hash = key.hashCode();
+        int estimate = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter
+     */
+    private void age() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,124 @@
+package quic.app.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deficit round robin over flows of variable sized items. Every flow has a FIFO queue and a
+ * weight; each turn a flow's deficit grows by its weight times the quantum and it may dequeue
+ * items as long as the deficit covers them. Backlogged flows get shares of the bytes in
+ * proportion to their weights, whatever the size of their items, and an item waits at most
+ * one round of the other flows' quanta once it is at the head of its queue. A flow whose queue
+ * runs empty leaves the round and loses its deficit. Not thread safe.
+ *
+ * @param <K> the flow key
+ * @param <T> the items
+ */
+public class DeficitRoundRobin<K, T> {
+    private int quantum;
+    private Map<K, Flow<T>> flows = new HashMap<>();
+    private Deque<Flow<T>> round = new ArrayDeque<>();      // flows with queued items, the head has the turn
+    private boolean turnStarted = false;                    // the head's deficit got its quantum for this turn
+    private int size = 0;
+
+    /**
+     * @param quantum the bytes added to the deficit of a flow of weight 1 per turn, at least the largest item
+     */
+    public DeficitRoundRobin(int quantum) {
+        this.quantum = quantum;
+    }
+
+    /**
+     * @param flow   the flow the item belongs to
+     * @param weight the flow's share relative to the other flows, at least 1
+     * @param item   the item
+     * @param bytes  its size
+     */
+    public void add(K flow, int weight, T item, int bytes) {
+        Flow<T> queue = flows.get(flow);
+        if (queue == null) {
+            queue = new Flow<>();
+            flows.put(flow, queue);
+        }
+        queue.weight = Math.max(1, weight);
+        queue.items.addLast(item);
+        queue.sizes.addLast(bytes);
+        if (queue.items.size() == 1) {
+            round.addLast(queue);
+        }
+        size++;
+    }
+
+    /**
+     * @return the size of the item {@link #poll()} returns next, -1 when nothing is queued
+     */
+    public int peekSize() {
+        Flow<T> flow = nextFlow();
+        return flow == null ? -1 : flow.sizes.peekFirst();
+    }
+
+    /**
+     * @return the next item in round robin order, null when nothing is queued
+     */
+    public T poll() {
+        Flow<T> flow = nextFlow();
+        if (flow == null) {
+            return null;
+        }
+        flow.deficit -= flow.sizes.pollFirst();
+        T item = flow.items.pollFirst();
+        size--;
+        if (flow.items.isEmpty()) {
+            flow.deficit = 0;
+            round.pollFirst();
+            turnStarted = false;
+            removeIdle();
+        }
+        return item;
+    }
+
+    /**
+     * Moves the turn on until a flow's deficit covers its head item
+     */
+    private Flow<T> nextFlow() {
+        while (!round.isEmpty()) {
+            Flow<T> flow = round.peekFirst();
+            if (!turnStarted) {
+                flow.deficit += (long) flow.weight * quantum;
+                turnStarted = true;
+            }
+            if (flow.deficit >= flow.sizes.peekFirst()) {
+                return flow;
+            }
+            round.addLast(round.pollFirst());        // the rest of its deficit carries over to its next turn
+            turnStarted = false;
+        }
+        return null;
+    }
+
+    /**
+     * Forgets flows without queued items once there are many of them, a returning flow starts over
+     */
+    private void removeIdle() {
+        if (flows.size() > 2 * round.size() + 64) {
+            flows.values().removeIf(flow -> flow.items.isEmpty());
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static class Flow<T> {
+        private Deque<T> items = new ArrayDeque<>();
+        private Deque<Integer> sizes = new ArrayDeque<>();
+        private int weight = 1;
+        private long deficit = 0;
+    }
+}
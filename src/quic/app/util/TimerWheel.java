@@ -0,0 +1,285 @@
+package quic.app.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed hierarchical timer wheel. The first level has 256 slots of one tick, each of the four
+ * higher levels has 64 slots covering a whole lower level, timers move down a level when the
+ * lower level wraps around. Scheduling, rescheduling and cancelling are O(1) and do not
+ * allocate: a {@link Timer} is created once and relinked between slots.
+ *
+ * The wheel is driven either by its own thread ({@link #run()}) or by an existing loop which
+ * calls {@link #advance(long)} and parks no longer than {@link #nextExpiry()}, after registering
+ * itself with {@link #setDriver(Thread)} so that an earlier timer wakes it up.
+ */
+public class TimerWheel implements Runnable {
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 5;
+    private static final int LEVEL0_SLOTS = 1 << LEVEL0_BITS;
+    private static final int LEVEL_SLOTS = 1 << LEVEL_BITS;
+    private static final int EXPIRED = -2;
+    private static final int IDLE = -1;
+
+    /**
+     * A timer which can be scheduled on one wheel any number of times
+     */
+    public static class Timer {
+        private Runnable task;
+        private long deadlineTick;
+        private int bucket = IDLE;
+        private Timer prev;
+        private Timer next;
+
+        /**
+         * @param task what to run when the timer expires, runs on the thread driving the wheel
+         */
+        public Timer(Runnable task) {
+            this.task = task;
+        }
+
+        public boolean isScheduled() {
+            return bucket != IDLE;
+        }
+    }
+
+    private long tickNanos;
+    private long startTime;
+    private long currentTick = 0;
+    /**
+     * Heads of the slot lists, level 0 first and then 64 slots for every higher level
+     */
+    private Timer[] heads = new Timer[LEVEL0_SLOTS + (LEVELS - 1) * LEVEL_SLOTS];
+    /**
+     * One bit per level 0 slot which holds at least one timer
+     */
+    private long[] occupied = new long[LEVEL0_SLOTS / 64];
+    private int upperLevelCount = 0;
+    private int count = 0;
+    private Timer expiredHead;
+    private Thread driver;
+    private long driverWakeTick = Long.MAX_VALUE;
+
+    /**
+     * @param tickNanos resolution of the wheel, timers fire at most one tick late
+     */
+    public TimerWheel(long tickNanos) {
+        this.tickNanos = tickNanos;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Schedules the timer, or moves it when it is already scheduled
+     *
+     * @param timer    the timer
+     * @param deadline time in nanoseconds ({@link System#nanoTime()}) at which the timer fires
+     */
+    public void schedule(Timer timer, long deadline) {
+        Thread wake = null;
+        synchronized (this) {
+            unlink(timer);
+            long tick = (deadline - startTime + tickNanos - 1) / tickNanos;   // never fire early
+            timer.deadlineTick = Math.max(tick, currentTick + 1);
+            insert(timer);
+            count++;
+            if (timer.deadlineTick < driverWakeTick) {
+                driverWakeTick = timer.deadlineTick;
+                wake = driver;
+            }
+        }
+        if (wake != null) {
+            LockSupport.unpark(wake);
+        }
+    }
+
+    public synchronized void cancel(Timer timer) {
+        unlink(timer);
+    }
+
+    /**
+     * Fires every timer whose deadline has passed
+     *
+     * @param now the current time in nanoseconds
+     */
+    public void advance(long now) {
+        synchronized (this) {
+            long nowTick = (now - startTime) / tickNanos;
+            if (count == 0 && nowTick > currentTick) {
+                currentTick = nowTick;
+            }
+            while (currentTick < nowTick) {
+                currentTick++;
+                int slot = (int) (currentTick & (LEVEL0_SLOTS - 1));
+                if (slot == 0) {
+                    cascade(1);
+                }
+                expire(slot);
+            }
+        }
+        while (true) {
+            Timer timer;
+            synchronized (this) {       // taken one at a time, a task may reschedule another expired timer
+                timer = expiredHead;
+                if (timer == null) {
+                    return;
+                }
+                unlink(timer);
+            }
+            timer.task.run();
+        }
+    }
+
+    /**
+     * @return the time in nanoseconds at which the next timer may expire, Long.MAX_VALUE when the
+     * wheel is empty
+     */
+    public synchronized long nextExpiry() {
+        long tick = Long.MAX_VALUE;
+        if (expiredHead != null) {
+            tick = currentTick;
+        } else {
+            for (int i = 1; i <= LEVEL0_SLOTS; i++) {
+                long candidate = currentTick + i;
+                int slot = (int) (candidate & (LEVEL0_SLOTS - 1));
+                if (slot == 0 && upperLevelCount > 0) {
+                    tick = candidate;       // wake up to cascade the higher levels
+                    break;
+                }
+                if ((occupied[slot >>> 6] & (1L << slot)) != 0) {
+                    tick = candidate;
+                    break;
+                }
+            }
+        }
+        driverWakeTick = tick;
+        return tick == Long.MAX_VALUE ? Long.MAX_VALUE : startTime + tick * tickNanos;
+    }
+
+    /**
+     * @param driver the thread driving the wheel, it is unparked when an earlier timer is scheduled
+     */
+    public synchronized void setDriver(Thread driver) {
+        this.driver = driver;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public void run() {
+        setDriver(Thread.currentThread());
+        while (true) {
+            advance(System.nanoTime());
+            long next = nextExpiry();
+            if (next == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+        }
+    }
+
+    private void insert(Timer timer) {
+        long delta = timer.deadlineTick - currentTick;
+        int bucket;
+        if (delta < LEVEL0_SLOTS) {
+            bucket = (int) (timer.deadlineTick & (LEVEL0_SLOTS - 1));
+            occupied[bucket >>> 6] |= 1L << bucket;
+        } else {
+            int level = 1;
+            long span = (long) LEVEL0_SLOTS << LEVEL_BITS;
+            while (level < LEVELS - 1 && delta >= span) {
+                level++;
+                span <<= LEVEL_BITS;
+            }
+            long tick = Math.min(timer.deadlineTick, currentTick + span - 1);    // beyond the last level, cascade again later
+            int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+            bucket = LEVEL0_SLOTS + (level - 1) * LEVEL_SLOTS + (int) ((tick >>> shift) & (LEVEL_SLOTS - 1));
+            upperLevelCount++;
+        }
+        push(timer, bucket);
+    }
+
+    private void push(Timer timer, int bucket) {
+        Timer head = bucket == EXPIRED ? expiredHead : heads[bucket];
+        timer.bucket = bucket;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        if (bucket == EXPIRED) {
+            expiredHead = timer;
+        } else {
+            heads[bucket] = timer;
+        }
+    }
+
+    private void unlink(Timer timer) {
+        int bucket = timer.bucket;
+        if (bucket == IDLE) {
+            return;
+        }
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else if (bucket == EXPIRED) {
+            expiredHead = timer.next;
+        } else {
+            heads[bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        if (bucket >= 0 && bucket < LEVEL0_SLOTS && heads[bucket] == null) {
+            occupied[bucket >>> 6] &= ~(1L << bucket);
+        } else if (bucket >= LEVEL0_SLOTS) {
+            upperLevelCount--;
+        }
+        if (bucket != EXPIRED) {
+            count--;
+        }
+        timer.bucket = IDLE;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    /**
+     * Moves the timers of a level 0 slot to the expired list
+     */
+    private void expire(int slot) {
+        Timer timer = heads[slot];
+        while (timer != null) {
+            Timer next = timer.next;
+            unlink(timer);
+            push(timer, EXPIRED);
+            timer = next;
+        }
+    }
+
+    /**
+     * Redistributes the current slot of a higher level over the levels below it
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+        int index = (int) ((currentTick >>> shift) & (LEVEL_SLOTS - 1));
+        if (index == 0) {
+            cascade(level + 1);     // the level above wraps too, pull its slot down first
+        }
+        int bucket = LEVEL0_SLOTS + (level - 1) * LEVEL_SLOTS + index;
+        Timer timer = heads[bucket];
+        while (timer != null) {
+            Timer next = timer.next;
+            unlink(timer);
+            count++;            // unlink counted it out, it stays scheduled
+            insert(timer);
+            timer = next;
+        }
+    }
+}
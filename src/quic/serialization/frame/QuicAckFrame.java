@@ -8,6 +8,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -17,7 +18,7 @@ import java.util.Objects;
  * A QUIC ACK frame to inform senders of packets they have received and processed.
  *
  * @author Md Rofiqul Islam
- * @version 1.2
+ * @version 1.3
  */
 public class QuicAckFrame extends QuicFrame implements Serializable {
     /**
@@ -44,6 +45,16 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
      */
     private long firstAckRange;
 
+    /**
+     * Number of unacknowledged packets preceding each additional ACK range
+     */
+    private List<Long> gaps = new ArrayList<>();
+
+    /**
+     * Number of contiguous acknowledged packets in each additional ACK range
+     */
+    private List<Long> ackRanges = new ArrayList<>();
+
 
     /**
      * Value constructor for the frame.QuicACKFrame class. Specifies the largestAck, delay, rangeCount
@@ -66,6 +77,36 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
 
     }
 
+    /**
+     * Value constructor for an ACK frame carrying additional ACK ranges. The range count is
+     * taken from the number of gap and ack range pairs.
+     *
+     * @param largestAck    The largest packet number the peer is acknowledging
+     * @param delay         Time delta between ACK sent and largest acknowledged packet
+     * @param firstAckRange The number of contiguous packets preceding the largest acknowledged
+     * @param gaps          The gap preceding each additional ack range
+     * @param ackRanges     The length of each additional ack range
+     */
+    public QuicAckFrame(long largestAck, long delay, long firstAckRange, List<Long> gaps, List<Long> ackRanges) {
+        if (gaps == null || ackRanges == null) {
+            throw new NullPointerException();
+        }
+        if (gaps.size() != ackRanges.size()) {   // every gap is followed by exactly one ack range
+            throw new IllegalArgumentException();
+        }
+        this.setLargestAck(largestAck);
+        this.setDelay(delay);
+        this.setRangeCount(gaps.size());
+        this.setFirstAckRange(firstAckRange);
+        for (int i = 0; i < gaps.size(); i++) {
+            if (gaps.get(i) < 0 || ackRanges.get(i) < 0) {
+                throw new IllegalArgumentException();
+            }
+            this.gaps.add(gaps.get(i));
+            this.ackRanges.add(ackRanges.get(i));
+        }
+    }
+
 
     /**
      * Getter for largestAck in the frame.
@@ -156,6 +197,24 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
     }
 
 
+    /**
+     * Getter for the gaps of the additional ack ranges
+     *
+     * @return the gaps, in the order they appear in the frame
+     */
+    public List<Long> getGaps() {
+        return Collections.unmodifiableList(this.gaps);
+    }
+
+    /**
+     * Getter for the lengths of the additional ack ranges
+     *
+     * @return the ack range lengths, in the order they appear in the frame
+     */
+    public List<Long> getAckRanges() {
+        return Collections.unmodifiableList(this.ackRanges);
+    }
+
     @Override
     public byte[] encode() throws IOException {
 
@@ -165,6 +224,10 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
         encoding.write(Util.generateVariableLengthInteger(this.getDelay()));  // appending Ack Delay as a variable length integer
         encoding.write(Util.generateVariableLengthInteger(this.getRangeCount())); // appending Range Count as a variable length integer
         encoding.write(Util.generateVariableLengthInteger(this.getFirstAckRange())); // appending First Ack Range as a variable length integer
+        for (int i = 0; i < this.gaps.size(); i++) {
+            encoding.write(Util.generateVariableLengthInteger(this.gaps.get(i)));      // appending Gap as a variable length integer
+            encoding.write(Util.generateVariableLengthInteger(this.ackRanges.get(i))); // appending ACK Range as a variable length integer
+        }
 
         return encoding.toByteArray();
     }
@@ -177,12 +240,14 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
         return getLargestAck() == that.getLargestAck() &&
                 getDelay() == that.getDelay() &&
                 getRangeCount() == that.getRangeCount() &&
-                getFirstAckRange() == that.getFirstAckRange();
+                getFirstAckRange() == that.getFirstAckRange() &&
+                gaps.equals(that.gaps) &&
+                ackRanges.equals(that.ackRanges);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getLargestAck(), getDelay(), getRangeCount(), getFirstAckRange());
+        return Objects.hash(getLargestAck(), getDelay(), getRangeCount(), getFirstAckRange(), gaps, ackRanges);
     }
 
     @Override
@@ -192,6 +257,8 @@ public class QuicAckFrame extends QuicFrame implements Serializable {
                 ", delay=" + this.getDelay() +
                 ", rangeCount=" + this.getRangeCount() +
                 ", firstAckRange=" + this.getFirstAckRange() +
+                ", gaps=" + this.gaps +
+                ", ackRanges=" + this.ackRanges +
                 '}';
     }
 }
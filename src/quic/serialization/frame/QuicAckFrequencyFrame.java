@@ -0,0 +1,170 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC ACK_FREQUENCY frame from the acknowledgement frequency
+ * extension (draft-ietf-quic-ack-frequency). The sender of data uses it to
+ * tell the receiver how many ack-eliciting packets it may receive before
+ * acknowledging and how long it may delay an acknowledgement.
+ *
+ * @version 1.0
+ */
+public class QuicAckFrequencyFrame extends QuicFrame {
+    /**
+     * Quic ACK_FREQUENCY frames have a type of 0xaf, encoded in two bytes
+     */
+    public static long FRAME_TYPE = 0xaf;
+
+    /**
+     * Orders the frames, only the one with the largest sequence number applies
+     */
+    private long sequenceNumber;
+    /**
+     * Ack-eliciting packets the receiver may get without sending an acknowledgement
+     */
+    private long ackElicitingThreshold;
+    /**
+     * Most the receiver may delay an acknowledgement, in microseconds
+     */
+    private long requestMaxAckDelay;
+    /**
+     * Missing packets which make the receiver acknowledge immediately, 0 to never do so for reordering
+     */
+    private long reorderingThreshold;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param sequenceNumber        the sequence number
+     * @param ackElicitingThreshold the ack-eliciting threshold
+     * @param requestMaxAckDelay    the requested max ack delay in microseconds
+     * @param reorderingThreshold   the reordering threshold
+     */
+    public QuicAckFrequencyFrame(long sequenceNumber, long ackElicitingThreshold, long requestMaxAckDelay, long reorderingThreshold) {
+        this.setSequenceNumber(sequenceNumber);
+        this.setAckElicitingThreshold(ackElicitingThreshold);
+        this.setRequestMaxAckDelay(requestMaxAckDelay);
+        this.setReorderingThreshold(reorderingThreshold);
+    }
+
+    /**
+     * Getter for the sequence number
+     *
+     * @return the sequence number
+     */
+    public long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    /**
+     * Setter for the sequence number
+     *
+     * @param sequenceNumber the sequence number
+     */
+    public void setSequenceNumber(long sequenceNumber) {
+        this.sequenceNumber = checkValue(sequenceNumber);
+    }
+
+    /**
+     * Getter for the ack-eliciting threshold
+     *
+     * @return the threshold
+     */
+    public long getAckElicitingThreshold() {
+        return this.ackElicitingThreshold;
+    }
+
+    /**
+     * Setter for the ack-eliciting threshold
+     *
+     * @param ackElicitingThreshold the threshold
+     */
+    public void setAckElicitingThreshold(long ackElicitingThreshold) {
+        this.ackElicitingThreshold = checkValue(ackElicitingThreshold);
+    }
+
+    /**
+     * Getter for the requested max ack delay
+     *
+     * @return the delay in microseconds
+     */
+    public long getRequestMaxAckDelay() {
+        return this.requestMaxAckDelay;
+    }
+
+    /**
+     * Setter for the requested max ack delay
+     *
+     * @param requestMaxAckDelay the delay in microseconds
+     */
+    public void setRequestMaxAckDelay(long requestMaxAckDelay) {
+        this.requestMaxAckDelay = checkValue(requestMaxAckDelay);
+    }
+
+    /**
+     * Getter for the reordering threshold
+     *
+     * @return the threshold
+     */
+    public long getReorderingThreshold() {
+        return this.reorderingThreshold;
+    }
+
+    /**
+     * Setter for the reordering threshold
+     *
+     * @param reorderingThreshold the threshold
+     */
+    public void setReorderingThreshold(long reorderingThreshold) {
+        this.reorderingThreshold = checkValue(reorderingThreshold);
+    }
+
+    private static long checkValue(long value) {
+        if (value >= 0 && value < (long) Math.pow(2, 62)) {
+            return value;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(Util.generateVariableLengthInteger(FRAME_TYPE));     // appending frame type as a variable length integer
+        encoding.write(Util.generateVariableLengthInteger(this.getSequenceNumber()));
+        encoding.write(Util.generateVariableLengthInteger(this.getAckElicitingThreshold()));
+        encoding.write(Util.generateVariableLengthInteger(this.getRequestMaxAckDelay()));
+        encoding.write(Util.generateVariableLengthInteger(this.getReorderingThreshold()));
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicAckFrequencyFrame)) return false;
+        QuicAckFrequencyFrame that = (QuicAckFrequencyFrame) o;
+        return getSequenceNumber() == that.getSequenceNumber() &&
+                getAckElicitingThreshold() == that.getAckElicitingThreshold() &&
+                getRequestMaxAckDelay() == that.getRequestMaxAckDelay() &&
+                getReorderingThreshold() == that.getReorderingThreshold();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(FRAME_TYPE, getSequenceNumber(), getAckElicitingThreshold(), getRequestMaxAckDelay(), getReorderingThreshold());
+    }
+
+    @Override
+    public String toString() {
+        return "QuicAckFrequencyFrame{" +
+                "sequenceNumber=" + this.getSequenceNumber() +
+                ", ackElicitingThreshold=" + this.getAckElicitingThreshold() +
+                ", requestMaxAckDelay=" + this.getRequestMaxAckDelay() +
+                ", reorderingThreshold=" + this.getReorderingThreshold() +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC CRYPTO frame. The CRYPTO frame carries handshake data,
+ * here the transport parameters of the endpoint.
+ *
+ * @version 1.0
+ */
+public class QuicCryptoFrame extends QuicFrame {
+    /**
+     * Quic CRYPTO frames have a type of 0x06
+     */
+    public static byte FRAME_TYPE = 6;
+
+    /**
+     * The byte offset of the data in the handshake stream
+     */
+    private long offset;
+    /**
+     * The handshake data
+     */
+    private byte[] data;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param offset the byte offset of the data in the handshake stream
+     * @param data   the handshake data
+     */
+    public QuicCryptoFrame(long offset, byte[] data) {
+        this.setOffset(offset);
+        this.setData(data);
+    }
+
+    /**
+     * Getter for the byte offset of the data
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Setter for the byte offset of the data
+     *
+     * @param offset the offset to set
+     */
+    public void setOffset(long offset) {
+        if (offset >= 0 && offset < (long) Math.pow(2, 62)) {
+            this.offset = offset;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Getter for the handshake data
+     *
+     * @return the data
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Setter for the handshake data
+     *
+     * @param data the data to set
+     */
+    public void setData(byte[] data) {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        this.data = data;
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(FRAME_TYPE);        // appending header byte
+        encoding.write(Util.generateVariableLengthInteger(this.getOffset()));     // appending Offset as a variable length integer
+        encoding.write(Util.generateVariableLengthInteger((long) this.getData().length));     // appending Length as a variable length integer
+        encoding.write(this.getData());
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicCryptoFrame)) return false;
+        QuicCryptoFrame that = (QuicCryptoFrame) o;
+        return getOffset() == that.getOffset() &&
+                Arrays.equals(getData(), that.getData());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(FRAME_TYPE, getOffset());
+        result = 31 * result + Arrays.hashCode(getData());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "QuicCryptoFrame{" +
+                "offset=" + this.getOffset() +
+                ", length=" + this.getData().length +
+                '}';
+    }
+}
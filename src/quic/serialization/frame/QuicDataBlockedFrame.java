@@ -0,0 +1,84 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC DATA_BLOCKED frame. The sender sends this frame when it has
+ * data to send but the connection wide limit of the peer does not allow it.
+ *
+ * @version 1.0
+ */
+public class QuicDataBlockedFrame extends QuicFrame {
+    /**
+     * Quic DATA_BLOCKED frames have a type of 0x14
+     */
+    public static byte FRAME_TYPE = 20;
+
+    /**
+     * Connection wide limit at which the sender is blocked
+     */
+    private long maximumData;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param maximumData the connection wide limit in bytes
+     */
+    public QuicDataBlockedFrame(long maximumData) {
+        this.setMaximumData(maximumData);
+    }
+
+    /**
+     * Getter for the connection wide limit
+     *
+     * @return the limit in bytes
+     */
+    public long getMaximumData() {
+        return this.maximumData;
+    }
+
+    /**
+     * Setter for the connection wide limit
+     *
+     * @param maximumData the limit in bytes
+     */
+    public void setMaximumData(long maximumData) {
+        if (maximumData >= 0 && maximumData < (long) Math.pow(2, 62)) {
+            this.maximumData = maximumData;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(FRAME_TYPE);        // appending header byte
+        encoding.write(Util.generateVariableLengthInteger(this.getMaximumData()));    // appending Maximum Data as a variable length integer
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicDataBlockedFrame)) return false;
+        QuicDataBlockedFrame that = (QuicDataBlockedFrame) o;
+        return getMaximumData() == that.getMaximumData();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(FRAME_TYPE, getMaximumData());
+    }
+
+    @Override
+    public String toString() {
+        return "QuicDataBlockedFrame{" +
+                "maximumData=" + this.getMaximumData() +
+                '}';
+    }
+}
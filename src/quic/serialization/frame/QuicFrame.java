@@ -5,6 +5,10 @@ import quic.serialization.exception.QuicException;
 import quic.serialization.util.Util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 /**
@@ -51,6 +55,15 @@ public abstract class QuicFrame {
 
     public abstract byte[] encode() throws IOException;
 
+    /**
+     * Encodes the frame straight into a buffer, such as the datagram being assembled
+     *
+     * @param buffer the buffer to write the encoded frame to
+     */
+    public void encode(ByteBuffer buffer) throws IOException {
+        buffer.put(encode());
+    }
+
     public static int getPayloadPostionIndicator() {
         return payloadPostionIndicator;
     }
@@ -65,14 +78,30 @@ public abstract class QuicFrame {
      * @param arr the byte array from which to read the encoded packet
      */
     public static QuicFrame decode(byte[] arr) throws QuicException {
+        if (flag == 0) {
+            payloadPostionIndicator = 0;          // a single frame, not a frame within a payload
+        }
 
         byte headerByte = arr[payloadPostionIndicator];       // payloadpositionIndicator indicates the next byte should be read from payload
-        if (headerByte == 2 || headerByte == 3) {       //ACK frame = type 2 & 3
+        if (headerByte == 0) {          //Padding frame = type 0
+            return quicPaddingFrameDecoder(arr);
+        } else if (headerByte == 1) {      //Ping frame = type 1
+            payloadPostionIndicator++;
+            return new QuicPingFrame();
+        } else if (headerByte == 2 || headerByte == 3) {       //ACK frame = type 2 & 3
             return quicAckFrameDecoder(arr);
+        } else if (headerByte == 6) {          //Crypto frame = type 6
+            return quicCryptoFrameDecoder(arr);
         } else if (headerByte >= 8 && headerByte <= 15) {          //Stream frame = type 8-15
             return quicStreamFrameDecoder(arr, headerByte);
+        } else if (headerByte == 16 || headerByte == 20) {
+            return quicMaxDataFrameDecoder(arr, headerByte);    // MAX_DATA = type 16, DATA_BLOCKED = type 20
+        } else if (headerByte == 17 || headerByte == 21) {
+            return quicMaxStreamDataFrameDecoder(arr, headerByte);  // MAX_STREAM_DATA = type 17, STREAM_DATA_BLOCKED = type 21
         } else if (headerByte == 28 || headerByte == 29) {
             return quicConnectionCloseFrameDecoder(arr);    // connection Close frame, type 28 and 29
+        } else if (headerByte == 0x40 && payloadPostionIndicator + 1 < arr.length && arr[payloadPostionIndicator + 1] == (byte) 0xaf) {
+            return quicAckFrequencyFrameDecoder(arr);       // ACK_FREQUENCY = type 0xaf, a two byte frame type
         } else {
             setPayloadPostionIndicator(arr.length);
             throw new QuicException(7, 0, "Unknown headerByte of frame");
@@ -123,7 +152,7 @@ public abstract class QuicFrame {
             long firstAckRange = Util.variableLengthInteger(firstAckRange_arr, 1);  // calculating the First AckRange
             pointer = pointer + firstAckRangeLen;
             //--------- ACK Ranges-------//
-            /*List<Long> gapList = new ArrayList<>();     // list of GAP
+            List<Long> gapList = new ArrayList<>();     // list of GAP
             List<Long> ackList = new ArrayList<>();     // list of ACK
             for (long i = 0; i < ackRangeCount; i++) {
                 int gapLen = Util.variableLengthIntegerLength(arr[pointer]);    // calculating gap length
@@ -144,14 +173,13 @@ public abstract class QuicFrame {
                 ackList.add(ackRange);
                 pointer = pointer + ackRangeLen;
 
-            }*/
+            }
 
             setPayloadPostionIndicator(pointer); // updating the next posting of payload to be decoded
-            //Iterator<Long> gapIterator = gapList.iterator();
-            //Iterator<Long> ackIterator = ackList.iterator();
-            QuicAckFrame quicAckFrame = new QuicAckFrame(largestAck, ackDelay, ackRangeCount, firstAckRange); // generating ACK frame
+            QuicAckFrame quicAckFrame = new QuicAckFrame(largestAck, ackDelay, firstAckRange, gapList, ackList); // generating ACK frame
             return quicAckFrame;
         } catch (Exception e) {
+            setPayloadPostionIndicator(arr.length);     // the rest of the payload cannot be trusted
             throw new QuicException(10, 2, "Ack frame decoding error");
         }
     }
@@ -221,6 +249,150 @@ public abstract class QuicFrame {
     }
 
 
+    /**
+     * Method for decoding Quic Padding frames, consecutive zero bytes become one frame
+     *
+     * @param arr input array containing the Padding frames
+     * @return Quic Padding frame covering all consecutive padding bytes
+     */
+    public static QuicFrame quicPaddingFrameDecoder(byte[] arr) {
+        int pointer = payloadPostionIndicator;
+        while (pointer < arr.length && arr[pointer] == 0) {
+            pointer++;
+        }
+        int length = pointer - payloadPostionIndicator;
+        payloadPostionIndicator = pointer;
+        return new QuicPaddingFrame(length);
+    }
+
+    /**
+     * Method for decoding the Quic Crypto frame
+     *
+     * @param arr input array containing the Crypto frame
+     * @return Quic Crypto frame
+     * @throws QuicException
+     */
+    public static QuicFrame quicCryptoFrameDecoder(byte[] arr) throws QuicException {
+        try {
+            int pointer = payloadPostionIndicator + 1;
+            //------------ Offset ------------//
+            int offsetLen = Util.variableLengthIntegerLength(arr[pointer]);
+            long offset = variableLengthIntegerAt(arr, pointer, offsetLen);
+            pointer = pointer + offsetLen;
+            //------------ Length ------------//
+            int lengthLen = Util.variableLengthIntegerLength(arr[pointer]);
+            long length = variableLengthIntegerAt(arr, pointer, lengthLen);
+            pointer = pointer + lengthLen;
+            //------------ Crypto Data ------------//
+            if (pointer + length > arr.length) {
+                throw new ArrayIndexOutOfBoundsException((int) (pointer + length));    // truncated frame
+            }
+            byte[] data = Arrays.copyOfRange(arr, pointer, pointer + (int) length);
+            pointer = pointer + (int) length;
+            payloadPostionIndicator = pointer;
+            return new QuicCryptoFrame(offset, data);
+        } catch (Exception e) {
+            setPayloadPostionIndicator(arr.length);     // the rest of the payload cannot be trusted
+            throw new QuicException(7, 6, "Crypto frame decoding error");
+        }
+    }
+
+    /**
+     * Method for decoding the Quic MAX_DATA and DATA_BLOCKED frames, both carry a single limit
+     *
+     * @param arr        input array
+     * @param headerByte header of the frame
+     * @return Quic MAX_DATA or DATA_BLOCKED frame
+     * @throws QuicException
+     */
+    public static QuicFrame quicMaxDataFrameDecoder(byte[] arr, byte headerByte) throws QuicException {
+        try {
+            int pointer = payloadPostionIndicator + 1;
+            //------------ Maximum Data ------------//
+            int maximumDataLen = Util.variableLengthIntegerLength(arr[pointer]);
+            long maximumData = variableLengthIntegerAt(arr, pointer, maximumDataLen);
+            pointer = pointer + maximumDataLen;
+            payloadPostionIndicator = pointer;
+            if (headerByte == QuicMaxDataFrame.FRAME_TYPE) {
+                return new QuicMaxDataFrame(maximumData);
+            }
+            return new QuicDataBlockedFrame(maximumData);
+        } catch (Exception e) {
+            setPayloadPostionIndicator(arr.length);     // the rest of the payload cannot be trusted
+            throw new QuicException(7, headerByte, "Max data frame decoding error");
+        }
+    }
+
+    /**
+     * Method for decoding the Quic MAX_STREAM_DATA and STREAM_DATA_BLOCKED frames, both carry
+     * a stream ID and a limit
+     *
+     * @param arr        input array
+     * @param headerByte header of the frame
+     * @return Quic MAX_STREAM_DATA or STREAM_DATA_BLOCKED frame
+     * @throws QuicException
+     */
+    public static QuicFrame quicMaxStreamDataFrameDecoder(byte[] arr, byte headerByte) throws QuicException {
+        try {
+            int pointer = payloadPostionIndicator + 1;
+            //------------ Stream ID ------------//
+            int streamIdLen = Util.variableLengthIntegerLength(arr[pointer]);
+            long streamId = variableLengthIntegerAt(arr, pointer, streamIdLen);
+            pointer = pointer + streamIdLen;
+            //------------ Maximum Stream Data ------------//
+            int maximumStreamDataLen = Util.variableLengthIntegerLength(arr[pointer]);
+            long maximumStreamData = variableLengthIntegerAt(arr, pointer, maximumStreamDataLen);
+            pointer = pointer + maximumStreamDataLen;
+            payloadPostionIndicator = pointer;
+            if (headerByte == QuicMaxStreamDataFrame.FRAME_TYPE) {
+                return new QuicMaxStreamDataFrame(streamId, maximumStreamData);
+            }
+            return new QuicStreamDataBlockedFrame(streamId, maximumStreamData);
+        } catch (Exception e) {
+            setPayloadPostionIndicator(arr.length);     // the rest of the payload cannot be trusted
+            throw new QuicException(7, headerByte, "Max stream data frame decoding error");
+        }
+    }
+
+    /**
+     * Method for decoding the Quic ACK_FREQUENCY frame
+     *
+     * @param arr input array
+     * @return Quic ACK_FREQUENCY frame
+     * @throws QuicException
+     */
+    public static QuicFrame quicAckFrequencyFrameDecoder(byte[] arr) throws QuicException {
+        try {
+            int pointer = payloadPostionIndicator + 2;
+            long[] values = new long[4];        // sequence number, ack-eliciting threshold, request max ack delay, reordering threshold
+            for (int i = 0; i < values.length; i++) {
+                int length = Util.variableLengthIntegerLength(arr[pointer]);
+                values[i] = variableLengthIntegerAt(arr, pointer, length);
+                pointer = pointer + length;
+            }
+            payloadPostionIndicator = pointer;
+            return new QuicAckFrequencyFrame(values[0], values[1], values[2], values[3]);
+        } catch (Exception e) {
+            setPayloadPostionIndicator(arr.length);     // the rest of the payload cannot be trusted
+            throw new QuicException(7, 0, "Ack frequency frame decoding error");
+        }
+    }
+
+    /**
+     * Method for reading a variable length integer in the middle of the payload
+     *
+     * @param arr     input array
+     * @param pointer position of the first byte of the integer
+     * @param length  length of the integer in bytes
+     * @return the value of the integer
+     */
+    private static long variableLengthIntegerAt(byte[] arr, int pointer, int length) {
+        if (pointer + length > arr.length) {
+            throw new ArrayIndexOutOfBoundsException(pointer + length);     // truncated frame
+        }
+        return Util.variableLengthInteger(Arrays.copyOfRange(arr, pointer, pointer + length), 1);
+    }
+
     /**
      * Method for decoding the Quic Connection close frame
      *
@@ -0,0 +1,84 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC MAX_DATA frame. The receiver sends this frame to tell the
+ * peer the maximum amount of data it may send on the whole connection.
+ *
+ * @version 1.0
+ */
+public class QuicMaxDataFrame extends QuicFrame {
+    /**
+     * Quic MAX_DATA frames have a type of 0x10
+     */
+    public static byte FRAME_TYPE = 16;
+
+    /**
+     * Maximum amount of data in bytes that can be sent on the connection
+     */
+    private long maximumData;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param maximumData the connection wide limit in bytes
+     */
+    public QuicMaxDataFrame(long maximumData) {
+        this.setMaximumData(maximumData);
+    }
+
+    /**
+     * Getter for the connection wide limit
+     *
+     * @return the limit in bytes
+     */
+    public long getMaximumData() {
+        return this.maximumData;
+    }
+
+    /**
+     * Setter for the connection wide limit
+     *
+     * @param maximumData the limit in bytes
+     */
+    public void setMaximumData(long maximumData) {
+        if (maximumData >= 0 && maximumData < (long) Math.pow(2, 62)) {
+            this.maximumData = maximumData;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(FRAME_TYPE);        // appending header byte
+        encoding.write(Util.generateVariableLengthInteger(this.getMaximumData()));    // appending Maximum Data as a variable length integer
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicMaxDataFrame)) return false;
+        QuicMaxDataFrame that = (QuicMaxDataFrame) o;
+        return getMaximumData() == that.getMaximumData();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(FRAME_TYPE, getMaximumData());
+    }
+
+    @Override
+    public String toString() {
+        return "QuicMaxDataFrame{" +
+                "maximumData=" + this.getMaximumData() +
+                '}';
+    }
+}
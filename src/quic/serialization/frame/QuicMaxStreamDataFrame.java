@@ -0,0 +1,115 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC MAX_STREAM_DATA frame. The receiver sends this frame to
+ * tell the peer the maximum amount of data it may send on one stream.
+ *
+ * @version 1.0
+ */
+public class QuicMaxStreamDataFrame extends QuicFrame {
+    /**
+     * Quic MAX_STREAM_DATA frames have a type of 0x11
+     */
+    public static byte FRAME_TYPE = 17;
+
+    /**
+     * The ID of the stream
+     */
+    private long streamId;
+    /**
+     * Maximum amount of data in bytes that can be sent on the stream
+     */
+    private long maximumStreamData;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param streamId          the ID of the stream
+     * @param maximumStreamData the stream limit in bytes
+     */
+    public QuicMaxStreamDataFrame(long streamId, long maximumStreamData) {
+        this.setStreamId(streamId);
+        this.setMaximumStreamData(maximumStreamData);
+    }
+
+    /**
+     * Getter for the stream ID
+     *
+     * @return the ID of the stream
+     */
+    public long getStreamId() {
+        return this.streamId;
+    }
+
+    /**
+     * Setter for the stream ID
+     *
+     * @param streamId the ID to set
+     */
+    public void setStreamId(long streamId) {
+        if (streamId >= 0 && streamId < (long) Math.pow(2, 62)) {
+            this.streamId = streamId;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Getter for the stream limit
+     *
+     * @return the limit in bytes
+     */
+    public long getMaximumStreamData() {
+        return this.maximumStreamData;
+    }
+
+    /**
+     * Setter for the stream limit
+     *
+     * @param maximumStreamData the limit in bytes
+     */
+    public void setMaximumStreamData(long maximumStreamData) {
+        if (maximumStreamData >= 0 && maximumStreamData < (long) Math.pow(2, 62)) {
+            this.maximumStreamData = maximumStreamData;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(FRAME_TYPE);        // appending header byte
+        encoding.write(Util.generateVariableLengthInteger(this.getStreamId()));      // appending Stream id as a variable length integer
+        encoding.write(Util.generateVariableLengthInteger(this.getMaximumStreamData()));   // appending Maximum Stream Data as a variable length integer
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicMaxStreamDataFrame)) return false;
+        QuicMaxStreamDataFrame that = (QuicMaxStreamDataFrame) o;
+        return getStreamId() == that.getStreamId() &&
+                getMaximumStreamData() == that.getMaximumStreamData();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(FRAME_TYPE, getStreamId(), getMaximumStreamData());
+    }
+
+    @Override
+    public String toString() {
+        return "QuicMaxStreamDataFrame{" +
+                "streamId=" + this.getStreamId() +
+                ", maximumStreamData=" + this.getMaximumStreamData() +
+                '}';
+    }
+}
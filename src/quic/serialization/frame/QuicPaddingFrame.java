@@ -0,0 +1,77 @@
+package quic.serialization.frame;
+
+import java.io.IOException;
+
+/**
+ * Represents a run of QUIC PADDING frames. Each PADDING frame is a single
+ * zero byte without meaning, consecutive ones are kept together in one
+ * object which knows how many bytes they take up.
+ *
+ * @version 1.0
+ */
+public class QuicPaddingFrame extends QuicFrame {
+    /**
+     * Quic PADDING frames have a type of 0x00
+     */
+    public static byte FRAME_TYPE = 0;
+
+    /**
+     * Number of padding bytes
+     */
+    private int length;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param length number of padding bytes, at least one
+     */
+    public QuicPaddingFrame(int length) {
+        this.setLength(length);
+    }
+
+    /**
+     * Getter for the number of padding bytes
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Setter for the number of padding bytes
+     *
+     * @param length the length, at least one
+     */
+    public void setLength(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.length = length;
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        return new byte[this.getLength()];      // all zero, the frame type of PADDING
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicPaddingFrame)) return false;
+        QuicPaddingFrame that = (QuicPaddingFrame) o;
+        return getLength() == that.getLength();
+    }
+
+    @Override
+    public int hashCode() {
+        return getLength();
+    }
+
+    @Override
+    public String toString() {
+        return "QuicPaddingFrame{" +
+                "length=" + this.getLength() +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package quic.serialization.frame;
+
+import java.io.IOException;
+
+/**
+ * Represents a QUIC PING frame. The PING frame carries no data, it makes a
+ * packet ack-eliciting, for example to check that a path is still alive.
+ *
+ * @version 1.0
+ */
+public class QuicPingFrame extends QuicFrame {
+    /**
+     * Quic PING frames have a type of 0x01
+     */
+    public static byte FRAME_TYPE = 1;
+
+    @Override
+    public byte[] encode() throws IOException {
+        return new byte[]{FRAME_TYPE};
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof QuicPingFrame;
+    }
+
+    @Override
+    public int hashCode() {
+        return FRAME_TYPE;
+    }
+
+    @Override
+    public String toString() {
+        return "QuicPingFrame{}";
+    }
+}
@@ -0,0 +1,115 @@
+package quic.serialization.frame;
+
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Represents a QUIC STREAM_DATA_BLOCKED frame. The sender sends this frame when
+ * it has data to send on a stream but the stream limit of the peer does not allow it.
+ *
+ * @version 1.0
+ */
+public class QuicStreamDataBlockedFrame extends QuicFrame {
+    /**
+     * Quic STREAM_DATA_BLOCKED frames have a type of 0x15
+     */
+    public static byte FRAME_TYPE = 21;
+
+    /**
+     * The ID of the stream
+     */
+    private long streamId;
+    /**
+     * Stream limit at which the sender is blocked
+     */
+    private long maximumStreamData;
+
+    /**
+     * Values constructor for the frame
+     *
+     * @param streamId          the ID of the stream
+     * @param maximumStreamData the stream limit in bytes
+     */
+    public QuicStreamDataBlockedFrame(long streamId, long maximumStreamData) {
+        this.setStreamId(streamId);
+        this.setMaximumStreamData(maximumStreamData);
+    }
+
+    /**
+     * Getter for the stream ID
+     *
+     * @return the ID of the stream
+     */
+    public long getStreamId() {
+        return this.streamId;
+    }
+
+    /**
+     * Setter for the stream ID
+     *
+     * @param streamId the ID to set
+     */
+    public void setStreamId(long streamId) {
+        if (streamId >= 0 && streamId < (long) Math.pow(2, 62)) {
+            this.streamId = streamId;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Getter for the stream limit
+     *
+     * @return the limit in bytes
+     */
+    public long getMaximumStreamData() {
+        return this.maximumStreamData;
+    }
+
+    /**
+     * Setter for the stream limit
+     *
+     * @param maximumStreamData the limit in bytes
+     */
+    public void setMaximumStreamData(long maximumStreamData) {
+        if (maximumStreamData >= 0 && maximumStreamData < (long) Math.pow(2, 62)) {
+            this.maximumStreamData = maximumStreamData;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        encoding.write(FRAME_TYPE);        // appending header byte
+        encoding.write(Util.generateVariableLengthInteger(this.getStreamId()));      // appending Stream id as a variable length integer
+        encoding.write(Util.generateVariableLengthInteger(this.getMaximumStreamData()));   // appending Maximum Stream Data as a variable length integer
+        return encoding.toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuicStreamDataBlockedFrame)) return false;
+        QuicStreamDataBlockedFrame that = (QuicStreamDataBlockedFrame) o;
+        return getStreamId() == that.getStreamId() &&
+                getMaximumStreamData() == that.getMaximumStreamData();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(FRAME_TYPE, getStreamId(), getMaximumStreamData());
+    }
+
+    @Override
+    public String toString() {
+        return "QuicStreamDataBlockedFrame{" +
+                "streamId=" + this.getStreamId() +
+                ", maximumStreamData=" + this.getMaximumStreamData() +
+                '}';
+    }
+}
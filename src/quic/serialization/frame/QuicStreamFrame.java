@@ -5,7 +5,7 @@ import quic.serialization.util.Util;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -33,6 +33,10 @@ public class QuicStreamFrame extends QuicFrame {
      * The data being delivered by the frame
      */
     private byte[] data;
+    /**
+     * The data as a buffer, when the frame was built from one, encoded without copying it first
+     */
+    private ByteBuffer payload;
 
     /**
      * Values constructor for the STREAM frame.
@@ -50,6 +54,23 @@ public class QuicStreamFrame extends QuicFrame {
         this.setHeader((byte) 8);
     }
 
+    /**
+     * Values constructor for a STREAM frame whose data stays in a buffer, such as a slice of a
+     * mapped file, until it is encoded.
+     *
+     * @param streamId    the ID of the stream
+     * @param offset      the byte offset of the data within the stream
+     * @param endOfStream flag marking the end of the stream
+     * @param payload     the frame's data, from its position to its limit
+     */
+    public QuicStreamFrame(long streamId, long offset, boolean endOfStream, ByteBuffer payload) {
+        this.setStreamId(streamId);
+        this.setOffset(offset);
+        this.setEndOfStream(endOfStream);
+        this.payload = payload.slice();
+        this.setHeader((byte) 8);
+    }
+
     /**
      * Getter for the stream ID
      *
@@ -79,7 +100,7 @@ public class QuicStreamFrame extends QuicFrame {
         if (this.getOffset() > 0) {   // offset bit is set when offset is greater than 0
             this.header = (byte) (this.header | 4);
         }
-        if (this.getData().length > 0) {
+        if (this.getDataLength() > 0) {
             this.header = (byte) (this.header | 2);  // setting len bit when data length is greater than 0
         }
 
@@ -149,9 +170,23 @@ public class QuicStreamFrame extends QuicFrame {
      * @return the stream data
      */
     public byte[] getData() {
+        if (this.payload != null) {
+            byte[] copy = new byte[this.payload.remaining()];
+            this.payload.duplicate().get(copy);
+            return copy;
+        }
         return this.data;
     }
 
+    /**
+     * Getter for the length of the data, without copying it
+     *
+     * @return the number of data bytes
+     */
+    public int getDataLength() {
+        return this.payload != null ? this.payload.remaining() : this.data.length;
+    }
+
     /**
      * Setter for the data in the frame
      *
@@ -159,6 +194,14 @@ public class QuicStreamFrame extends QuicFrame {
      */
     public void setData(byte[] data) {
         this.data = data;
+        this.payload = null;
+    }
+
+    /**
+     * @return a read-only view of the data, which may share the frame's buffer
+     */
+    private ByteBuffer dataView() {
+        return this.payload != null ? this.payload.asReadOnlyBuffer() : ByteBuffer.wrap(this.data).asReadOnlyBuffer();
     }
 
 
@@ -171,7 +214,7 @@ public class QuicStreamFrame extends QuicFrame {
             encoding.write(Util.generateVariableLengthInteger(this.getOffset())); // appending Offset as a variable length integer
         }
         if ((header & 2) == 2) {
-            encoding.write(Util.generateVariableLengthInteger((long) this.getData().length));  // appending length as a variable length integer
+            encoding.write(Util.generateVariableLengthInteger((long) this.getDataLength()));  // appending length as a variable length integer
         }
         encoding.write(this.getData());
 
@@ -180,6 +223,19 @@ public class QuicStreamFrame extends QuicFrame {
         return data;
     }
 
+    @Override
+    public void encode(ByteBuffer buffer) throws IOException {
+        buffer.put(this.getHeader());
+        buffer.put(Util.generateVariableLengthInteger(this.getStreamId()));
+        if (this.getOffset() > 0) {
+            buffer.put(Util.generateVariableLengthInteger(this.getOffset()));
+        }
+        if ((header & 2) == 2) {
+            buffer.put(Util.generateVariableLengthInteger((long) this.getDataLength()));
+        }
+        buffer.put(this.dataView());      // the data is copied once, straight into the buffer
+    }
+
     @Override
     public String toString() {
         return "QuicStreamFrame{" +
@@ -189,6 +245,11 @@ public class QuicStreamFrame extends QuicFrame {
                 "}";
     }
 
+    /**
+     * Frames are equal when they carry the same range of the same stream. The data is left out,
+     * comparing or hashing it would read every payload byte again each time the frame goes into
+     * a set.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -198,13 +259,11 @@ public class QuicStreamFrame extends QuicFrame {
                 getStreamId() == that.getStreamId() &&
                 getOffset() == that.getOffset() &&
                 isEndOfStream() == that.isEndOfStream() &&
-                Arrays.equals(getData(), that.getData());
+                getDataLength() == that.getDataLength();
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(getHeader(), getStreamId(), getOffset(), isEndOfStream());
-        result = 31 * result + Arrays.hashCode(getData());
-        return result;
+        return Objects.hash(getHeader(), getStreamId(), getOffset(), isEndOfStream(), getDataLength());
     }
 }
@@ -77,6 +77,15 @@ public abstract class QuicPacket {
         return new byte[3];
     }
 
+    /**
+     * Encodes a packet straight into a buffer, such as the datagram being sent
+     *
+     * @param buffer the buffer to write the encoded packet to
+     */
+    public void encode(ByteBuffer buffer) throws IOException {
+        buffer.put(encode());
+    }
+
     /**
      * Decodes byte array into packet object. The destination connection ID
      * size is used when the connection has already negotiated the size of the
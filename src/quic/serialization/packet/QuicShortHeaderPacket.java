@@ -77,7 +77,7 @@ public class QuicShortHeaderPacket extends QuicPacket {
 
         encoding.write(Util.hexStringToByteArray(Util.byteToHex(this.getHeaderByte()), 1));  // appending the header byte
         encoding.write(Util.hexStringToByteArray(Util.bytesArrayToHex(this.getDcID()), this.getDcID().length));  // appending the Destiantion Id
-        Iterator<QuicFrame> iterator1 = this.getFrames().iterator();
+        Iterator<QuicFrame> iterator1 = this.showFrames().iterator();
         ByteArrayOutputStream temp = new ByteArrayOutputStream();     // payload array
         while (iterator1.hasNext()) {
             QuicFrame f = iterator1.next();
@@ -89,6 +89,23 @@ public class QuicShortHeaderPacket extends QuicPacket {
         return encoding.toByteArray();
     }
 
+    /**
+     * Encodes short header packet into a buffer, frames write their data straight into it
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void encode(ByteBuffer buffer) throws IOException {
+        buffer.put(this.getHeaderByte());
+        buffer.put(this.getDcID());
+        for (int i = packetNumberLength - 1; i >= 0; i--) {
+            buffer.put((byte) (this.getPacketNumber() >>> (8 * i)));        // packet number, most significant byte first
+        }
+        for (QuicFrame f : this.showFrames()) {
+            f.encode(buffer);
+        }
+    }
+
     /**
      * To string method
      *
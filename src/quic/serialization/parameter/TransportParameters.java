@@ -0,0 +1,314 @@
+package quic.serialization.parameter;
+
+import quic.serialization.exception.QuicException;
+import quic.serialization.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents the QUIC transport parameters an endpoint announces in the
+ * handshake, see RFC 9000 section 18. Each parameter is encoded as its ID, the
+ * length of its value and the value, all as variable length integers.
+ * Parameters left out by the peer take the defaults of the RFC, unknown
+ * parameters are skipped. min_ack_delay announces support for the
+ * ACK_FREQUENCY extension (draft-ietf-quic-ack-frequency).
+ *
+ * @version 1.0
+ */
+public class TransportParameters {
+    public static final long MAX_IDLE_TIMEOUT = 0x01;
+    public static final long MAX_UDP_PAYLOAD_SIZE = 0x03;
+    public static final long INITIAL_MAX_DATA = 0x04;
+    public static final long INITIAL_MAX_STREAM_DATA_BIDI_LOCAL = 0x05;
+    public static final long INITIAL_MAX_STREAM_DATA_BIDI_REMOTE = 0x06;
+    public static final long INITIAL_MAX_STREAMS_BIDI = 0x08;
+    public static final long ACK_DELAY_EXPONENT = 0x0a;
+    public static final long MAX_ACK_DELAY = 0x0b;
+    public static final long MIN_ACK_DELAY = 0xff04de1bL;
+
+    /**
+     * Idle timeout in milliseconds, 0 disables it
+     */
+    private long maxIdleTimeout = 0;
+    /**
+     * Largest UDP payload the endpoint is willing to receive
+     */
+    private long maxUdpPayloadSize = 65527;
+    /**
+     * Connection limit for data the peer may send
+     */
+    private long initialMaxData = 0;
+    /**
+     * Stream limit for data the peer may send on streams opened by the endpoint
+     */
+    private long initialMaxStreamDataBidiLocal = 0;
+    /**
+     * Stream limit for data the peer may send on streams opened by the peer
+     */
+    private long initialMaxStreamDataBidiRemote = 0;
+    /**
+     * Number of bidirectional streams the peer may open
+     */
+    private long initialMaxStreamsBidi = 0;
+    /**
+     * Exponent applied to the ack delay the endpoint reports
+     */
+    private long ackDelayExponent = 3;
+    /**
+     * Most the endpoint delays an acknowledgement, in milliseconds
+     */
+    private long maxAckDelay = 25;
+    /**
+     * Least the endpoint delays an acknowledgement, in microseconds, 0 if it does not support ACK_FREQUENCY
+     */
+    private long minAckDelay = 0;
+
+    public long getMaxIdleTimeout() {
+        return maxIdleTimeout;
+    }
+
+    public void setMaxIdleTimeout(long maxIdleTimeout) {
+        this.maxIdleTimeout = checkValue(maxIdleTimeout);
+    }
+
+    public long getMaxUdpPayloadSize() {
+        return maxUdpPayloadSize;
+    }
+
+    /**
+     * Setter for the largest UDP payload, which must be at least 1200 bytes
+     *
+     * @param maxUdpPayloadSize the size in bytes
+     */
+    public void setMaxUdpPayloadSize(long maxUdpPayloadSize) {
+        if (maxUdpPayloadSize < 1200) {
+            throw new IllegalArgumentException();
+        }
+        this.maxUdpPayloadSize = checkValue(maxUdpPayloadSize);
+    }
+
+    public long getInitialMaxData() {
+        return initialMaxData;
+    }
+
+    public void setInitialMaxData(long initialMaxData) {
+        this.initialMaxData = checkValue(initialMaxData);
+    }
+
+    public long getInitialMaxStreamDataBidiLocal() {
+        return initialMaxStreamDataBidiLocal;
+    }
+
+    public void setInitialMaxStreamDataBidiLocal(long initialMaxStreamDataBidiLocal) {
+        this.initialMaxStreamDataBidiLocal = checkValue(initialMaxStreamDataBidiLocal);
+    }
+
+    public long getInitialMaxStreamDataBidiRemote() {
+        return initialMaxStreamDataBidiRemote;
+    }
+
+    public void setInitialMaxStreamDataBidiRemote(long initialMaxStreamDataBidiRemote) {
+        this.initialMaxStreamDataBidiRemote = checkValue(initialMaxStreamDataBidiRemote);
+    }
+
+    public long getInitialMaxStreamsBidi() {
+        return initialMaxStreamsBidi;
+    }
+
+    /**
+     * Setter for the number of streams, which cannot exceed 2^60
+     *
+     * @param initialMaxStreamsBidi the number of streams
+     */
+    public void setInitialMaxStreamsBidi(long initialMaxStreamsBidi) {
+        if (initialMaxStreamsBidi > (1L << 60)) {
+            throw new IllegalArgumentException();
+        }
+        this.initialMaxStreamsBidi = checkValue(initialMaxStreamsBidi);
+    }
+
+    public long getAckDelayExponent() {
+        return ackDelayExponent;
+    }
+
+    /**
+     * Setter for the ack delay exponent, which cannot exceed 20
+     *
+     * @param ackDelayExponent the exponent
+     */
+    public void setAckDelayExponent(long ackDelayExponent) {
+        if (ackDelayExponent < 0 || ackDelayExponent > 20) {
+            throw new IllegalArgumentException();
+        }
+        this.ackDelayExponent = ackDelayExponent;
+    }
+
+    public long getMaxAckDelay() {
+        return maxAckDelay;
+    }
+
+    /**
+     * Setter for the maximum ack delay, which must be below 2^14 milliseconds
+     *
+     * @param maxAckDelay the delay in milliseconds
+     */
+    public void setMaxAckDelay(long maxAckDelay) {
+        if (maxAckDelay < 0 || maxAckDelay >= (1L << 14)) {
+            throw new IllegalArgumentException();
+        }
+        this.maxAckDelay = maxAckDelay;
+    }
+
+    public long getMinAckDelay() {
+        return minAckDelay;
+    }
+
+    public void setMinAckDelay(long minAckDelay) {
+        this.minAckDelay = checkValue(minAckDelay);
+    }
+
+    /**
+     * Encodes the parameters which differ from their defaults
+     *
+     * @return the encoded parameters
+     */
+    public byte[] encode() throws IOException {
+        TransportParameters defaults = new TransportParameters();
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        writeParameter(encoding, MAX_IDLE_TIMEOUT, maxIdleTimeout, defaults.maxIdleTimeout);
+        writeParameter(encoding, MAX_UDP_PAYLOAD_SIZE, maxUdpPayloadSize, defaults.maxUdpPayloadSize);
+        writeParameter(encoding, INITIAL_MAX_DATA, initialMaxData, defaults.initialMaxData);
+        writeParameter(encoding, INITIAL_MAX_STREAM_DATA_BIDI_LOCAL, initialMaxStreamDataBidiLocal, defaults.initialMaxStreamDataBidiLocal);
+        writeParameter(encoding, INITIAL_MAX_STREAM_DATA_BIDI_REMOTE, initialMaxStreamDataBidiRemote, defaults.initialMaxStreamDataBidiRemote);
+        writeParameter(encoding, INITIAL_MAX_STREAMS_BIDI, initialMaxStreamsBidi, defaults.initialMaxStreamsBidi);
+        writeParameter(encoding, ACK_DELAY_EXPONENT, ackDelayExponent, defaults.ackDelayExponent);
+        writeParameter(encoding, MAX_ACK_DELAY, maxAckDelay, defaults.maxAckDelay);
+        writeParameter(encoding, MIN_ACK_DELAY, minAckDelay, defaults.minAckDelay);
+        return encoding.toByteArray();
+    }
+
+    /**
+     * Decodes transport parameters received in the handshake
+     *
+     * @param arr the encoded parameters
+     * @return the parameters
+     * @throws QuicException with TRANSPORT_PARAMETER_ERROR if the parameters are malformed or invalid
+     */
+    public static TransportParameters decode(byte[] arr) throws QuicException {
+        TransportParameters parameters = new TransportParameters();
+        try {
+            int pointer = 0;
+            while (pointer < arr.length) {
+                //------------ Parameter ID ------------//
+                int idLen = Util.variableLengthIntegerLength(arr[pointer]);
+                long id = Util.variableLengthInteger(slice(arr, pointer, idLen), 1);
+                pointer = pointer + idLen;
+                //------------ Parameter Length ------------//
+                int lengthLen = Util.variableLengthIntegerLength(arr[pointer]);
+                long length = Util.variableLengthInteger(slice(arr, pointer, lengthLen), 1);
+                pointer = pointer + lengthLen;
+                byte[] value = slice(arr, pointer, (int) length);
+                pointer = pointer + (int) length;
+                if (id == MAX_IDLE_TIMEOUT) {
+                    parameters.setMaxIdleTimeout(valueOf(value));
+                } else if (id == MAX_UDP_PAYLOAD_SIZE) {
+                    parameters.setMaxUdpPayloadSize(valueOf(value));
+                } else if (id == INITIAL_MAX_DATA) {
+                    parameters.setInitialMaxData(valueOf(value));
+                } else if (id == INITIAL_MAX_STREAM_DATA_BIDI_LOCAL) {
+                    parameters.setInitialMaxStreamDataBidiLocal(valueOf(value));
+                } else if (id == INITIAL_MAX_STREAM_DATA_BIDI_REMOTE) {
+                    parameters.setInitialMaxStreamDataBidiRemote(valueOf(value));
+                } else if (id == INITIAL_MAX_STREAMS_BIDI) {
+                    parameters.setInitialMaxStreamsBidi(valueOf(value));
+                } else if (id == ACK_DELAY_EXPONENT) {
+                    parameters.setAckDelayExponent(valueOf(value));
+                } else if (id == MAX_ACK_DELAY) {
+                    parameters.setMaxAckDelay(valueOf(value));
+                } else if (id == MIN_ACK_DELAY) {
+                    parameters.setMinAckDelay(valueOf(value));
+                }                                   // unknown parameters are ignored
+            }
+            if (parameters.minAckDelay > parameters.maxAckDelay * 1000) {
+                throw new IllegalArgumentException();       // the minimum cannot exceed the maximum
+            }
+        } catch (Exception e) {
+            throw new QuicException(8, 6, "Transport parameter decoding error");
+        }
+        return parameters;
+    }
+
+    private static long checkValue(long value) {
+        if (value < 0 || value >= (long) Math.pow(2, 62)) {
+            throw new IllegalArgumentException();
+        }
+        return value;
+    }
+
+    private static void writeParameter(ByteArrayOutputStream encoding, long id, long value, long defaultValue) throws IOException {
+        if (value == defaultValue) {
+            return;
+        }
+        byte[] encodedValue = Util.generateVariableLengthInteger(value);
+        encoding.write(Util.generateVariableLengthInteger(id));                              // appending parameter ID
+        encoding.write(Util.generateVariableLengthInteger((long) encodedValue.length));      // appending parameter length
+        encoding.write(encodedValue);                                                        // appending parameter value
+    }
+
+    private static byte[] slice(byte[] arr, int from, int length) {
+        if (length < 0 || from + length > arr.length) {
+            throw new ArrayIndexOutOfBoundsException(from + length);
+        }
+        return Arrays.copyOfRange(arr, from, from + length);
+    }
+
+    /**
+     * Reads an integer parameter value, which must be exactly one variable length integer
+     */
+    private static long valueOf(byte[] value) {
+        if (value.length == 0 || Util.variableLengthIntegerLength(value[0]) != value.length) {
+            throw new IllegalArgumentException();
+        }
+        return Util.variableLengthInteger(value, 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TransportParameters)) return false;
+        TransportParameters that = (TransportParameters) o;
+        return maxIdleTimeout == that.maxIdleTimeout &&
+                maxUdpPayloadSize == that.maxUdpPayloadSize &&
+                initialMaxData == that.initialMaxData &&
+                initialMaxStreamDataBidiLocal == that.initialMaxStreamDataBidiLocal &&
+                initialMaxStreamDataBidiRemote == that.initialMaxStreamDataBidiRemote &&
+                initialMaxStreamsBidi == that.initialMaxStreamsBidi &&
+                ackDelayExponent == that.ackDelayExponent &&
+                maxAckDelay == that.maxAckDelay &&
+                minAckDelay == that.minAckDelay;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxIdleTimeout, maxUdpPayloadSize, initialMaxData, initialMaxStreamDataBidiLocal,
+                initialMaxStreamDataBidiRemote, initialMaxStreamsBidi, ackDelayExponent, maxAckDelay, minAckDelay);
+    }
+
+    @Override
+    public String toString() {
+        return "TransportParameters{" +
+                "maxIdleTimeout=" + maxIdleTimeout +
+                ", maxUdpPayloadSize=" + maxUdpPayloadSize +
+                ", initialMaxData=" + initialMaxData +
+                ", initialMaxStreamDataBidiLocal=" + initialMaxStreamDataBidiLocal +
+                ", initialMaxStreamDataBidiRemote=" + initialMaxStreamDataBidiRemote +
+                ", initialMaxStreamsBidi=" + initialMaxStreamsBidi +
+                ", ackDelayExponent=" + ackDelayExponent +
+                ", maxAckDelay=" + maxAckDelay +
+                ", minAckDelay=" + minAckDelay +
+                '}';
+    }
+}
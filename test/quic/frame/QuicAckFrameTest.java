@@ -12,6 +12,7 @@ import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
@@ -220,4 +221,57 @@ public class QuicAckFrameTest {
         }
 
     }
+
+    @Nested
+    public class AckRangesTest {
+        @Test
+        public void constructorTest() {
+            QuicAckFrame frame = new QuicAckFrame(20L, 3L, 2L,
+                    Arrays.asList(1L, 0L), Arrays.asList(4L, 2L));
+            assertEquals(20L, frame.getLargestAck());
+            assertEquals(3L, frame.getDelay());
+            assertEquals(2L, frame.getRangeCount());
+            assertEquals(2L, frame.getFirstAckRange());
+            assertEquals(Arrays.asList(1L, 0L), frame.getGaps());
+            assertEquals(Arrays.asList(4L, 2L), frame.getAckRanges());
+        }
+
+        @Test
+        public void testMismatchedRanges() {
+            assertThrows(IllegalArgumentException.class, () -> {
+                QuicAckFrame frame = new QuicAckFrame(20L, 0L, 2L,
+                        Arrays.asList(1L, 0L), Arrays.asList(4L));
+            });
+        }
+
+        @Test
+        public void testInvalidGap() {
+            assertThrows(IllegalArgumentException.class, () -> {
+                QuicAckFrame frame = new QuicAckFrame(20L, 0L, 2L,
+                        Arrays.asList(-1L), Arrays.asList(4L));
+            });
+        }
+
+        @Test
+        public void encodeTest() throws IOException {
+            QuicAckFrame frame = new QuicAckFrame(20L, 3L, 2L,
+                    Arrays.asList(1L, 0L), Arrays.asList(4L, 2L));
+
+            byte[] bytes = new byte[]{(byte) QuicAckFrame.FRAME_TYPE, 20, 3, 2,
+                    2, 1, 4, 0, 2};
+
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void decodeTest() throws QuicException {
+            byte[] bytes = new byte[]{(byte) QuicAckFrame.FRAME_TYPE, 20, 3, 2,
+                    2, 1, 4, 0, 2};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertTrue(frame instanceof QuicAckFrame);
+            assertEquals(new QuicAckFrame(20L, 3L, 2L,
+                    Arrays.asList(1L, 0L), Arrays.asList(4L, 2L)), frame);
+        }
+    }
 }
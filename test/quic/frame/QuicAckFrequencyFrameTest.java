@@ -0,0 +1,91 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicAckFrequencyFrame;
+import quic.serialization.frame.QuicFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicAckFrequencyFrame class
+ */
+public class QuicAckFrequencyFrameTest {
+    Stream<Long> getValidValues() {
+        return Stream.of(0L, 1L, 63L, 64L, 16383L, 16384L, 1073741823L, 1073741824L, 4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidValues() {
+        return Stream.of(-1L, 4611686018427387904L, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidValues() {
+            return getValidValues().map(value -> dynamicTest("value: " + value, () -> {
+                QuicAckFrequencyFrame frame = new QuicAckFrequencyFrame(value, value, value, value);
+                assertEquals(value.longValue(), frame.getSequenceNumber());
+                assertEquals(value.longValue(), frame.getAckElicitingThreshold());
+                assertEquals(value.longValue(), frame.getRequestMaxAckDelay());
+                assertEquals(value.longValue(), frame.getReorderingThreshold());
+            }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidValues() {
+            return getInvalidValues().map(value -> dynamicTest("value: " + value, () -> {
+                assertThrows(IllegalArgumentException.class, () -> new QuicAckFrequencyFrame(value, 2, 25000, 1));
+                assertThrows(IllegalArgumentException.class, () -> new QuicAckFrequencyFrame(0, value, 25000, 1));
+                assertThrows(IllegalArgumentException.class, () -> new QuicAckFrequencyFrame(0, 2, value, 1));
+                assertThrows(IllegalArgumentException.class, () -> new QuicAckFrequencyFrame(0, 2, 25000, value));
+            }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testEncode() throws IOException {
+            byte[] expected = {0x40, (byte) 0xaf, 0x05, 0x0a, 0x43, (byte) 0xe8, 0x01};
+            assertArrayEquals(expected, new QuicAckFrequencyFrame(5, 10, 1000, 1).encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidValues().map(value -> dynamicTest("value: " + value, () -> {
+                QuicAckFrequencyFrame frame = new QuicAckFrequencyFrame(value, 2, value, 1);
+                assertEquals(frame, QuicFrame.decode(frame.encode()));
+            }));
+        }
+
+        @Test
+        public void testTruncatedFrame() {
+            byte[] bytes = {0x40, (byte) 0xaf, 0x05, 0x0a, 0x43};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidValues().map(value -> dynamicTest("value: " + value, () -> {
+            QuicAckFrequencyFrame frame1 = new QuicAckFrequencyFrame(value, 2, 25000, 1);
+            QuicAckFrequencyFrame frame2 = new QuicAckFrequencyFrame(value, 2, 25000, 1);
+            assertEquals(frame1, frame2);
+            assertEquals(frame1.hashCode(), frame2.hashCode());
+        }));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("QuicAckFrequencyFrame{sequenceNumber=1, ackElicitingThreshold=2, requestMaxAckDelay=3, reorderingThreshold=4}",
+                new QuicAckFrequencyFrame(1, 2, 3, 4).toString());
+    }
+}
@@ -0,0 +1,96 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicCryptoFrame;
+import quic.serialization.frame.QuicFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicCryptoFrame class
+ */
+public class QuicCryptoFrameTest {
+    Stream<Long> getValidOffsets() {
+        return Stream.of(0L, 1L, 63L, 64L, 16384L, 4611686018427387903L);
+    }
+
+    Stream<byte[]> getValidData() {
+        return Stream.of(new byte[0], new byte[]{1}, new byte[]{1, 2, 3, 4}, new byte[100]);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidValues() {
+            return getValidOffsets().flatMap(offset -> getValidData().map(data ->
+                    dynamicTest("offset: " + offset + ", length: " + data.length, () -> {
+                        QuicCryptoFrame frame = new QuicCryptoFrame(offset, data);
+                        assertEquals(offset.longValue(), frame.getOffset());
+                        assertArrayEquals(data, frame.getData());
+                    })));
+        }
+
+        @Test
+        public void testInvalidOffset() {
+            assertThrows(IllegalArgumentException.class, () -> new QuicCryptoFrame(-1, new byte[0]));
+            assertThrows(IllegalArgumentException.class, () -> new QuicCryptoFrame(4611686018427387904L, new byte[0]));
+        }
+
+        @Test
+        public void testNullData() {
+            assertThrows(NullPointerException.class, () -> new QuicCryptoFrame(0, null));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testOneByteValues() throws IOException {
+            byte[] expected = {QuicCryptoFrame.FRAME_TYPE, 0, 3, 7, 8, 9};
+            assertArrayEquals(expected, new QuicCryptoFrame(0, new byte[]{7, 8, 9}).encode());
+        }
+
+        @Test
+        public void testMultipleByteOffset() throws IOException {
+            byte[] expected = {QuicCryptoFrame.FRAME_TYPE, 0x41, 0x00, 1, 5};
+            assertArrayEquals(expected, new QuicCryptoFrame(256, new byte[]{5}).encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidOffsets().flatMap(offset -> getValidData().map(data ->
+                    dynamicTest("offset: " + offset + ", length: " + data.length, () -> {
+                        QuicFrame frame = QuicFrame.decode(new QuicCryptoFrame(offset, data).encode());
+                        assertEquals(new QuicCryptoFrame(offset, data), frame);
+                    })));
+        }
+
+        @Test
+        public void testTruncatedData() {
+            byte[] bytes = {QuicCryptoFrame.FRAME_TYPE, 0, 5, 1, 2};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @Test
+    public void testEqualsAndHashcode() {
+        QuicCryptoFrame frame1 = new QuicCryptoFrame(3, new byte[]{1, 2});
+        QuicCryptoFrame frame2 = new QuicCryptoFrame(3, new byte[]{1, 2});
+        assertEquals(frame1, frame2);
+        assertEquals(frame1.hashCode(), frame2.hashCode());
+        assertNotEquals(frame1, new QuicCryptoFrame(3, new byte[]{1, 3}));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("QuicCryptoFrame{offset=3, length=2}", new QuicCryptoFrame(3, new byte[]{1, 2}).toString());
+    }
+}
@@ -0,0 +1,196 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicDataBlockedFrame;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicDataBlockedFrame class
+ */
+public class QuicDataBlockedFrameTest {
+    // The connection limit the sender was blocked at, a variable length
+    // integer from 0 to 2^62 - 1
+    Stream<Long> getValidBlockedLimits() {
+        return Stream.of(0L, 64L, 1200L, 16384L, 1048576L, 1073741823L,
+                1073741824L, 4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidBlockedLimits() {
+        return Stream.of(-1L, -1048576L, 4611686018427387904L,
+                Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidBlockedLimits() {
+            return getValidBlockedLimits().map(limit ->
+                    dynamicTest("blocked at: " + limit, () -> {
+                        QuicDataBlockedFrame frame =
+                                new QuicDataBlockedFrame(limit);
+                        assertEquals(limit.longValue(),
+                                frame.getMaximumData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidBlockedLimits() {
+            return getInvalidBlockedLimits().map(limit ->
+                    dynamicTest("blocked at: " + limit, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicDataBlockedFrame frame =
+                                    new QuicDataBlockedFrame(limit);
+                        });
+                    }));
+        }
+    }
+
+    @Nested
+    public class GettersAndSettersTest {
+        private QuicDataBlockedFrame frame;
+
+        @BeforeEach
+        public void init() {
+            this.frame = new QuicDataBlockedFrame(0);
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidBlockedLimits() {
+            return getValidBlockedLimits().map(limit -> dynamicTest(
+                    "blocked at: " + limit, () -> {
+                        this.frame.setMaximumData(limit);
+                        assertEquals(limit.longValue(),
+                                this.frame.getMaximumData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidBlockedLimits() {
+            return getInvalidBlockedLimits().map(limit -> dynamicTest(
+                    "blocked at: " + limit, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setMaximumData(limit);
+                        });
+                        assertEquals(0, this.frame.getMaximumData());
+                    }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testBlockedAtZero() throws IOException {
+            // a peer that never raised the initial limit of zero
+            QuicDataBlockedFrame frame = new QuicDataBlockedFrame(0);
+
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, 0};
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testTwoByteFrame() throws IOException {
+            QuicDataBlockedFrame frame = new QuicDataBlockedFrame(1200);
+
+            byte[] bytes = new byte[3];
+            bytes[0] = QuicDataBlockedFrame.FRAME_TYPE;
+            // Set the second bit
+            bytes[1] = (byte) ((1200 >> Byte.SIZE) + 64);
+            bytes[2] = (byte) 1200;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testFourByteFrame() throws IOException {
+            QuicDataBlockedFrame frame = new QuicDataBlockedFrame(1073741823);
+
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, (byte) 0xbf,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff};
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testEightByteFrame() throws IOException {
+            QuicDataBlockedFrame frame =
+                    new QuicDataBlockedFrame(4611686018427387903L);
+
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff};
+            assertArrayEquals(bytes, frame.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidBlockedLimits().map(limit ->
+                    dynamicTest("blocked at: " + limit, () -> {
+                        QuicFrame frame = QuicFrame.decode(
+                                new QuicDataBlockedFrame(limit).encode());
+                        assertTrue(frame instanceof QuicDataBlockedFrame);
+                        assertEquals(limit.longValue(),
+                                ((QuicDataBlockedFrame) frame)
+                                        .getMaximumData());
+                    }));
+        }
+
+        @Test
+        public void testTwoByteFrame() throws QuicException {
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, 0x44, (byte) 0xb0};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertEquals(new QuicDataBlockedFrame(1200), frame);
+        }
+
+        @Test
+        public void testMaxDataTypeIsNotBlocked() throws QuicException {
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE, 0x44, (byte) 0xb0};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertFalse(frame instanceof QuicDataBlockedFrame);
+            assertEquals(new QuicMaxDataFrame(1200), frame);
+        }
+
+        @Test
+        public void testTruncatedLimit() {
+            // an eight byte limit with only five of its bytes present
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, (byte) 0xc0,
+                    0x00, 0x00, 0x00, 0x40};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidBlockedLimits().map(limit ->
+                dynamicTest("blocked at: " + limit, () -> {
+                    QuicDataBlockedFrame frame1 =
+                            new QuicDataBlockedFrame(limit);
+                    QuicDataBlockedFrame frame2 =
+                            new QuicDataBlockedFrame(limit);
+                    assertEquals(frame1, frame2);
+                    assertEquals(frame1.hashCode(), frame2.hashCode());
+                    assertNotEquals(frame1, new QuicMaxDataFrame(limit));
+                }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testToString() {
+        return getValidBlockedLimits().map(limit ->
+                dynamicTest("blocked at: " + limit, () -> {
+                    QuicDataBlockedFrame frame =
+                            new QuicDataBlockedFrame(limit);
+                    assertEquals("QuicDataBlockedFrame{maximumData=" + limit
+                            + "}", frame.toString());
+                }));
+    }
+}
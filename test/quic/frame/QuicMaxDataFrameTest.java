@@ -0,0 +1,200 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicDataBlockedFrame;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxDataFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicMaxDataFrame class
+ */
+public class QuicMaxDataFrameTest {
+    // The connection limit is a variable length integer from 0 to 2^62 - 1,
+    // the values sit on both sides of each encoding length
+    Stream<Long> getValidMaximumData() {
+        return Stream.of(0L, 1L, 63L, 64L, 16383L, 16384L, 1073741823L,
+                1073741824L, 4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidMaximumData() {
+        return Stream.of(-1L, 4611686018427387904L, Long.MIN_VALUE,
+                Long.MAX_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidMaximumData() {
+            return getValidMaximumData().map(maximumData ->
+                    dynamicTest("maximum data: " + maximumData, () -> {
+                        QuicMaxDataFrame frame =
+                                new QuicMaxDataFrame(maximumData);
+                        assertEquals(maximumData.longValue(),
+                                frame.getMaximumData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidMaximumData() {
+            return getInvalidMaximumData().map(maximumData ->
+                    dynamicTest("maximum data: " + maximumData, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicMaxDataFrame frame =
+                                    new QuicMaxDataFrame(maximumData);
+                        });
+                    }));
+        }
+    }
+
+    @Nested
+    public class GettersAndSettersTest {
+        private QuicMaxDataFrame frame;
+
+        @BeforeEach
+        public void init() {
+            this.frame = new QuicMaxDataFrame(1048576);
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidMaximumData() {
+            return getValidMaximumData().map(maximumData -> dynamicTest(
+                    "maximum data: " + maximumData, () -> {
+                        this.frame.setMaximumData(maximumData);
+                        assertEquals(maximumData.longValue(),
+                                this.frame.getMaximumData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidMaximumData() {
+            return getInvalidMaximumData().map(maximumData -> dynamicTest(
+                    "maximum data: " + maximumData, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setMaximumData(maximumData);
+                        });
+                        // a rejected limit leaves the old one in place
+                        assertEquals(1048576, this.frame.getMaximumData());
+                    }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testOneByteFrame() throws IOException {
+            QuicMaxDataFrame frame = new QuicMaxDataFrame(63);
+
+            byte[] bytes = new byte[2];
+            bytes[0] = QuicMaxDataFrame.FRAME_TYPE;
+            bytes[1] = 63;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testTwoByteFrame() throws IOException {
+            QuicMaxDataFrame frame = new QuicMaxDataFrame(16383);
+
+            byte[] bytes = new byte[3];
+            bytes[0] = QuicMaxDataFrame.FRAME_TYPE;
+            // Set the second bit
+            bytes[1] = (byte) ((16383 >> Byte.SIZE) + 64);
+            bytes[2] = (byte) 16383;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testFourByteFrame() throws IOException {
+            QuicMaxDataFrame frame = new QuicMaxDataFrame(16384);
+
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE, (byte) 0x80, 0x00,
+                    0x40, 0x00};
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testEightByteFrame() throws IOException {
+            QuicMaxDataFrame frame = new QuicMaxDataFrame(1073741824);
+
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE, (byte) 0xc0, 0x00,
+                    0x00, 0x00, 0x40, 0x00, 0x00, 0x00};
+            assertArrayEquals(bytes, frame.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidMaximumData().map(maximumData ->
+                    dynamicTest("maximum data: " + maximumData, () -> {
+                        QuicFrame frame = QuicFrame.decode(
+                                new QuicMaxDataFrame(maximumData).encode());
+                        assertTrue(frame instanceof QuicMaxDataFrame);
+                        assertEquals(maximumData.longValue(),
+                                ((QuicMaxDataFrame) frame).getMaximumData());
+                    }));
+        }
+
+        @Test
+        public void testLargestLimit() throws QuicException {
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertEquals(new QuicMaxDataFrame(4611686018427387903L), frame);
+        }
+
+        @Test
+        public void testBlockedTypeIsNotMaxData() throws QuicException {
+            byte[] bytes = {QuicDataBlockedFrame.FRAME_TYPE, 63};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertFalse(frame instanceof QuicMaxDataFrame);
+            assertNotEquals(new QuicMaxDataFrame(63), frame);
+        }
+
+        @Test
+        public void testMissingLimit() {
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+
+        @Test
+        public void testTruncatedLimit() {
+            // a four byte limit cut off after its second byte
+            byte[] bytes = {QuicMaxDataFrame.FRAME_TYPE, (byte) 0x80, 0x01};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidMaximumData().map(maximumData ->
+                dynamicTest("maximum data: " + maximumData, () -> {
+                    QuicMaxDataFrame frame1 = new QuicMaxDataFrame(maximumData);
+                    QuicMaxDataFrame frame2 = new QuicMaxDataFrame(maximumData);
+                    assertEquals(frame1, frame2);
+                    assertEquals(frame1.hashCode(), frame2.hashCode());
+                    assertNotEquals(frame1,
+                            new QuicDataBlockedFrame(maximumData));
+                }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testToString() {
+        return getValidMaximumData().map(maximumData ->
+                dynamicTest("maximum data: " + maximumData, () -> {
+                    QuicMaxDataFrame frame = new QuicMaxDataFrame(maximumData);
+                    assertEquals("QuicMaxDataFrame{maximumData=" + maximumData
+                            + "}", frame.toString());
+                }));
+    }
+}
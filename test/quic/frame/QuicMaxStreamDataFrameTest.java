@@ -0,0 +1,280 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxStreamDataFrame;
+import quic.serialization.frame.QuicStreamDataBlockedFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicMaxStreamDataFrame class
+ */
+public class QuicMaxStreamDataFrameTest {
+    // Stream IDs range from 0 to 2^62 - 1, the low two bits give the
+    // initiator and direction of the stream
+    Stream<Long> getValidStreamIds() {
+        return Stream.of(0L, 1L, 2L, 3L, 4L, 63L, 64L, 16383L, 16384L,
+                4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidStreamIds() {
+        return Stream.of(-1L, -4L, 4611686018427387904L, Long.MIN_VALUE,
+                Long.MAX_VALUE);
+    }
+
+    // The stream limit is a variable length integer from 0 to 2^62 - 1
+    Stream<Long> getValidMaximumStreamData() {
+        return Stream.of(0L, 37L, 64L, 65536L, 1073741823L, 1073741824L,
+                4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidMaximumStreamData() {
+        return Stream.of(-1L, 4611686018427387904L, Long.MIN_VALUE,
+                Long.MAX_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidFrames() {
+            return getValidStreamIds().flatMap(streamId
+                    -> getValidMaximumStreamData().map(maximumStreamData ->
+                    dynamicTest("stream id: " + streamId
+                            + ", maximum stream data: " + maximumStreamData,
+                            () -> {
+                        QuicMaxStreamDataFrame frame =
+                                new QuicMaxStreamDataFrame(streamId,
+                                        maximumStreamData);
+                        assertEquals(streamId.longValue(),
+                                frame.getStreamId());
+                        assertEquals(maximumStreamData.longValue(),
+                                frame.getMaximumStreamData());
+                    })));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidStreamId() {
+            return getInvalidStreamIds().map(streamId ->
+                    dynamicTest("stream id: " + streamId, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicMaxStreamDataFrame frame =
+                                    new QuicMaxStreamDataFrame(streamId, 0);
+                        });
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidMaximumStreamData() {
+            return getInvalidMaximumStreamData().map(maximumStreamData ->
+                    dynamicTest("maximum stream data: " + maximumStreamData,
+                            () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicMaxStreamDataFrame frame =
+                                    new QuicMaxStreamDataFrame(4,
+                                            maximumStreamData);
+                        });
+                    }));
+        }
+    }
+
+    @Nested
+    public class GettersAndSettersTest {
+        private QuicMaxStreamDataFrame frame;
+
+        @BeforeEach
+        public void init() {
+            this.frame = new QuicMaxStreamDataFrame(4, 65536);
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidStreamIds() {
+            return getValidStreamIds().map(streamId -> dynamicTest(
+                    "stream id: " + streamId, () -> {
+                        this.frame.setStreamId(streamId);
+                        assertEquals(streamId.longValue(),
+                                this.frame.getStreamId());
+                        assertEquals(65536,
+                                this.frame.getMaximumStreamData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidStreamIds() {
+            return getInvalidStreamIds().map(streamId -> dynamicTest(
+                    "stream id: " + streamId, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setStreamId(streamId);
+                        });
+                        assertEquals(4, this.frame.getStreamId());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidMaximumStreamData() {
+            return getValidMaximumStreamData().map(maximumStreamData ->
+                    dynamicTest("maximum stream data: " + maximumStreamData,
+                            () -> {
+                        this.frame.setMaximumStreamData(maximumStreamData);
+                        assertEquals(maximumStreamData.longValue(),
+                                this.frame.getMaximumStreamData());
+                        assertEquals(4, this.frame.getStreamId());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidMaximumStreamData() {
+            return getInvalidMaximumStreamData().map(maximumStreamData ->
+                    dynamicTest("maximum stream data: " + maximumStreamData,
+                            () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setMaximumStreamData(maximumStreamData);
+                        });
+                        assertEquals(65536, this.frame.getMaximumStreamData());
+                    }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testOneByteValues() throws IOException {
+            QuicMaxStreamDataFrame frame = new QuicMaxStreamDataFrame(4, 37);
+
+            byte[] bytes = new byte[3];
+            bytes[0] = QuicMaxStreamDataFrame.FRAME_TYPE;
+            bytes[1] = 4;
+            bytes[2] = 37;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testMultipleByteValues() throws IOException {
+            QuicMaxStreamDataFrame frame =
+                    new QuicMaxStreamDataFrame(256, 65536);
+
+            byte[] bytes = new byte[7];
+            bytes[0] = QuicMaxStreamDataFrame.FRAME_TYPE;
+            // Set the second bit of the two byte stream ID
+            bytes[1] = (byte) ((256 >> Byte.SIZE) + 64);
+            bytes[2] = (byte) 256;
+            // Set the first bit of the four byte limit
+            bytes[3] = (byte) 0x80;
+            bytes[4] = (byte) (65536 >> 16);
+            bytes[5] = 0;
+            bytes[6] = 0;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testLargestStreamId() throws IOException {
+            QuicMaxStreamDataFrame frame =
+                    new QuicMaxStreamDataFrame(4611686018427387903L, 0);
+
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                    (byte) 0xff, (byte) 0xff, (byte) 0xff, 0};
+            assertArrayEquals(bytes, frame.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidStreamIds().flatMap(streamId
+                    -> getValidMaximumStreamData().map(maximumStreamData ->
+                    dynamicTest("stream id: " + streamId
+                            + ", maximum stream data: " + maximumStreamData,
+                            () -> {
+                        QuicFrame frame = QuicFrame.decode(
+                                new QuicMaxStreamDataFrame(streamId,
+                                        maximumStreamData).encode());
+                        assertEquals(new QuicMaxStreamDataFrame(streamId,
+                                maximumStreamData), frame);
+                    })));
+        }
+
+        @Test
+        public void testMultipleByteValues() throws QuicException {
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, 0x41, 0x00,
+                    (byte) 0x80, 0x01, 0x00, 0x00};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertTrue(frame instanceof QuicMaxStreamDataFrame);
+            QuicMaxStreamDataFrame maxStreamDataFrame =
+                    (QuicMaxStreamDataFrame) frame;
+            assertEquals(256, maxStreamDataFrame.getStreamId());
+            assertEquals(65536, maxStreamDataFrame.getMaximumStreamData());
+        }
+
+        @Test
+        public void testMissingMaximumStreamData() {
+            // the stream ID is complete but the limit never starts
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, 4};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+
+        @Test
+        public void testTruncatedStreamId() {
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, 0x41};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+
+        @Test
+        public void testTruncatedMaximumStreamData() {
+            // the four byte limit is cut off inside the second varint
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, 4,
+                    (byte) 0x80, 0x01};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidStreamIds().flatMap(streamId
+                -> getValidMaximumStreamData().map(maximumStreamData ->
+                dynamicTest("stream id: " + streamId
+                        + ", maximum stream data: " + maximumStreamData,
+                        () -> {
+                    QuicMaxStreamDataFrame frame1 =
+                            new QuicMaxStreamDataFrame(streamId,
+                                    maximumStreamData);
+                    QuicMaxStreamDataFrame frame2 =
+                            new QuicMaxStreamDataFrame(streamId,
+                                    maximumStreamData);
+                    assertEquals(frame1, frame2);
+                    assertEquals(frame1.hashCode(), frame2.hashCode());
+                    assertNotEquals(frame1, new QuicStreamDataBlockedFrame(
+                            streamId, maximumStreamData));
+                })));
+    }
+
+    @Test
+    public void testNotEqualOnOtherStream() {
+        QuicMaxStreamDataFrame frame = new QuicMaxStreamDataFrame(8, 1024);
+        assertNotEquals(frame, new QuicMaxStreamDataFrame(12, 1024));
+        assertNotEquals(frame, new QuicMaxStreamDataFrame(8, 1025));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testToString() {
+        return getValidStreamIds().flatMap(streamId
+                -> getValidMaximumStreamData().map(maximumStreamData ->
+                dynamicTest("stream id: " + streamId
+                        + ", maximum stream data: " + maximumStreamData,
+                        () -> {
+                    QuicMaxStreamDataFrame frame =
+                            new QuicMaxStreamDataFrame(streamId,
+                                    maximumStreamData);
+                    assertEquals("QuicMaxStreamDataFrame{streamId="
+                            + streamId + ", maximumStreamData="
+                            + maximumStreamData + "}", frame.toString());
+                })));
+    }
+}
@@ -0,0 +1,147 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicPaddingFrame;
+import quic.serialization.frame.QuicPingFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicPaddingFrame class
+ */
+public class QuicPaddingFrameTest {
+    // A run holds at least one padding byte, probes pad up to a full datagram
+    Stream<Integer> getValidLengths() {
+        return Stream.of(1, 2, 63, 64, 1200, 1472);
+    }
+
+    Stream<Integer> getInvalidLengths() {
+        return Stream.of(0, -1, -1200, Integer.MIN_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidLengths() {
+            return getValidLengths().map(length ->
+                    dynamicTest("length: " + length, () -> {
+                        QuicPaddingFrame frame = new QuicPaddingFrame(length);
+                        assertEquals(length.intValue(), frame.getLength());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidLengths() {
+            return getInvalidLengths().map(length ->
+                    dynamicTest("length: " + length, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicPaddingFrame frame =
+                                    new QuicPaddingFrame(length);
+                        });
+                    }));
+        }
+    }
+
+    @Nested
+    public class GettersAndSettersTest {
+        private QuicPaddingFrame frame;
+
+        @BeforeEach
+        public void init() {
+            this.frame = new QuicPaddingFrame(1);
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidLengths() {
+            return getValidLengths().map(length -> dynamicTest(
+                    "length: " + length, () -> {
+                        this.frame.setLength(length);
+                        assertEquals(length.intValue(), this.frame.getLength());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidLengths() {
+            return getInvalidLengths().map(length -> dynamicTest(
+                    "length: " + length, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setLength(length);
+                        });
+                        assertEquals(1, this.frame.getLength());
+                    }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testOnlyZeroBytes() {
+            return getValidLengths().map(length ->
+                    dynamicTest("length: " + length, () -> {
+                        byte[] bytes = new QuicPaddingFrame(length).encode();
+                        assertEquals(length.intValue(), bytes.length);
+                        for (byte b : bytes) {
+                            assertEquals(QuicPaddingFrame.FRAME_TYPE, b);
+                        }
+                    }));
+        }
+
+        @Test
+        public void testLengthChange() throws IOException {
+            QuicPaddingFrame frame = new QuicPaddingFrame(3);
+            frame.setLength(5);
+            assertArrayEquals(new byte[5], frame.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRunBecomesOneFrame() {
+            return getValidLengths().map(length ->
+                    dynamicTest("length: " + length, () -> {
+                        QuicFrame frame = QuicFrame.decode(new byte[length]);
+                        assertTrue(frame instanceof QuicPaddingFrame);
+                        assertEquals(length.intValue(),
+                                ((QuicPaddingFrame) frame).getLength());
+                    }));
+        }
+
+        @Test
+        public void testRunEndsAtOtherFrame() throws QuicException {
+            // three padding bytes followed by a PING
+            byte[] bytes = {0, 0, 0, QuicPingFrame.FRAME_TYPE};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertEquals(new QuicPaddingFrame(3), frame);
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidLengths().map(length ->
+                dynamicTest("length: " + length, () -> {
+                    QuicPaddingFrame frame1 = new QuicPaddingFrame(length);
+                    QuicPaddingFrame frame2 = new QuicPaddingFrame(length);
+                    assertEquals(frame1, frame2);
+                    assertEquals(frame1.hashCode(), frame2.hashCode());
+                    assertNotEquals(frame1, new QuicPaddingFrame(length + 1));
+                }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testToString() {
+        return getValidLengths().map(length ->
+                dynamicTest("length: " + length, () -> {
+                    QuicPaddingFrame frame = new QuicPaddingFrame(length);
+                    assertEquals("QuicPaddingFrame{length=" + length + "}",
+                            frame.toString());
+                }));
+    }
+}
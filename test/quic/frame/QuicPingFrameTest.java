@@ -0,0 +1,37 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicPingFrame;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the QuicPingFrame class
+ */
+public class QuicPingFrameTest {
+    @Test
+    public void testEncode() throws IOException {
+        byte[] expected = {QuicPingFrame.FRAME_TYPE};
+        assertArrayEquals(expected, new QuicPingFrame().encode());
+    }
+
+    @Test
+    public void testDecode() throws IOException, QuicException {
+        assertEquals(new QuicPingFrame(), QuicFrame.decode(new QuicPingFrame().encode()));
+    }
+
+    @Test
+    public void testEqualsAndHashcode() {
+        assertEquals(new QuicPingFrame(), new QuicPingFrame());
+        assertEquals(new QuicPingFrame().hashCode(), new QuicPingFrame().hashCode());
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("QuicPingFrame{}", new QuicPingFrame().toString());
+    }
+}
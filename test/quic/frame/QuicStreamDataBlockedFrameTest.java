@@ -0,0 +1,247 @@
+package quic.frame;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicMaxStreamDataFrame;
+import quic.serialization.frame.QuicStreamDataBlockedFrame;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Tests for the QuicStreamDataBlockedFrame class
+ */
+public class QuicStreamDataBlockedFrameTest {
+    // Stream IDs range from 0 to 2^62 - 1, both ends and the first IDs
+    // needing two, four and eight bytes
+    Stream<Long> getValidStreamIds() {
+        return Stream.of(0L, 4L, 8L, 64L, 16384L, 1073741824L,
+                4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidStreamIds() {
+        return Stream.of(-1L, 4611686018427387904L, Long.MIN_VALUE,
+                Long.MAX_VALUE);
+    }
+
+    // The stream limit the sender was blocked at
+    Stream<Long> getValidBlockedLimits() {
+        return Stream.of(0L, 63L, 16383L, 262144L, 4611686018427387903L);
+    }
+
+    Stream<Long> getInvalidBlockedLimits() {
+        return Stream.of(-1L, -262144L, 4611686018427387904L,
+                Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Nested
+    public class ConstructorTest {
+        @TestFactory
+        public Stream<DynamicTest> testValidFrames() {
+            return getValidStreamIds().flatMap(streamId
+                    -> getValidBlockedLimits().map(limit ->
+                    dynamicTest("stream id: " + streamId
+                            + ", blocked at: " + limit, () -> {
+                        QuicStreamDataBlockedFrame frame =
+                                new QuicStreamDataBlockedFrame(streamId,
+                                        limit);
+                        assertEquals(streamId.longValue(),
+                                frame.getStreamId());
+                        assertEquals(limit.longValue(),
+                                frame.getMaximumStreamData());
+                    })));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidStreamId() {
+            return getInvalidStreamIds().map(streamId ->
+                    dynamicTest("stream id: " + streamId, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicStreamDataBlockedFrame frame =
+                                    new QuicStreamDataBlockedFrame(streamId,
+                                            262144);
+                        });
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidBlockedLimit() {
+            return getInvalidBlockedLimits().map(limit ->
+                    dynamicTest("blocked at: " + limit, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            QuicStreamDataBlockedFrame frame =
+                                    new QuicStreamDataBlockedFrame(0, limit);
+                        });
+                    }));
+        }
+    }
+
+    @Nested
+    public class GettersAndSettersTest {
+        private QuicStreamDataBlockedFrame frame;
+
+        @BeforeEach
+        public void init() {
+            this.frame = new QuicStreamDataBlockedFrame(0, 0);
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidStreamIds() {
+            return getValidStreamIds().map(streamId -> dynamicTest(
+                    "stream id: " + streamId, () -> {
+                        this.frame.setStreamId(streamId);
+                        assertEquals(streamId.longValue(),
+                                this.frame.getStreamId());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidStreamIds() {
+            return getInvalidStreamIds().map(streamId -> dynamicTest(
+                    "stream id: " + streamId, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setStreamId(streamId);
+                        });
+                        assertEquals(0, this.frame.getStreamId());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testValidBlockedLimits() {
+            return getValidBlockedLimits().map(limit -> dynamicTest(
+                    "blocked at: " + limit, () -> {
+                        this.frame.setMaximumStreamData(limit);
+                        assertEquals(limit.longValue(),
+                                this.frame.getMaximumStreamData());
+                    }));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testInvalidBlockedLimits() {
+            return getInvalidBlockedLimits().map(limit -> dynamicTest(
+                    "blocked at: " + limit, () -> {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            this.frame.setMaximumStreamData(limit);
+                        });
+                        assertEquals(0, this.frame.getMaximumStreamData());
+                    }));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testOneByteValues() throws IOException {
+            QuicStreamDataBlockedFrame frame =
+                    new QuicStreamDataBlockedFrame(8, 63);
+
+            byte[] bytes = new byte[3];
+            bytes[0] = QuicStreamDataBlockedFrame.FRAME_TYPE;
+            bytes[1] = 8;
+            bytes[2] = 63;
+            assertArrayEquals(bytes, frame.encode());
+        }
+
+        @Test
+        public void testMultipleByteValues() throws IOException {
+            QuicStreamDataBlockedFrame frame =
+                    new QuicStreamDataBlockedFrame(16384, 16383);
+
+            byte[] bytes = new byte[7];
+            bytes[0] = QuicStreamDataBlockedFrame.FRAME_TYPE;
+            // Set the first bit of the four byte stream ID
+            bytes[1] = (byte) 0x80;
+            bytes[2] = 0;
+            bytes[3] = (byte) (16384 >> Byte.SIZE);
+            bytes[4] = 0;
+            // Set the second bit of the two byte limit
+            bytes[5] = (byte) ((16383 >> Byte.SIZE) + 64);
+            bytes[6] = (byte) 16383;
+            assertArrayEquals(bytes, frame.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @TestFactory
+        public Stream<DynamicTest> testRoundTrip() {
+            return getValidStreamIds().flatMap(streamId
+                    -> getValidBlockedLimits().map(limit ->
+                    dynamicTest("stream id: " + streamId
+                            + ", blocked at: " + limit, () -> {
+                        QuicFrame frame = QuicFrame.decode(
+                                new QuicStreamDataBlockedFrame(streamId,
+                                        limit).encode());
+                        assertEquals(new QuicStreamDataBlockedFrame(streamId,
+                                limit), frame);
+                    })));
+        }
+
+        @Test
+        public void testMaxStreamDataTypeIsNotBlocked() throws QuicException {
+            byte[] bytes = {QuicMaxStreamDataFrame.FRAME_TYPE, 8, 63};
+
+            QuicFrame frame = QuicFrame.decode(bytes);
+            assertFalse(frame instanceof QuicStreamDataBlockedFrame);
+            assertEquals(new QuicMaxStreamDataFrame(8, 63), frame);
+        }
+
+        @Test
+        public void testMissingBlockedLimit() {
+            byte[] bytes = {QuicStreamDataBlockedFrame.FRAME_TYPE, (byte) 0x80,
+                    0x00, 0x40, 0x00};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+
+        @Test
+        public void testTruncatedStreamId() {
+            // the four byte stream ID is cut off before the limit
+            byte[] bytes = {QuicStreamDataBlockedFrame.FRAME_TYPE, (byte) 0x80,
+                    0x00, 0x40};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+
+        @Test
+        public void testTruncatedBlockedLimit() {
+            // the eight byte limit is cut off inside the second varint
+            byte[] bytes = {QuicStreamDataBlockedFrame.FRAME_TYPE, 8,
+                    (byte) 0xc0, 0x00, 0x00, 0x00};
+            assertThrows(QuicException.class, () -> QuicFrame.decode(bytes));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEqualsAndHashcode() {
+        return getValidStreamIds().flatMap(streamId
+                -> getValidBlockedLimits().map(limit ->
+                dynamicTest("stream id: " + streamId
+                        + ", blocked at: " + limit, () -> {
+                    QuicStreamDataBlockedFrame frame1 =
+                            new QuicStreamDataBlockedFrame(streamId, limit);
+                    QuicStreamDataBlockedFrame frame2 =
+                            new QuicStreamDataBlockedFrame(streamId, limit);
+                    assertEquals(frame1, frame2);
+                    assertEquals(frame1.hashCode(), frame2.hashCode());
+                    assertNotEquals(frame1,
+                            new QuicMaxStreamDataFrame(streamId, limit));
+                })));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testToString() {
+        return getValidStreamIds().flatMap(streamId
+                -> getValidBlockedLimits().map(limit ->
+                dynamicTest("stream id: " + streamId
+                        + ", blocked at: " + limit, () -> {
+                    QuicStreamDataBlockedFrame frame =
+                            new QuicStreamDataBlockedFrame(streamId, limit);
+                    assertEquals("QuicStreamDataBlockedFrame{streamId="
+                            + streamId + ", maximumStreamData=" + limit
+                            + "}", frame.toString());
+                })));
+    }
+}
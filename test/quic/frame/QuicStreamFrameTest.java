@@ -5,6 +5,7 @@ import quic.serialization.frame.QuicFrame;
 import quic.serialization.frame.QuicStreamFrame;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -1236,6 +1237,73 @@ public class QuicStreamFrameTest {
     }
 
 
+    @Nested
+    public class BufferPayloadTest {
+        private ByteBuffer sliceOf(byte[] data) {
+            ByteBuffer buffer = ByteBuffer.allocate(data.length + 6);
+            buffer.position(3);
+            buffer.put(data);
+            buffer.position(3);
+            buffer.limit(3 + data.length);
+            return buffer.asReadOnlyBuffer();
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testEncodeIntoBuffer() {
+            return getValidStreamIds().flatMap(streamId
+                    -> getValidOffset().flatMap(offset
+                    -> getValidData().map(data -> dynamicTest("streamId = "
+                    + streamId + ", offset # = " + offset + ", data = "
+                    + Arrays.toString(data), () -> {
+                QuicStreamFrame expected = new QuicStreamFrame(streamId,
+                        offset, true, data);
+                QuicStreamFrame frame = new QuicStreamFrame(streamId,
+                        offset, true, sliceOf(data));
+                ByteBuffer out = ByteBuffer.allocate(64);
+                frame.encode(out);
+                assertArrayEquals(expected.encode(),
+                        Arrays.copyOf(out.array(), out.position()));
+                assertArrayEquals(expected.encode(), frame.encode());
+                assertEquals(data.length, frame.getDataLength());
+                assertArrayEquals(data, frame.getData());
+            }))));
+        }
+
+        @TestFactory
+        public Stream<DynamicTest> testEqualsArrayPayload() {
+            return getValidData().map(data -> dynamicTest("data = "
+                    + Arrays.toString(data), () -> {
+                QuicStreamFrame f1 = new QuicStreamFrame(5L, 100L, false,
+                        data);
+                QuicStreamFrame f2 = new QuicStreamFrame(5L, 100L, false,
+                        sliceOf(data));
+                assertEquals(f1, f2);
+                assertEquals(f1.hashCode(), f2.hashCode());
+                assertArrayEquals(f1.getData(), f2.getData());
+            }));
+        }
+
+        @Test
+        public void testNotEqualWithOtherLength() throws Exception {
+            QuicStreamFrame f1 = new QuicStreamFrame(5L, 100L, false,
+                    sliceOf("aaaaa".getBytes(CHARSET)));
+            QuicStreamFrame f2 = new QuicStreamFrame(5L, 100L, false,
+                    sliceOf("aaaa".getBytes(CHARSET)));
+            assertNotEquals(f1, f2);
+        }
+
+        @Test
+        public void testEncodeLeavesPayloadUntouched() throws Exception {
+            ByteBuffer payload = sliceOf("aaaaa".getBytes(CHARSET));
+            QuicStreamFrame frame = new QuicStreamFrame(1L, 0L, false,
+                    payload);
+            frame.encode(ByteBuffer.allocate(64));
+            frame.encode(ByteBuffer.allocate(64));
+            assertEquals(5, payload.remaining());
+            assertEquals(5, frame.getDataLength());
+        }
+    }
+
     @TestFactory
     public Stream<DynamicTest> testToString() {
         return getValidStreamIds().flatMap(streamId
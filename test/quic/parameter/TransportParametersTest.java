@@ -0,0 +1,142 @@
+package quic.parameter;
+
+import org.junit.jupiter.api.*;
+import quic.serialization.exception.QuicException;
+import quic.serialization.parameter.TransportParameters;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the TransportParameters class
+ */
+public class TransportParametersTest {
+    private TransportParameters getParameters() {
+        TransportParameters parameters = new TransportParameters();
+        parameters.setMaxIdleTimeout(30000);
+        parameters.setMaxUdpPayloadSize(1300);
+        parameters.setInitialMaxData(1 << 20);
+        parameters.setInitialMaxStreamDataBidiLocal(1 << 19);
+        parameters.setInitialMaxStreamDataBidiRemote(64);
+        parameters.setInitialMaxStreamsBidi(100);
+        parameters.setAckDelayExponent(4);
+        parameters.setMaxAckDelay(0);
+        return parameters;
+    }
+
+    @Nested
+    public class DefaultsTest {
+        @Test
+        public void testDefaults() {
+            TransportParameters parameters = new TransportParameters();
+            assertEquals(0, parameters.getMaxIdleTimeout());
+            assertEquals(65527, parameters.getMaxUdpPayloadSize());
+            assertEquals(0, parameters.getInitialMaxData());
+            assertEquals(0, parameters.getInitialMaxStreamDataBidiLocal());
+            assertEquals(0, parameters.getInitialMaxStreamDataBidiRemote());
+            assertEquals(0, parameters.getInitialMaxStreamsBidi());
+            assertEquals(3, parameters.getAckDelayExponent());
+            assertEquals(25, parameters.getMaxAckDelay());
+            assertEquals(0, parameters.getMinAckDelay());
+        }
+
+        @Test
+        public void testDefaultsAreNotEncoded() throws IOException {
+            assertEquals(0, new TransportParameters().encode().length);
+        }
+    }
+
+    @Nested
+    public class SettersTest {
+        @Test
+        public void testInvalidMaxUdpPayloadSize() {
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setMaxUdpPayloadSize(1199));
+        }
+
+        @Test
+        public void testInvalidAckDelayExponent() {
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setAckDelayExponent(21));
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setAckDelayExponent(-1));
+        }
+
+        @Test
+        public void testInvalidMaxAckDelay() {
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setMaxAckDelay(16384));
+        }
+
+        @Test
+        public void testInvalidMaxStreams() {
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setInitialMaxStreamsBidi((1L << 60) + 1));
+        }
+
+        @Test
+        public void testNegativeValue() {
+            assertThrows(IllegalArgumentException.class, () -> new TransportParameters().setInitialMaxData(-1));
+        }
+    }
+
+    @Nested
+    public class EncodeTest {
+        @Test
+        public void testSingleParameter() throws IOException {
+            TransportParameters parameters = new TransportParameters();
+            parameters.setInitialMaxStreamsBidi(100);
+            byte[] expected = {0x08, 0x02, 0x40, 0x64};
+            assertArrayEquals(expected, parameters.encode());
+        }
+    }
+
+    @Nested
+    public class DecodeTest {
+        @Test
+        public void testRoundTrip() throws IOException, QuicException {
+            TransportParameters parameters = getParameters();
+            assertEquals(parameters, TransportParameters.decode(parameters.encode()));
+        }
+
+        @Test
+        public void testUnknownParameterIsSkipped() throws QuicException {
+            byte[] bytes = {0x20, 0x02, 0x01, 0x02, 0x04, 0x01, 0x10};
+            TransportParameters parameters = TransportParameters.decode(bytes);
+            assertEquals(16, parameters.getInitialMaxData());
+        }
+
+        @Test
+        public void testTruncatedParameter() {
+            byte[] bytes = {0x04, 0x04, 0x10};
+            assertThrows(QuicException.class, () -> TransportParameters.decode(bytes));
+        }
+
+        @Test
+        public void testValueLengthMismatch() {
+            byte[] bytes = {0x04, 0x02, 0x10, 0x00};
+            assertThrows(QuicException.class, () -> TransportParameters.decode(bytes));
+        }
+
+        @Test
+        public void testMinAckDelay() throws QuicException {
+            byte[] bytes = {(byte) 0xc0, 0x00, 0x00, 0x00, (byte) 0xff, 0x04, (byte) 0xde, 0x1b, 0x02, 0x43, (byte) 0xe8};
+            assertEquals(1000, TransportParameters.decode(bytes).getMinAckDelay());
+        }
+
+        @Test
+        public void testMinAckDelayAboveMaxAckDelay() {
+            byte[] bytes = {(byte) 0xc0, 0x00, 0x00, 0x00, (byte) 0xff, 0x04, (byte) 0xde, 0x1b, 0x04, (byte) 0x80, 0x00, 0x75, 0x30};
+            assertThrows(QuicException.class, () -> TransportParameters.decode(bytes));
+        }
+
+        @Test
+        public void testInvalidValue() {
+            byte[] bytes = {0x0a, 0x01, 0x15};
+            assertThrows(QuicException.class, () -> TransportParameters.decode(bytes));
+        }
+    }
+
+    @Test
+    public void testEqualsAndHashcode() {
+        assertEquals(getParameters(), getParameters());
+        assertEquals(getParameters().hashCode(), getParameters().hashCode());
+        assertNotEquals(new TransportParameters(), getParameters());
+    }
+}
@@ -0,0 +1,212 @@
+package quic.server;
+
+import org.junit.jupiter.api.*;
+import quic.app.server.ChunkStore;
+import quic.app.server.FileHandle;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicStreamFrame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ChunkStore class
+ */
+public class ChunkStoreTest {
+    private static final Executor DIRECT = Runnable::run;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int FILE_SIZE = 2500;
+
+    private Path directory;
+    private Path source;
+    private byte[] data;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        directory = Files.createTempDirectory("chunk-store");
+        source = directory.resolve("source.bin");
+        data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        Files.write(source, data);
+    }
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private ChunkStore newStore(Executor ingester) {
+        return new ChunkStore(directory.toFile(), CHUNK_SIZE, ingester);
+    }
+
+    @Nested
+    public class OpenTest {
+        @Test
+        public void testFirstOpenIngests() throws IOException {
+            ChunkStore store = newStore(DIRECT);
+            FileHandle file = FileHandle.open(source.toString());
+            ChunkStore.PreframedSource preframed = store.open("a", file);
+            assertEquals(FILE_SIZE, preframed.size());
+            assertEquals(1, store.getIngested());
+            assertSame(preframed, store.open("a", file));
+            assertEquals(1, store.getIngested());
+            file.release();
+        }
+
+        @Test
+        public void testExistingStoreReused() throws IOException {
+            FileHandle file = FileHandle.open(source.toString());
+            newStore(DIRECT).open("a", file);
+            ChunkStore store = newStore(DIRECT);
+            assertNotNull(store.open("a", file));
+            assertEquals(0, store.getIngested());
+            file.release();
+        }
+
+        @Test
+        public void testModifiedFileIngestedAgain() throws IOException {
+            ChunkStore store = newStore(DIRECT);
+            FileHandle file = FileHandle.open(source.toString());
+            store.open("a", file);
+            file.release();
+            data[0] = 42;
+            Files.write(source, data);
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+            file = FileHandle.open(source.toString());
+            ChunkStore.PreframedSource preframed = store.open("a", file);
+            assertEquals(2, store.getIngested());
+            assertEquals(42, preframed.slice(0, 1).get());
+            file.release();
+        }
+
+        @Test
+        public void testStreamsHoldReferences() throws IOException {
+            ChunkStore store = newStore(DIRECT);
+            FileHandle file = FileHandle.open(source.toString());
+            ChunkStore.PreframedSource first = store.open("a", file);
+            ChunkStore.PreframedSource second = store.open("a", file);
+            assertEquals(3, first.getReferenceCount());     // the store and both streams
+            first.close();
+            second.close();
+            assertEquals(1, first.getReferenceCount());
+            assertNotNull(first.frame(4, 0));
+            file.release();
+        }
+
+        @Test
+        public void testOutdatedStoreReleasedWithLastStream() throws IOException {
+            ChunkStore store = newStore(DIRECT);
+            FileHandle file = FileHandle.open(source.toString());
+            ChunkStore.PreframedSource outdated = store.open("a", file);
+            file.release();
+            Files.write(source, data);
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+            file = FileHandle.open(source.toString());
+            ChunkStore.PreframedSource current = store.open("a", file);
+            assertEquals(1, outdated.getReferenceCount());      // the store let go of it
+            assertNotNull(outdated.frame(4, 0));
+            outdated.close();
+            assertEquals(0, outdated.getReferenceCount());
+            assertThrows(IOException.class, () -> outdated.frame(4, 0));
+            assertFalse(outdated.retain());
+            assertEquals(2, current.getReferenceCount());
+            current.close();
+            file.release();
+        }
+
+        @Test
+        public void testConcurrentOpensShareOneIngest() throws Exception {
+            final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+            final ChunkStore store = newStore(tasks::add);
+            final FileHandle file = FileHandle.open(source.toString());
+            final ChunkStore.PreframedSource[] sources = new ChunkStore.PreframedSource[2];
+            Thread[] threads = new Thread[2];
+            for (int i = 0; i < threads.length; i++) {
+                final int index = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        sources[index] = store.open("a", file);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                threads[i].start();
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.getCoalesced() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, store.getCoalesced());
+            assertEquals(1, tasks.size());
+            tasks.get(0).run();
+            for (Thread thread : threads) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+            assertEquals(1, store.getIngested());
+            assertNotNull(sources[0]);
+            assertSame(sources[0], sources[1]);
+            file.release();
+        }
+    }
+
+    @Nested
+    public class ServeTest {
+        private ChunkStore.PreframedSource preframed;
+
+        @BeforeEach
+        public void open() throws IOException {
+            FileHandle file = FileHandle.open(source.toString());
+            preframed = newStore(DIRECT).open("a", file);
+            file.release();
+        }
+
+        @Test
+        public void testFrameDecodesToChunk() throws Exception {
+            QuicStreamFrame frame = (QuicStreamFrame) QuicFrame.decode(preframed.frame(4, 1000).encode());
+            assertEquals(4, frame.getStreamId());
+            assertEquals(1000, frame.getOffset());
+            assertFalse(frame.isEndOfStream());
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 2000), frame.getData());
+        }
+
+        @Test
+        public void testLastFrameEndsStream() throws Exception {
+            QuicStreamFrame frame = (QuicStreamFrame) QuicFrame.decode(preframed.frame(4, 2000).encode());
+            assertTrue(frame.isEndOfStream());
+            assertArrayEquals(Arrays.copyOfRange(data, 2000, FILE_SIZE), frame.getData());
+        }
+
+        @Test
+        public void testFrameOffsetNotAtChunk() {
+            assertThrows(IOException.class, () -> preframed.frame(4, 500));
+        }
+
+        @Test
+        public void testSliceAcrossChunks() throws IOException {
+            ByteBuffer slice = preframed.slice(900, 300);
+            byte[] bytes = new byte[slice.remaining()];
+            slice.get(bytes);
+            assertArrayEquals(Arrays.copyOfRange(data, 900, 1200), bytes);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package quic.server;
+
+import org.junit.jupiter.api.*;
+import quic.app.server.CachedContent;
+import quic.app.server.ContentCache;
+import quic.app.server.FileDataSource;
+import quic.app.server.FileHandle;
+import quic.app.server.StreamDataSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ContentCache class
+ */
+public class ContentCacheTest {
+    private static final Executor DIRECT = Runnable::run;
+
+    private List<Path> files = new ArrayList<>();
+
+    private FileHandle createFile(int size) throws IOException {
+        Path path = Files.createTempFile("content-cache", ".bin");
+        files.add(path);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        Files.write(path, data);
+        return FileHandle.open(path.toString());
+    }
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        for (Path path : files) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Nested
+    public class OpenTest {
+        @Test
+        public void testMissLoadsAndHitServesFromMemory() throws IOException {
+            ContentCache cache = new ContentCache(1 << 20, DIRECT);
+            FileHandle file = createFile(100000);
+            StreamDataSource first = cache.open("a", file);
+            assertTrue(first instanceof CachedContent);
+            StreamDataSource second = cache.open("a", file);
+            assertSame(first, second);
+            assertEquals(1, cache.getLoaded());
+            assertEquals(1, cache.getHits());
+            ByteBuffer slice = second.slice(70000, 3);
+            assertEquals((byte) 70000, slice.get(0));
+            assertEquals((byte) 70002, slice.get(2));
+            first.close();
+            second.close();
+            file.release();
+        }
+
+        @Test
+        public void testConcurrentOpensShareOneLoad() throws Exception {
+            final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+            final ContentCache cache = new ContentCache(1 << 20, tasks::add);
+            final FileHandle file = createFile(100000);
+            final StreamDataSource[] sources = new StreamDataSource[2];
+            Thread[] threads = new Thread[2];
+            for (int i = 0; i < threads.length; i++) {
+                final int index = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        sources[index] = cache.open("a", file);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                threads[i].start();
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getCoalesced() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, cache.getCoalesced());
+            assertEquals(1, tasks.size());
+            tasks.get(0).run();
+            for (Thread thread : threads) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+            assertEquals(1, cache.getLoaded());
+            assertTrue(sources[0] instanceof CachedContent);
+            assertSame(sources[0], sources[1]);
+            assertEquals(3, ((CachedContent) sources[0]).getReferenceCount());     // the cache and both streams
+            sources[0].close();
+            sources[1].close();
+            file.release();
+        }
+
+        @Test
+        public void testFileLargerThanCacheServedFromFile() throws IOException {
+            ContentCache cache = new ContentCache(1000, DIRECT);
+            FileHandle file = createFile(5000);
+            StreamDataSource source = cache.open("a", file);
+            assertTrue(source instanceof FileDataSource);
+            assertEquals(0, cache.getLoaded());
+            assertEquals(1, cache.getRejections());
+            assertEquals(5000, source.size());
+            source.close();
+            file.release();
+        }
+    }
+
+    @Nested
+    public class AdmissionTest {
+        @Test
+        public void testLeastRecentlyUsedEvicted() throws IOException {
+            ContentCache cache = new ContentCache(250000, DIRECT);
+            FileHandle a = createFile(100000);
+            FileHandle b = createFile(100000);
+            FileHandle c = createFile(100000);
+            cache.open("a", a).close();
+            cache.open("b", b).close();
+            cache.open("a", a).close();
+            cache.open("c", c).close();     // not admitted, b was requested as often
+            cache.open("c", c).close();     // requested more often than b now
+            assertEquals(1, cache.getEvictions());
+            assertNull(cache.get("b"));
+            CachedContent content = cache.get("a");
+            assertNotNull(content);
+            content.close();
+            content = cache.get("c");
+            assertNotNull(content);
+            content.close();
+            a.release();
+            b.release();
+            c.release();
+        }
+
+        @Test
+        public void testColdFileRejected() throws IOException {
+            ContentCache cache = new ContentCache(150000, DIRECT);
+            FileHandle hot = createFile(100000);
+            FileHandle cold = createFile(100000);
+            for (int i = 0; i < 3; i++) {
+                cache.open("hot", hot).close();
+            }
+            StreamDataSource source = cache.open("cold", cold);
+            assertTrue(source instanceof FileDataSource);
+            assertEquals(1, cache.getRejections());
+            assertEquals(0, cache.getEvictions());
+            source.close();
+            hot.release();
+            cold.release();
+        }
+    }
+}
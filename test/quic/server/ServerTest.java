@@ -0,0 +1,88 @@
+package quic.server;
+
+import org.junit.jupiter.api.*;
+import quic.app.server.Server;
+import quic.app.transport.CongestionControl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Server class
+ */
+public class ServerTest {
+    private int maxRate;
+    private int defaultWeight;
+    private CongestionControl congestionControl;
+
+    @BeforeEach
+    public void saveSettings() {
+        maxRate = Server.getMaxRate();
+        defaultWeight = Server.getDefaultWeight();
+        congestionControl = Server.getCongestionControl();
+    }
+
+    @AfterEach
+    public void restoreSettings() {
+        Server.setMaxRate(maxRate);
+        Server.setDefaultWeight(defaultWeight);
+        Server.setCongestionControl(congestionControl);
+    }
+
+    @Nested
+    public class ParseArgumentsTest {
+        @Test
+        public void testNoArguments() throws UnknownHostException {
+            Server.parseArguments(new String[0]);
+            assertEquals(maxRate, Server.getMaxRate());
+            assertEquals(defaultWeight, Server.getDefaultWeight());
+        }
+
+        @Test
+        public void testWeights() throws UnknownHostException {
+            Server.parseArguments(new String[]{"--max-rate", "100", "--default-weight", "3",
+                    "--weight", "192.0.2.1=2", "--weight", "192.0.2.2=5"});
+            assertEquals(100, Server.getMaxRate());
+            assertEquals(3, Server.getDefaultWeight());
+            assertEquals(2, Server.getClientWeight(InetAddress.getByName("192.0.2.1")));
+            assertEquals(5, Server.getClientWeight(InetAddress.getByName("192.0.2.2")));
+            assertEquals(3, Server.getClientWeight(InetAddress.getByName("192.0.2.3")));
+        }
+
+        @Test
+        public void testUnknownOption() {
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--speed", "1"}));
+        }
+
+        @Test
+        public void testMissingValue() {
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--max-rate"}));
+        }
+
+        @Test
+        public void testInvalidWeights() {
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--default-weight", "0"}));
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--weight", "192.0.2.1"}));
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--weight", "192.0.2.1=x"}));
+        }
+
+        @Test
+        public void testCongestionControl() throws UnknownHostException {
+            Server.parseArguments(new String[]{"--congestion-control", "cubic",
+                    "--client-congestion-control", "192.0.2.4=BBR", "--client-congestion-control", "192.0.2.5=new-reno"});
+            assertEquals(CongestionControl.CUBIC, Server.getCongestionControl());
+            assertEquals(CongestionControl.BBR, Server.getClientCongestionControl(InetAddress.getByName("192.0.2.4")));
+            assertEquals(CongestionControl.NEW_RENO, Server.getClientCongestionControl(InetAddress.getByName("192.0.2.5")));
+            assertEquals(CongestionControl.CUBIC, Server.getClientCongestionControl(InetAddress.getByName("192.0.2.6")));
+        }
+
+        @Test
+        public void testInvalidCongestionControl() {
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--congestion-control", "vegas"}));
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--client-congestion-control", "BBR"}));
+            assertThrows(IllegalArgumentException.class, () -> Server.parseArguments(new String[]{"--client-congestion-control", "192.0.2.4=x"}));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package quic.transport;
+
+import org.junit.jupiter.api.*;
+import quic.app.transport.BbrCongestionController;
+import quic.app.transport.CubicCongestionController;
+import quic.app.transport.NewRenoCongestionController;
+import quic.app.transport.RttEstimator;
+import quic.app.transport.SentPacket;
+import quic.serialization.frame.QuicFrame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the NewRenoCongestionController, CubicCongestionController and
+ * BbrCongestionController classes
+ */
+public class CongestionControllerTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long T0 = TimeUnit.SECONDS.toNanos(1);
+    private static final int SIZE = 1200;
+
+    private RttEstimator rtt;
+
+    @BeforeEach
+    public void setUp() {
+        rtt = new RttEstimator(100 * MS);
+    }
+
+    private static SentPacket packet(long packetNumber, long timeSent) {
+        return new SentPacket(packetNumber, timeSent, SIZE, Collections.<QuicFrame>emptySet());
+    }
+
+    private static List<SentPacket> packets(long from, long to, long timeSent) {
+        List<SentPacket> packets = new ArrayList<>();
+        for (long pn = from; pn <= to; pn++) {
+            packets.add(packet(pn, timeSent));
+        }
+        return packets;
+    }
+
+    @Nested
+    public class NewRenoTest {
+        private NewRenoCongestionController controller;
+
+        @BeforeEach
+        public void setUp() {
+            controller = new NewRenoCongestionController(SIZE);
+        }
+
+        @Test
+        public void testInitialWindow() {
+            assertEquals(10 * SIZE, controller.getCongestionWindow());
+            assertEquals(14720, new NewRenoCongestionController(1500).getCongestionWindow());
+        }
+
+        @Test
+        public void testSlowStart() {
+            controller.onPacketsAcked(packets(0, 9, T0), rtt, 0, T0 + 100 * MS);
+            assertEquals(20 * SIZE, controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testLossHalvesOncePerRecovery() {
+            controller.onPacketsLost(packets(0, 0, T0), T0 + 100 * MS);
+            assertEquals(5 * SIZE, controller.getCongestionWindow());
+            controller.onPacketsLost(packets(1, 1, T0 + 50 * MS), T0 + 150 * MS);       // sent before the recovery started
+            assertEquals(5 * SIZE, controller.getCongestionWindow());
+            controller.onPacketsAcked(packets(2, 2, T0 + 50 * MS), rtt, 0, T0 + 150 * MS);
+            assertEquals(5 * SIZE, controller.getCongestionWindow());
+            controller.onPacketsLost(packets(3, 3, T0 + 200 * MS), T0 + 300 * MS);
+            assertEquals(5 * SIZE / 2, controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testCongestionAvoidance() {
+            controller.onPacketsLost(packets(0, 0, T0), T0 + 100 * MS);
+            controller.onPacketsAcked(packets(1, 5, T0 + 200 * MS), rtt, 0, T0 + 300 * MS);
+            assertTrue(controller.getCongestionWindow() > 5 * SIZE);
+            assertTrue(controller.getCongestionWindow() <= 6 * SIZE);      // about one datagram per window
+        }
+
+        @Test
+        public void testMinimumWindow() {
+            for (int i = 0; i < 10; i++) {
+                controller.onPacketsLost(packets(i, i, T0 + i * 100 * MS), T0 + i * 100 * MS + 1);
+            }
+            assertEquals(2 * SIZE, controller.getCongestionWindow());
+            controller.setMaxDatagramSize(1500);
+            assertEquals(3000, controller.getCongestionWindow());
+        }
+    }
+
+    @Nested
+    public class CubicTest {
+        private CubicCongestionController controller;
+
+        @BeforeEach
+        public void setUp() {
+            controller = new CubicCongestionController(SIZE);
+        }
+
+        @Test
+        public void testInitialWindow() {
+            assertEquals(10 * SIZE, controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testLossReducesByBeta() {
+            controller.onPacketsLost(packets(0, 0, T0), T0 + 100 * MS);
+            assertEquals((long) (10 * SIZE * CubicCongestionController.BETA), controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testWindowGrowsBackAfterLoss() {
+            long before = controller.getCongestionWindow();
+            controller.onPacketsLost(packets(0, 0, T0), T0 + 100 * MS);
+            long pn = 1;
+            long previous = controller.getCongestionWindow();
+            for (long now = T0 + 200 * MS; now < T0 + 5000 * MS; now += 10 * MS) {
+                controller.onPacketsAcked(packets(pn, pn, now - 100 * MS), rtt, 0, now);
+                pn++;
+                assertTrue(controller.getCongestionWindow() >= previous);
+                previous = controller.getCongestionWindow();
+            }
+            assertTrue(controller.getCongestionWindow() > before);
+        }
+    }
+
+    @Nested
+    public class BbrTest {
+        private BbrCongestionController controller;
+        private long pn = 0;
+        private long now = T0;
+
+        @BeforeEach
+        public void setUp() {
+            controller = new BbrCongestionController(SIZE);
+        }
+
+        /**
+         * Sends ten packets and acknowledges all of them one round trip of 100 ms later
+         */
+        private void round() {
+            List<SentPacket> sent = packets(pn, pn + 9, now);
+            for (SentPacket packet : sent) {
+                controller.onPacketSent(packet, 0);
+            }
+            pn += 10;
+            now += 100 * MS;
+            rtt.update(100 * MS, 0, 0);
+            controller.onPacketsAcked(sent, rtt, 0, now);
+        }
+
+        @Test
+        public void testInitialWindow() {
+            assertEquals(10 * SIZE, controller.getCongestionWindow());
+            assertEquals(0, controller.getBandwidth(), 0);
+        }
+
+        @Test
+        public void testBandwidthEstimate() {
+            round();
+            assertEquals(10 * SIZE * 10, controller.getBandwidth(), 1);      // ten packets per 100 ms
+            assertEquals((long) (BbrCongestionController.STARTUP_GAIN * 10 * SIZE), controller.getCongestionWindow());
+            assertEquals(BbrCongestionController.STARTUP_GAIN * controller.getBandwidth(), controller.getPacingRate(rtt), 1);
+        }
+
+        @Test
+        public void testLeavesStartupWhenBandwidthStopsGrowing() {
+            for (int i = 0; i < 3; i++) {
+                round();
+            }
+            assertEquals(BbrCongestionController.STARTUP_GAIN, controller.getPacingGain(), 0);
+            round();
+            assertEquals(BbrCongestionController.PROBE_BW_GAINS[1], controller.getPacingGain(), 0);
+            assertEquals((long) (BbrCongestionController.CWND_GAIN * 10 * SIZE), controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testLossKeepsWindow() {
+            round();
+            long window = controller.getCongestionWindow();
+            controller.onPacketsLost(packets(pn, pn, now), now + 100 * MS);
+            assertEquals(window, controller.getCongestionWindow());
+        }
+    }
+}
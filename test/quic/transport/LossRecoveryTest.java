@@ -0,0 +1,192 @@
+package quic.transport;
+
+import org.junit.jupiter.api.*;
+import quic.app.transport.LossRecovery;
+import quic.app.transport.NewRenoCongestionController;
+import quic.app.transport.SentPacket;
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicFrame;
+import quic.serialization.frame.QuicPingFrame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LossRecovery class
+ */
+public class LossRecoveryTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long T0 = TimeUnit.SECONDS.toNanos(1);
+    private static final long INITIAL_RTT = 100 * MS;
+    private static final int SIZE = 1200;
+
+    private NewRenoCongestionController controller;
+    private LossRecovery recovery;
+
+    @BeforeEach
+    public void setUp() {
+        controller = new NewRenoCongestionController(SIZE);
+        recovery = new LossRecovery(INITIAL_RTT, controller);
+    }
+
+    private void send(long packetNumber, long timeSent) {
+        recovery.onPacketSent(new SentPacket(packetNumber, timeSent, SIZE, Collections.<QuicFrame>singleton(new QuicPingFrame())));
+    }
+
+    private static QuicAckFrame ack(long largest, long firstAckRange) {
+        return new QuicAckFrame(largest, 0, firstAckRange, new ArrayList<Long>(), new ArrayList<Long>());
+    }
+
+    private static List<Long> packetNumbers(List<SentPacket> packets) {
+        List<Long> packetNumbers = new ArrayList<>();
+        for (SentPacket packet : packets) {
+            packetNumbers.add(packet.getPacketNumber());
+        }
+        return packetNumbers;
+    }
+
+    @Nested
+    public class LossTest {
+        @Test
+        public void testPacketThreshold() {
+            for (int pn = 0; pn < 5; pn++) {
+                send(pn, T0);
+            }
+            List<SentPacket> lost = recovery.onAckReceived(ack(4, 0), T0 + 10 * MS);
+            assertEquals("[0, 1]", packetNumbers(lost).toString());
+            assertTrue(recovery.isInFlight(2));
+            assertTrue(recovery.isInFlight(3));
+            assertEquals(2, recovery.getPacketsInFlight());
+            assertEquals(2 * SIZE, recovery.getBytesInFlight());
+        }
+
+        @Test
+        public void testTimeThreshold() {
+            send(0, T0);
+            send(1, T0 + 50 * MS);
+            List<SentPacket> lost = recovery.onAckReceived(ack(1, 0), T0 + 60 * MS);
+            assertEquals("[0]", packetNumbers(lost).toString());     // sent more than 9/8 of the 10 ms round trip earlier
+            assertEquals(0, recovery.getBytesInFlight());
+        }
+
+        @Test
+        public void testLossTimerDeclaresLateLoss() {
+            for (int pn = 0; pn < 5; pn++) {
+                send(pn, T0);
+            }
+            recovery.onAckReceived(ack(4, 0), T0 + 10 * MS);
+            long lossTime = T0 + 10 * MS * 9 / 8;
+            assertEquals(lossTime, recovery.getLossDetectionDeadline());
+            assertEquals("[2, 3]", packetNumbers(recovery.onLossDetectionTimeout(lossTime)).toString());
+            assertEquals(0, recovery.getPacketsInFlight());
+            assertEquals(0, recovery.getLossDetectionDeadline());
+            assertEquals(0, recovery.getPtoCount());
+        }
+
+        @Test
+        public void testNothingLostInOrder() {
+            for (int pn = 0; pn < 5; pn++) {
+                send(pn, T0);
+            }
+            assertTrue(recovery.onAckReceived(ack(4, 4), T0 + 10 * MS).isEmpty());
+            assertEquals(0, recovery.getPacketsInFlight());
+            assertEquals(0, recovery.getLossDetectionDeadline());
+        }
+
+        @Test
+        public void testLostPmtuProbeKeepsWindow() {
+            recovery.onPacketSent(new SentPacket(0, T0, 1400, Collections.<QuicFrame>singleton(new QuicPingFrame()), true));
+            for (int pn = 1; pn < 4; pn++) {
+                send(pn, T0);
+            }
+            long window = controller.getCongestionWindow();
+            assertEquals("[0]", packetNumbers(recovery.onAckReceived(ack(3, 0), T0 + 10 * MS)).toString());
+            assertEquals(window + SIZE, controller.getCongestionWindow());
+        }
+
+        @Test
+        public void testLossReducesWindow() {
+            for (int pn = 0; pn < 5; pn++) {
+                send(pn, T0);
+            }
+            long window = controller.getCongestionWindow();
+            recovery.onAckReceived(ack(4, 0), T0 + 10 * MS);
+            assertEquals(window / 2, controller.getCongestionWindow());
+        }
+    }
+
+    @Nested
+    public class ProbeTimeoutTest {
+        /**
+         * Probe timeout before backoff with the initial estimate: 100 ms + 4 * 50 ms + 25 ms
+         */
+        private final long pto = 325 * MS;
+
+        @Test
+        public void testBackoffDoubles() {
+            send(0, T0);
+            assertEquals(T0 + pto, recovery.getLossDetectionDeadline());
+            assertEquals("[0]", packetNumbers(recovery.onLossDetectionTimeout(T0 + pto)).toString());
+            assertEquals(1, recovery.getPtoCount());
+            assertEquals(T0 + 2 * pto, recovery.getLossDetectionDeadline());
+            recovery.onLossDetectionTimeout(T0 + 2 * pto);
+            assertEquals(2, recovery.getPtoCount());
+            assertEquals(T0 + 4 * pto, recovery.getLossDetectionDeadline());
+            assertTrue(recovery.isInFlight(0));      // a probe does not declare the packet lost
+        }
+
+        @Test
+        public void testProbesAreOldestPackets() {
+            for (int pn = 0; pn < 4; pn++) {
+                send(pn, T0 + pn * MS);
+            }
+            assertEquals(T0 + 3 * MS + pto, recovery.getLossDetectionDeadline());
+            assertEquals("[0, 1]", packetNumbers(recovery.onLossDetectionTimeout(T0 + 3 * MS + pto)).toString());
+        }
+
+        @Test
+        public void testAckResetsBackoff() {
+            send(0, T0);
+            send(1, T0);
+            recovery.onLossDetectionTimeout(T0 + pto);
+            recovery.onLossDetectionTimeout(T0 + 3 * pto);
+            assertEquals(2, recovery.getPtoCount());
+            recovery.onAckReceived(ack(1, 1), T0 + 4 * pto);
+            assertEquals(0, recovery.getPtoCount());
+        }
+
+        @Test
+        public void testNoDeadlineWhenIdle() {
+            assertEquals(0, recovery.getLossDetectionDeadline());
+        }
+    }
+
+    @Nested
+    public class CongestionTest {
+        @Test
+        public void testWindowLimitsSending() {
+            int packets = (int) (controller.getCongestionWindow() / SIZE);
+            for (int pn = 0; pn < packets; pn++) {
+                assertTrue(recovery.canSend());
+                send(pn, T0);
+            }
+            assertFalse(recovery.canSend());
+            recovery.onAckReceived(ack(0, 0), T0 + 10 * MS);
+            assertTrue(recovery.canSend());
+        }
+
+        @Test
+        public void testAckDelayTakenFromSample() {
+            send(0, T0);
+            send(1, T0 + 100 * MS);
+            recovery.onAckReceived(ack(0, 0), T0 + 40 * MS);
+            recovery.onAckReceived(new QuicAckFrame(1, 1250, 0, new ArrayList<Long>(), new ArrayList<Long>()), T0 + 160 * MS);
+            assertEquals(60 * MS, recovery.getRttEstimator().getLatestRtt());
+            assertEquals((7 * 40 * MS + 50 * MS) / 8, recovery.getRttEstimator().getSmoothedRtt());     // 1250 << 3 us of delay
+        }
+    }
+}
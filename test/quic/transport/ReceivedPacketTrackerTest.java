@@ -0,0 +1,99 @@
+package quic.transport;
+
+import org.junit.jupiter.api.*;
+import quic.app.transport.ReceivedPacketTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ReceivedPacketTracker class
+ */
+public class ReceivedPacketTrackerTest {
+    private ReceivedPacketTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new ReceivedPacketTracker();
+    }
+
+    private void addRange(long from, long to) {
+        for (long pn = from; pn <= to; pn++) {
+            assertTrue(tracker.add(pn));
+        }
+    }
+
+    private String ranges(int max) {
+        List<String> ranges = new ArrayList<>();
+        for (long[] range : tracker.getRanges(max)) {
+            ranges.add(Arrays.toString(range));
+        }
+        return ranges.toString();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(-1, tracker.getLargest());
+        assertTrue(tracker.getRanges(10).isEmpty());
+        assertFalse(tracker.contains(0));
+    }
+
+    @Test
+    public void testDuplicate() {
+        assertTrue(tracker.add(5));
+        assertFalse(tracker.add(5));
+        assertTrue(tracker.contains(5));
+        assertFalse(tracker.contains(4));
+        assertEquals(5, tracker.getLargest());
+    }
+
+    @Test
+    public void testRangesLargestFirst() {
+        addRange(0, 4);
+        addRange(7, 9);
+        tracker.add(12);
+        assertEquals("[[12, 12], [7, 9], [0, 4]]", ranges(10));
+        assertEquals("[[12, 12], [7, 9]]", ranges(2));
+    }
+
+    @Test
+    public void testReorderedPacketFillsGap() {
+        tracker.add(3);
+        tracker.add(1);
+        assertEquals(3, tracker.getLargest());
+        assertEquals("[[3, 3], [1, 1]]", ranges(10));
+        tracker.add(2);
+        assertEquals("[[1, 3]]", ranges(10));
+    }
+
+    @Test
+    public void testWindowSlidesIntoHistory() {
+        addRange(0, 9);
+        assertTrue(tracker.add(2000));
+        assertTrue(tracker.contains(5));
+        assertFalse(tracker.add(5));
+        assertTrue(tracker.add(500));        // below the window but never seen
+        assertFalse(tracker.add(500));
+        assertEquals("[[2000, 2000], [500, 500], [0, 9]]", ranges(10));
+    }
+
+    @Test
+    public void testRangeMergesAcrossWindowEdge() {
+        addRange(0, 3000);
+        assertEquals("[[0, 3000]]", ranges(10));
+    }
+
+    @Test
+    public void testOldestRangesForgotten() {
+        for (long pn = 0; pn < 2 * (ReceivedPacketTracker.MAX_RANGES + 8); pn += 2) {
+            tracker.add(pn);
+        }
+        tracker.add(5000);
+        assertFalse(tracker.add(1));     // older than any range kept, taken for a duplicate
+        assertTrue(tracker.contains(1));
+        assertEquals(ReceivedPacketTracker.MAX_RANGES, tracker.getRanges(100).size() - 1);
+    }
+}
@@ -0,0 +1,81 @@
+package quic.transport;
+
+import org.junit.jupiter.api.*;
+import quic.app.transport.RttEstimator;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the RttEstimator class
+ */
+public class RttEstimatorTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_ACK_DELAY = 25 * MS;
+
+    private RttEstimator rtt;
+
+    @BeforeEach
+    public void setUp() {
+        rtt = new RttEstimator(100 * MS);
+    }
+
+    @Test
+    public void testInitialEstimate() {
+        assertFalse(rtt.hasSample());
+        assertEquals(100 * MS, rtt.getSmoothedRtt());
+        assertEquals(50 * MS, rtt.getRttVar());
+        assertEquals(100 * MS, rtt.getMinRtt());
+        assertEquals(325 * MS, rtt.getPtoDuration(MAX_ACK_DELAY));
+    }
+
+    @Test
+    public void testFirstSampleReplacesEstimate() {
+        rtt.update(40 * MS, 10 * MS, MAX_ACK_DELAY);
+        assertTrue(rtt.hasSample());
+        assertEquals(40 * MS, rtt.getSmoothedRtt());     // the ack delay is ignored for the first sample
+        assertEquals(20 * MS, rtt.getRttVar());
+        assertEquals(40 * MS, rtt.getMinRtt());
+        assertEquals(40 * MS, rtt.getLatestRtt());
+    }
+
+    @Test
+    public void testSmoothing() {
+        rtt.update(40 * MS, 0, MAX_ACK_DELAY);
+        rtt.update(60 * MS, 10 * MS, MAX_ACK_DELAY);
+        assertEquals(60 * MS, rtt.getLatestRtt());
+        assertEquals((3 * 20 * MS + 10 * MS) / 4, rtt.getRttVar());
+        assertEquals((7 * 40 * MS + 50 * MS) / 8, rtt.getSmoothedRtt());
+        assertEquals(40 * MS, rtt.getMinRtt());
+    }
+
+    @Test
+    public void testAckDelayCapped() {
+        rtt.update(40 * MS, 0, MAX_ACK_DELAY);
+        rtt.update(100 * MS, 50 * MS, MAX_ACK_DELAY);
+        assertEquals((7 * 40 * MS + 75 * MS) / 8, rtt.getSmoothedRtt());
+    }
+
+    @Test
+    public void testAckDelayNotBelowMinRtt() {
+        rtt.update(40 * MS, 0, MAX_ACK_DELAY);
+        rtt.update(45 * MS, 10 * MS, MAX_ACK_DELAY);
+        assertEquals((7 * 40 * MS + 45 * MS) / 8, rtt.getSmoothedRtt());
+    }
+
+    @Test
+    public void testMinRttTracksSmallestSample() {
+        rtt.update(40 * MS, 0, MAX_ACK_DELAY);
+        rtt.update(30 * MS, 0, MAX_ACK_DELAY);
+        rtt.update(50 * MS, 0, MAX_ACK_DELAY);
+        assertEquals(30 * MS, rtt.getMinRtt());
+    }
+
+    @Test
+    public void testPtoDurationGranularity() {
+        long sample = TimeUnit.MICROSECONDS.toNanos(100);
+        rtt.update(sample, 0, MAX_ACK_DELAY);
+        assertEquals(sample + RttEstimator.GRANULARITY + MAX_ACK_DELAY, rtt.getPtoDuration(MAX_ACK_DELAY));
+    }
+}
@@ -0,0 +1,153 @@
+package quic.transport;
+
+import org.junit.jupiter.api.*;
+import quic.app.transport.SentPacket;
+import quic.app.transport.SentPacketTable;
+import quic.serialization.frame.QuicAckFrame;
+import quic.serialization.frame.QuicFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the SentPacketTable class
+ */
+public class SentPacketTableTest {
+    private SentPacketTable table;
+
+    @BeforeEach
+    public void setUp() {
+        table = new SentPacketTable();
+    }
+
+    private void add(long packetNumber) {
+        table.add(new SentPacket(packetNumber, 1000 + packetNumber, 100 + (int) packetNumber, Collections.<QuicFrame>emptySet()));
+    }
+
+    private static List<Long> packetNumbers(List<SentPacket> packets) {
+        List<Long> packetNumbers = new ArrayList<>();
+        for (SentPacket packet : packets) {
+            packetNumbers.add(packet.getPacketNumber());
+        }
+        return packetNumbers;
+    }
+
+    @Nested
+    public class AddTest {
+        @Test
+        public void testEmpty() {
+            assertTrue(table.isEmpty());
+            assertEquals(-1, table.getSmallest());
+            assertNull(table.get(0));
+            assertEquals(-1, table.getLargestAcked());
+        }
+
+        @Test
+        public void testPacketKept() {
+            add(7);
+            SentPacket packet = table.get(7);
+            assertEquals(7, packet.getPacketNumber());
+            assertEquals(1007, packet.getTimeSent());
+            assertEquals(107, packet.getSize());
+            assertEquals(1007, table.getTimeSent(7));
+            assertTrue(table.contains(7));
+            assertEquals(1, table.size());
+        }
+
+        @Test
+        public void testOutOfOrder() {
+            add(5);
+            add(2);
+            assertEquals(2, table.getSmallest());
+            assertEquals(5, table.next(2));
+            assertEquals(-1, table.next(5));
+            assertFalse(table.contains(3));
+        }
+
+        @Test
+        public void testGrowsBeyondInitialCapacity() {
+            for (int pn = 0; pn < 1000; pn++) {
+                add(pn);
+            }
+            assertEquals(1000, table.size());
+            for (int pn = 0; pn < 1000; pn++) {
+                assertEquals(1000 + pn, table.getTimeSent(pn));
+            }
+        }
+
+        @Test
+        public void testRemove() {
+            add(0);
+            add(1);
+            add(2);
+            assertEquals(0, table.remove(0).getPacketNumber());
+            assertNull(table.remove(0));
+            assertEquals(1, table.getSmallest());
+            table.remove(2);
+            assertEquals(1, table.getSmallest());
+            assertEquals(-1, table.next(1));
+        }
+    }
+
+    @Nested
+    public class AckTest {
+        @BeforeEach
+        public void addPackets() {
+            for (int pn = 0; pn < 10; pn++) {
+                add(pn);
+            }
+        }
+
+        @Test
+        public void testFirstRange() {
+            assertEquals("[7, 8, 9]", packetNumbers(table.onAck(new QuicAckFrame(9, 0, 2, new ArrayList<Long>(), new ArrayList<Long>()))).toString());
+            assertEquals(9, table.getLargestAcked());
+            assertEquals(7, table.size());
+            assertEquals(0, table.getSmallest());
+        }
+
+        @Test
+        public void testRangesWithGaps() {
+            QuicAckFrame ack = new QuicAckFrame(9, 0, 1, Arrays.asList(1L, 0L), Arrays.asList(1L, 0L));
+            assertEquals("[2, 4, 5, 8, 9]", packetNumbers(table.onAck(ack)).toString());
+            assertEquals(0, table.getSmallest());
+            assertEquals(1, table.next(0));
+            assertEquals(3, table.next(1));
+            assertEquals(6, table.next(3));
+            assertEquals(7, table.next(6));
+            assertEquals(-1, table.next(7));
+        }
+
+        @Test
+        public void testAckAdvancesSmallest() {
+            table.onAck(new QuicAckFrame(3, 0, 3, new ArrayList<Long>(), new ArrayList<Long>()));
+            assertEquals(4, table.getSmallest());
+            assertFalse(table.contains(2));
+        }
+
+        @Test
+        public void testRepeatedAck() {
+            QuicAckFrame ack = new QuicAckFrame(9, 0, 9, new ArrayList<Long>(), new ArrayList<Long>());
+            assertEquals(10, table.onAck(ack).size());
+            assertTrue(table.onAck(ack).isEmpty());
+            assertTrue(table.isEmpty());
+        }
+
+        @Test
+        public void testAckBeyondSentPackets() {
+            assertEquals(10, table.onAck(new QuicAckFrame(20, 0, 20, new ArrayList<Long>(), new ArrayList<Long>())).size());
+            assertEquals(20, table.getLargestAcked());
+        }
+
+        @Test
+        public void testLargestAckedNeverDecreases() {
+            table.onAck(new QuicAckFrame(9, 0, 0, new ArrayList<Long>(), new ArrayList<Long>()));
+            table.onAck(new QuicAckFrame(5, 0, 0, new ArrayList<Long>(), new ArrayList<Long>()));
+            assertEquals(9, table.getLargestAcked());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package quic.util;
+
+import org.junit.jupiter.api.*;
+import quic.app.util.DeficitRoundRobin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the DeficitRoundRobin class
+ */
+public class DeficitRoundRobinTest {
+    private static final int QUANTUM = 1500;
+
+    private DeficitRoundRobin<String, String> drr;
+
+    @BeforeEach
+    public void setUp() {
+        drr = new DeficitRoundRobin<>(QUANTUM);
+    }
+
+    /**
+     * Dequeues items while every flow stays backlogged and sums the bytes of each flow
+     */
+    private Map<String, Long> drain(int items, Map<String, Integer> sizes) {
+        Map<String, Long> bytes = new HashMap<>();
+        for (int i = 0; i < items; i++) {
+            String flow = drr.poll();
+            bytes.merge(flow, (long) sizes.get(flow), Long::sum);
+        }
+        return bytes;
+    }
+
+    @Nested
+    public class ShareTest {
+        @Test
+        public void testEqualWeightsShareEqually() {
+            Map<String, Integer> sizes = new HashMap<>();
+            sizes.put("a", 1000);
+            sizes.put("b", 1000);
+            for (int i = 0; i < 1000; i++) {
+                drr.add("a", 1, "a", 1000);
+                drr.add("b", 1, "b", 1000);
+            }
+            Map<String, Long> bytes = drain(600, sizes);
+            assertEquals((double) bytes.get("a"), (double) bytes.get("b"), 2 * QUANTUM);
+        }
+
+        @Test
+        public void testWeightTwoGetsTwiceTheBytes() {
+            Map<String, Integer> sizes = new HashMap<>();
+            sizes.put("heavy", 1200);
+            sizes.put("light", 1200);
+            for (int i = 0; i < 1000; i++) {
+                drr.add("heavy", 2, "heavy", 1200);
+                drr.add("light", 1, "light", 1200);
+            }
+            Map<String, Long> bytes = drain(900, sizes);
+            assertEquals(2.0, (double) bytes.get("heavy") / bytes.get("light"), 0.02);
+        }
+
+        @Test
+        public void testSharesIndependentOfItemSize() {
+            Map<String, Integer> sizes = new HashMap<>();
+            sizes.put("large", 1400);
+            sizes.put("small", 100);
+            for (int i = 0; i < 5000; i++) {
+                drr.add("large", 1, "large", 1400);
+                drr.add("small", 1, "small", 100);
+            }
+            Map<String, Long> bytes = drain(4000, sizes);
+            assertEquals(1.0, (double) bytes.get("large") / bytes.get("small"), 0.05);
+        }
+    }
+
+    @Nested
+    public class QueueTest {
+        @Test
+        public void testEmpty() {
+            assertTrue(drr.isEmpty());
+            assertNull(drr.poll());
+            assertEquals(-1, drr.peekSize());
+        }
+
+        @Test
+        public void testFlowKeepsItsOrder() {
+            drr.add("a", 1, "a1", 500);
+            drr.add("a", 1, "a2", 500);
+            drr.add("a", 1, "a3", 500);
+            assertEquals(3, drr.size());
+            assertEquals(500, drr.peekSize());
+            assertEquals("a1", drr.poll());
+            assertEquals("a2", drr.poll());
+            assertEquals("a3", drr.poll());
+            assertTrue(drr.isEmpty());
+        }
+
+        @Test
+        public void testFlowsAlternate() {
+            drr.add("a", 1, "a1", 1000);
+            drr.add("a", 1, "a2", 1000);
+            drr.add("b", 1, "b1", 1000);
+            drr.add("b", 1, "b2", 1000);
+            assertEquals("a1", drr.poll());
+            assertEquals("b1", drr.poll());
+            assertEquals("a2", drr.poll());
+            assertEquals("b2", drr.poll());
+        }
+
+        @Test
+        public void testIdleFlowLosesDeficit() {
+            drr.add("a", 1, "a1", 100);
+            assertEquals("a1", drr.poll());
+            drr.add("b", 1, "b1", 1000);
+            drr.add("b", 1, "b2", 1000);
+            drr.add("a", 1, "a2", 1000);
+            drr.add("a", 1, "a3", 1000);
+            assertEquals("b1", drr.poll());
+            assertEquals("a2", drr.poll());     // a did not keep the 1400 bytes it had left
+            assertEquals("b2", drr.poll());
+            assertEquals("a3", drr.poll());
+        }
+    }
+}
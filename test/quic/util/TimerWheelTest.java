@@ -0,0 +1,171 @@
+package quic.util;
+
+import org.junit.jupiter.api.*;
+import quic.app.util.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the TimerWheel class
+ */
+public class TimerWheelTest {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long start;
+    private TimerWheel wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    public void setUp() {
+        start = System.nanoTime();      // the wheel starts less than a tick later
+        wheel = new TimerWheel(TICK);
+        fired = new ArrayList<>();
+    }
+
+    private TimerWheel.Timer newTimer(String name) {
+        return new TimerWheel.Timer(() -> fired.add(name));
+    }
+
+    /**
+     * Advances the wheel to the given tick after the start
+     */
+    private void advanceTo(long tick) {
+        wheel.advance(start + tick * TICK);
+    }
+
+    /**
+     * Checks that a timer stays quiet until its tick and fires when it is reached
+     */
+    private void assertFiresAt(long tick) {
+        TimerWheel.Timer timer = newTimer("t");
+        wheel.schedule(timer, start + tick * TICK);
+        advanceTo(tick - 1);
+        assertTrue(fired.isEmpty());
+        assertTrue(timer.isScheduled());
+        advanceTo(tick + 1);
+        assertEquals(1, fired.size());
+        assertFalse(timer.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    @Nested
+    public class ScheduleTest {
+        @Test
+        public void testFiresWithinFirstLevel() {
+            assertFiresAt(10);
+        }
+
+        @Test
+        public void testCascadesFromSecondLevel() {
+            assertFiresAt(1000);
+        }
+
+        @Test
+        public void testCascadesFromThirdLevel() {
+            assertFiresAt(100000);
+        }
+
+        @Test
+        public void testCascadesAcrossLevelWrap() {
+            assertFiresAt(16384 + 300);
+        }
+
+        @Test
+        public void testTimersFireInTheirOwnTick() {
+            wheel.schedule(newTimer("a"), start + 300 * TICK);
+            wheel.schedule(newTimer("b"), start + 20000 * TICK);
+            wheel.schedule(newTimer("c"), start + 70000 * TICK);
+            assertEquals(3, wheel.size());
+            advanceTo(301);
+            assertEquals("[a]", fired.toString());
+            advanceTo(19999);
+            assertEquals("[a]", fired.toString());
+            advanceTo(20001);
+            assertEquals("[a, b]", fired.toString());
+            advanceTo(69999);
+            assertEquals("[a, b]", fired.toString());
+            advanceTo(70001);
+            assertEquals("[a, b, c]", fired.toString());
+        }
+
+        @Test
+        public void testPastDeadlineFiresOnNextTick() {
+            advanceTo(50);
+            wheel.schedule(newTimer("t"), start);
+            advanceTo(50);
+            assertTrue(fired.isEmpty());
+            advanceTo(52);
+            assertEquals(1, fired.size());
+        }
+    }
+
+    @Nested
+    public class RescheduleTest {
+        @Test
+        public void testCancel() {
+            TimerWheel.Timer timer = newTimer("t");
+            wheel.schedule(timer, start + 20000 * TICK);
+            wheel.cancel(timer);
+            assertFalse(timer.isScheduled());
+            assertEquals(0, wheel.size());
+            advanceTo(20001);
+            assertTrue(fired.isEmpty());
+        }
+
+        @Test
+        public void testMoveEarlier() {
+            TimerWheel.Timer timer = newTimer("t");
+            wheel.schedule(timer, start + 20000 * TICK);
+            wheel.schedule(timer, start + 100 * TICK);
+            assertEquals(1, wheel.size());
+            advanceTo(101);
+            assertEquals(1, fired.size());
+            advanceTo(20001);
+            assertEquals(1, fired.size());
+        }
+
+        @Test
+        public void testTaskReschedulesItself() {
+            final TimerWheel.Timer[] timer = new TimerWheel.Timer[1];
+            timer[0] = new TimerWheel.Timer(() -> {
+                fired.add("t");
+                wheel.schedule(timer[0], start + 100 * fired.size() * TICK + 100 * TICK);
+            });
+            wheel.schedule(timer[0], start + 100 * TICK);
+            for (long tick = 1; tick <= 1000; tick++) {
+                advanceTo(tick);
+            }
+            assertEquals(9, fired.size());
+            assertTrue(timer[0].isScheduled());
+        }
+    }
+
+    @Nested
+    public class NextExpiryTest {
+        @Test
+        public void testEmptyWheel() {
+            assertEquals(Long.MAX_VALUE, wheel.nextExpiry());
+        }
+
+        @Test
+        public void testNearestTimer() {
+            wheel.schedule(newTimer("a"), start + 200 * TICK);
+            wheel.schedule(newTimer("b"), start + 10 * TICK);
+            long next = wheel.nextExpiry();
+            assertTrue(next >= start + 10 * TICK);
+            assertTrue(next < start + 11 * TICK);
+        }
+
+        @Test
+        public void testFarTimerWakesForCascade() {
+            wheel.schedule(newTimer("t"), start + 100000 * TICK);
+            long next = wheel.nextExpiry();
+            assertTrue(next >= start + 256 * TICK);
+            assertTrue(next < start + 257 * TICK);
+        }
+    }
+}